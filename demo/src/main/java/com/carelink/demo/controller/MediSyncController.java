@@ -1,21 +1,37 @@
 package com.carelink.demo.controller;
 
 import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.AvailableSlot;
 import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.DoctorPage;
+import com.carelink.demo.model.FacetCounts;
+import com.carelink.demo.model.NearbyDoctor;
+import com.carelink.demo.model.OperationResult;
 import com.carelink.demo.model.Patient;
+import com.carelink.demo.model.RankedDoctor;
+import com.carelink.demo.model.SlotHold;
+import com.carelink.demo.model.Suggestion;
 import com.carelink.demo.service.CareLinkService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -26,9 +42,21 @@ import java.util.stream.Collectors;
 @Controller
 public class MediSyncController {
 
+    /** En-tête portant le curseur de la page suivante des listes paginées. */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** Taille maximale d'une page de médecins. */
+    private static final int MAX_PAGE_SIZE = 500;
+
+    /** Nombre maximal d'opérations dans un lot de rendez-vous. */
+    private static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private CareLinkService careLinkService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // -------------------- VUES (PAGES) --------------------
 
     /** Affiche le tableau de bord médecin. */
@@ -93,36 +121,188 @@ public class MediSyncController {
     /**
      * Recherche des médecins avec des filtres optionnels
      * (wilaya, ville, spécialité).
+     *
+     * Avec {@code limit} ou {@code cursor}, la réponse est une page triée
+     * par identifiant (au plus {@value #MAX_PAGE_SIZE} médecins), lue à
+     * partir du curseur, et l'en-tête {@value #NEXT_CURSOR_HEADER} donne le
+     * curseur de la page suivante (à repasser dans {@code cursor}). Le corps
+     * reste un tableau JSON, écrit au fil de l'eau.
+     *
+     * Sans ces paramètres, tous les résultats sont renvoyés : ce mode n'est
+     * gardé que pour la prise de rendez-vous (appointment.js), qui affiche
+     * tous les médecins filtrés d'un coup. Les nouveaux clients doivent
+     * paginer.
      */
     @GetMapping("/api/doctors")
     @ResponseBody
-    public List<Doctor> getDoctors(
+    public ResponseEntity<StreamingResponseBody> getDoctors(
             @RequestParam(required = false) String wilaya,
             @RequestParam(required = false) String city,
-            @RequestParam(required = false) String specialty) {
-
-        return careLinkService.searchDoctors(wilaya, city, specialty);
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            if (limit == null && cursor == null) {
+                return streamDoctors(careLinkService.searchDoctors(wilaya, city, specialty), null);
+            }
+            DoctorPage page = careLinkService.searchDoctors(wilaya, city, specialty, cursor, pageSize(limit));
+            return streamDoctors(page.doctors(), page.nextCursor());
+        } catch (IllegalArgumentException e) {
+            return streamJson(HttpStatus.BAD_REQUEST, Map.of("success", false, "message", e.getMessage()));
+        }
     }
 
     /**
      * Recherche de médecins via une stratégie (pattern Strategy),
-     * selon un type et un critère.
+     * selon un type et un critère. Pagination facultative, comme
+     * {@code /api/doctors}.
      */
     @GetMapping("/api/doctors/search-strategy")
     @ResponseBody
-    public ResponseEntity<?> searchDoctorsByStrategy(
+    public ResponseEntity<StreamingResponseBody> searchDoctorsByStrategy(
             @RequestParam String type,
-            @RequestParam String criteria) {
+            @RequestParam String criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            return ResponseEntity.ok(careLinkService.searchDoctorsByStrategy(type, criteria));
+            if (limit == null && cursor == null) {
+                return streamDoctors(careLinkService.searchDoctorsByStrategy(type, criteria), null);
+            }
+            DoctorPage page = careLinkService.searchDoctorsByStrategy(type, criteria, cursor, pageSize(limit));
+            return streamDoctors(page.doctors(), page.nextCursor());
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return streamJson(HttpStatus.BAD_REQUEST, Map.of("success", false, "message", e.getMessage()));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("success", false, "message", "Error: " + e.getMessage()));
+            return streamJson(HttpStatus.INTERNAL_SERVER_ERROR,
+                    Map.of("success", false, "message", "Error: " + e.getMessage()));
         }
     }
 
+    private static int pageSize(Integer limit) {
+        return limit == null ? MAX_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Écrit une liste de médecins en tableau JSON, médecin par médecin, sans
+     * construire le document complet en mémoire.
+     */
+    private ResponseEntity<StreamingResponseBody> streamDoctors(List<Doctor> doctors, String nextCursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeStartArray();
+                for (Doctor doctor : doctors) {
+                    json.writeObject(doctor);
+                }
+                json.writeEndArray();
+            }
+        });
+    }
+
+    /**
+     * Réponse JSON simple (erreurs) pour les méthodes qui renvoient un corps
+     * écrit au fil de l'eau.
+     */
+    private ResponseEntity<StreamingResponseBody> streamJson(HttpStatus status, Object body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeObject(body);
+            }
+        });
+    }
+
+    /**
+     * Premiers créneaux libres (ex: "le premier créneau de cardiologie à
+     * Oran dans les 14 prochains jours"), par ordre chronologique.
+     */
+    @GetMapping("/api/doctors/first-available")
+    @ResponseBody
+    public List<AvailableSlot> getFirstAvailableSlots(
+            @RequestParam(required = false) String wilaya,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "10") int limit) {
+        return careLinkService.findFirstAvailableSlots(wilaya, city, specialty,
+                Math.max(1, Math.min(days, 90)), Math.max(1, Math.min(limit, 100)));
+    }
+
+    /**
+     * Meilleurs médecins pour une recherche, classés par score (premier
+     * créneau libre, charge, proximité de la ville demandée) : seuls les
+     * {@code k} premiers sont calculés et renvoyés.
+     */
+    @GetMapping("/api/doctors/ranked")
+    @ResponseBody
+    public List<RankedDoctor> getRankedDoctors(
+            @RequestParam(required = false) String wilaya,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(defaultValue = "10") int k) {
+        return careLinkService.rankDoctors(wilaya, city, specialty, Math.max(1, Math.min(k, 100)));
+    }
+
+    /**
+     * Les k médecins les plus proches (ex: "le cardiologue le plus proche"),
+     * autour d'un point (lat/lon) ou du centre d'une ville ou d'une wilaya,
+     * triés par distance croissante.
+     */
+    @GetMapping("/api/doctors/nearest")
+    @ResponseBody
+    public ResponseEntity<?> getNearestDoctors(
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(required = false) String wilaya,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(defaultValue = "10") int k) {
+        try {
+            List<NearbyDoctor> doctors = careLinkService.findNearestDoctors(lat, lon, wilaya, city, specialty,
+                    Math.max(1, Math.min(k, 100)));
+            return ResponseEntity.ok(doctors);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Nombre de médecins par wilaya, ville et spécialité, pour afficher les
+     * comptes dans les listes de filtres ; chaque liste tient compte des
+     * autres filtres sélectionnés.
+     */
+    @GetMapping("/api/doctors/facets")
+    @ResponseBody
+    public FacetCounts getFacetCounts(
+            @RequestParam(required = false) String wilaya,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String specialty) {
+        return careLinkService.getFacetCounts(wilaya, city, specialty);
+    }
+
+    /** Statistiques du cache des résultats de recherche. */
+    @GetMapping("/api/doctors/search-cache/stats")
+    @ResponseBody
+    public Map<String, Long> getSearchCacheStats() {
+        return careLinkService.getSearchCacheStats();
+    }
+
+    /**
+     * Autocomplétion : suggestions de médecins, spécialités et villes pour
+     * une saisie partielle ou approximative (ex: "cardio", "Meghraui").
+     */
+    @GetMapping("/api/doctors/autocomplete")
+    @ResponseBody
+    public List<Suggestion> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return careLinkService.autocomplete(q, Math.max(1, Math.min(limit, 50)));
+    }
+
     /** Retourne un médecin par son identifiant. */
     @GetMapping("/api/doctor/{id}")
     @ResponseBody
@@ -175,13 +355,17 @@ public class MediSyncController {
         }
 
         try {
-            Doctor doctor = careLinkService.getDoctorById(doctorId);
-            if (doctor == null) {
+            Doctor current = careLinkService.getDoctorById(doctorId);
+            if (current == null) {
                 response.put("success", false);
                 response.put("message", "Doctor not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
+            // Modifications portées par une copie : le médecin publié n'est
+            // remplacé que si l'enregistrement réussit
+            Doctor doctor = current.copy();
+
             // Champs simples (nettoyage avec trim)
             if (updates.containsKey("email")) {
                 String email = (String) updates.get("email");
@@ -310,13 +494,17 @@ public class MediSyncController {
         }
 
         try {
-            Patient patient = careLinkService.getPatientById(patientId);
-            if (patient == null) {
+            Patient current = careLinkService.getPatientById(patientId);
+            if (current == null) {
                 response.put("success", false);
                 response.put("message", "Patient not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
+            // Modifications portées par une copie, recopiées seulement si
+            // l'enregistrement réussit
+            Patient patient = current.copy();
+
             // Mise à jour simple des champs (trim pour éviter les espaces)
             if (updates.containsKey("email"))
                 patient.setEmail(((String) updates.get("email")).trim());
@@ -395,35 +583,135 @@ public class MediSyncController {
      */
     @PostMapping("/api/appointments/book")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> bookAppointment(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> bookAppointment(
             @RequestBody Map<String, String> appointmentData,
             HttpSession session) {
 
         Map<String, Object> response = new HashMap<>();
 
-        try {
-            String patientId = (String) session.getAttribute("patientId");
-            if (patientId == null)
-                patientId = (String) session.getAttribute("userId");
+        String patientId = (String) session.getAttribute("patientId");
+        if (patientId == null)
+            patientId = (String) session.getAttribute("userId");
 
-            if (patientId == null) {
-                response.put("success", false);
-                response.put("message", "Not logged in");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-            }
+        if (patientId == null) {
+            response.put("success", false);
+            response.put("message", "Not logged in");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response));
+        }
 
-            String doctorId = appointmentData.get("doctorId");
-            String date = appointmentData.get("date");
-            String time = appointmentData.get("time");
+        String doctorId = appointmentData.get("doctorId");
+        String date = appointmentData.get("date");
+        String time = appointmentData.get("time");
+
+        // La réservation est faite par le shard du médecin : le thread de la requête est libéré
+        return careLinkService.bookAppointmentAsync(patientId, doctorId, date, time, appointmentData.get("holdId"))
+                .handle((appointment, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error;
+                        response.put("success", false);
+                        if (cause instanceof UncheckedIOException) {
+                            // Journal indisponible : la demande n'est pas en cause, elle peut être renvoyée
+                            response.put("message", "Appointment could not be saved, please try again later");
+                            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+                        }
+                        response.put("message", cause.getMessage());
+                        return ResponseEntity.badRequest().body(response);
+                    }
+                    response.put("success", true);
+                    response.put("appointmentId", appointment.getId());
+                    response.put("status", appointment.getStatus());
+                    response.put("message", "Appointment created. Waiting for doctor response.");
+                    return ResponseEntity.ok(response);
+                });
+    }
 
-            Appointment appointment = careLinkService.bookAppointment(patientId, doctorId, date, time);
+    /**
+     * Retient un créneau pour le patient connecté pendant quelques minutes ;
+     * le "holdId" renvoyé est à joindre à la réservation.
+     */
+    @PostMapping("/api/appointments/hold")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> holdSlot(
+            @RequestBody Map<String, String> holdData,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        String patientId = (String) session.getAttribute("patientId");
+        if (patientId == null)
+            patientId = (String) session.getAttribute("userId");
+
+        if (patientId == null) {
+            response.put("success", false);
+            response.put("message", "Not logged in");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
 
+        try {
+            SlotHold hold = careLinkService.holdSlot(patientId, holdData.get("doctorId"), holdData.get("date"),
+                    holdData.get("time"));
             response.put("success", true);
-            response.put("appointmentId", appointment.getId());
-            response.put("status", appointment.getStatus());
-            response.put("message", "Appointment created. Waiting for doctor response.");
+            response.put("holdId", hold.id());
+            response.put("expiresAt", hold.expiresAt());
             return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /** Abandonne une réservation temporaire du patient connecté. */
+    @PostMapping("/api/appointments/hold/{id}/release")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> releaseSlotHold(@PathVariable String id, HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        String patientId = (String) session.getAttribute("patientId");
+        if (patientId == null)
+            patientId = (String) session.getAttribute("userId");
+
+        if (patientId == null) {
+            response.put("success", false);
+            response.put("message", "Not logged in");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
 
+        boolean success = careLinkService.releaseSlotHold(id, patientId);
+        response.put("success", success);
+        response.put("message", success ? "Hold released" : "Hold not found");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Inscrit le patient connecté sur la liste d'attente d'un médecin :
+     * {"dates": ["yyyy-MM-dd", ...]}. Le premier créneau libéré l'un de ces
+     * jours lui est retenu et il en est notifié (holdId à joindre à la
+     * réservation).
+     */
+    @PostMapping("/api/doctors/{doctorId}/waitlist")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> joinWaitlist(@PathVariable String doctorId,
+            @RequestBody Map<String, List<String>> waitlistData, HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        String patientId = (String) session.getAttribute("patientId");
+        if (patientId == null)
+            patientId = (String) session.getAttribute("userId");
+
+        if (patientId == null) {
+            response.put("success", false);
+            response.put("message", "Not logged in");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+
+        try {
+            careLinkService.joinWaitlist(patientId, doctorId, waitlistData.get("dates"));
+            response.put("success", true);
+            response.put("message", "Added to waitlist");
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -431,13 +719,36 @@ public class MediSyncController {
         }
     }
 
+    /** Retire le patient connecté de la liste d'attente d'un médecin. */
+    @PostMapping("/api/doctors/{doctorId}/waitlist/leave")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> leaveWaitlist(@PathVariable String doctorId, HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        String patientId = (String) session.getAttribute("patientId");
+        if (patientId == null)
+            patientId = (String) session.getAttribute("userId");
+
+        if (patientId == null) {
+            response.put("success", false);
+            response.put("message", "Not logged in");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+
+        boolean success = careLinkService.leaveWaitlist(patientId, doctorId);
+        response.put("success", success);
+        response.put("message", success ? "Removed from waitlist" : "Not on waitlist");
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Annule un rendez-vous (patient ou médecin).
      * Des règles empêchent l'annulation tant que la demande est "PENDING".
      */
     @PostMapping("/api/appointments/{id}/cancel")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> cancelAppointment(@PathVariable String id, HttpSession session) {
+    public ResponseEntity<Map<String, Object>> cancelAppointment(@PathVariable String id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch, HttpSession session) {
         Map<String, Object> response = new HashMap<>();
 
         Appointment apt = careLinkService.getAppointmentById(id);
@@ -470,10 +781,16 @@ public class MediSyncController {
             return ResponseEntity.badRequest().body(response);
         }
 
-        boolean success = careLinkService.cancelAppointment(id);
-        response.put("success", success);
-        response.put("message", success ? "Appointment cancelled" : "Failed to cancel appointment");
-        return ResponseEntity.ok(response);
+        try {
+            boolean success = careLinkService.cancelAppointment(id, expectedVersion(ifMatch));
+            response.put("success", success);
+            response.put("message", success ? "Appointment cancelled" : "Failed to cancel appointment");
+            return withVersion(response, id);
+        } catch (ConcurrentModificationException e) {
+            return versionConflict(response, e);
+        } catch (UncheckedIOException e) {
+            return journalUnavailable(response);
+        }
     }
 
     /**
@@ -485,6 +802,7 @@ public class MediSyncController {
     public ResponseEntity<Map<String, Object>> rescheduleAppointment(
             @PathVariable String id,
             @RequestBody Map<String, String> rescheduleData,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             HttpSession session) {
 
         Map<String, Object> response = new HashMap<>();
@@ -519,20 +837,28 @@ public class MediSyncController {
             return ResponseEntity.badRequest().body(response);
         }
 
-        boolean success = careLinkService.rescheduleAppointment(
-                id,
-                rescheduleData.get("newDate"),
-                rescheduleData.get("newTime"));
+        try {
+            boolean success = careLinkService.rescheduleAppointment(
+                    id,
+                    rescheduleData.get("newDate"),
+                    rescheduleData.get("newTime"),
+                    expectedVersion(ifMatch));
 
-        response.put("success", success);
-        response.put("message", success ? "Appointment rescheduled" : "Failed to reschedule appointment");
-        return ResponseEntity.ok(response);
+            response.put("success", success);
+            response.put("message", success ? "Appointment rescheduled" : "Failed to reschedule appointment");
+            return withVersion(response, id);
+        } catch (ConcurrentModificationException e) {
+            return versionConflict(response, e);
+        } catch (UncheckedIOException e) {
+            return journalUnavailable(response);
+        }
     }
 
     /** Confirme un rendez-vous (action réservée au médecin propriétaire). */
     @PostMapping("/api/appointments/{id}/confirm")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> confirmAppointment(@PathVariable String id, HttpSession session) {
+    public ResponseEntity<Map<String, Object>> confirmAppointment(@PathVariable String id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch, HttpSession session) {
         Map<String, Object> response = new HashMap<>();
 
         String doctorId = (String) session.getAttribute("doctorId");
@@ -558,10 +884,16 @@ public class MediSyncController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
         }
 
-        boolean success = careLinkService.confirmAppointment(id);
-        response.put("success", success);
-        response.put("message", success ? "Appointment confirmed" : "Failed to confirm appointment");
-        return ResponseEntity.ok(response);
+        try {
+            boolean success = careLinkService.confirmAppointment(id, expectedVersion(ifMatch));
+            response.put("success", success);
+            response.put("message", success ? "Appointment confirmed" : "Failed to confirm appointment");
+            return withVersion(response, id);
+        } catch (ConcurrentModificationException e) {
+            return versionConflict(response, e);
+        } catch (UncheckedIOException e) {
+            return journalUnavailable(response);
+        }
     }
 
     /**
@@ -570,7 +902,8 @@ public class MediSyncController {
      */
     @PostMapping("/api/appointments/{id}/complete")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> completeAppointment(@PathVariable String id, HttpSession session) {
+    public ResponseEntity<Map<String, Object>> completeAppointment(@PathVariable String id,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch, HttpSession session) {
         Map<String, Object> response = new HashMap<>();
 
         String doctorId = (String) session.getAttribute("doctorId");
@@ -596,12 +929,108 @@ public class MediSyncController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
         }
 
-        boolean success = careLinkService.completeAppointment(id);
-        response.put("success", success);
-        response.put("message", success ? "Appointment completed" : "Failed to complete appointment");
+        try {
+            boolean success = careLinkService.completeAppointment(id, expectedVersion(ifMatch));
+            response.put("success", success);
+            response.put("message", success ? "Appointment completed" : "Failed to complete appointment");
+            return withVersion(response, id);
+        } catch (ConcurrentModificationException e) {
+            return versionConflict(response, e);
+        } catch (UncheckedIOException e) {
+            return journalUnavailable(response);
+        }
+    }
+
+    /**
+     * Lot d'opérations du médecin connecté sur ses rendez-vous (fin de
+     * consultation : confirmer, terminer, annuler ou reporter en une requête).
+     * Renvoie un résultat par opération, dans l'ordre ; 503 si le journal
+     * n'a pas pu confirmer la durabilité des opérations appliquées (elles
+     * restent appliquées, les résultats sont joints).
+     */
+    @PostMapping("/api/appointments/batch")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> applyAppointmentOperations(
+            @RequestBody List<Map<String, String>> operations,
+            HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        String doctorId = (String) session.getAttribute("doctorId");
+        if (doctorId == null)
+            doctorId = (String) session.getAttribute("userId");
+
+        if (doctorId == null || careLinkService.getDoctorById(doctorId) == null) {
+            response.put("success", false);
+            response.put("message", "Not logged in");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+
+        if (operations.size() > MAX_BATCH_SIZE) {
+            response.put("success", false);
+            response.put("message", "At most " + MAX_BATCH_SIZE + " operations per batch");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        List<OperationResult> results = careLinkService.applyAppointmentOperations(doctorId, operations);
+        response.put("success", results.stream().allMatch(OperationResult::success));
+        response.put("results", results);
+        if (results.stream().anyMatch(OperationResult::durabilityUnconfirmed)) {
+            response.put("message", "Operations applied but could not be confirmed saved, please check later");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Version attendue d'après l'en-tête If-Match ("3", "\"3\"" ou
+     * "W/\"3\"") ; null si l'en-tête est absent ou vaut "*".
+     *
+     * @throws ConcurrentModificationException si la valeur n'est pas une
+     *                                         version (elle ne peut pas
+     *                                         correspondre)
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+            return null;
+        String value = ifMatch.trim();
+        if (value.startsWith("W/"))
+            value = value.substring(2);
+        value = value.replace("\"", "");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ConcurrentModificationException("If-Match does not match the appointment version");
+        }
+    }
+
+    /** Réponse d'une modification : ajoute la version courante (corps et ETag). */
+    private ResponseEntity<Map<String, Object>> withVersion(Map<String, Object> response, String appointmentId) {
+        Appointment appointment = careLinkService.getAppointmentById(appointmentId);
+        if (appointment == null)
+            return ResponseEntity.ok(response);
+        long version = appointment.getVersion();
+        response.put("version", version);
+        return ResponseEntity.ok().eTag(Long.toString(version)).body(response);
+    }
+
+    /** 412 : le rendez-vous a changé depuis la version envoyée par le client. */
+    private static ResponseEntity<Map<String, Object>> versionConflict(Map<String, Object> response,
+            ConcurrentModificationException e) {
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+    }
+
+    /**
+     * 503 : le journal n'a pas pu enregistrer la modification (annulée), ou
+     * n'a pas pu confirmer sa durabilité ; la demande peut être renvoyée.
+     */
+    private static ResponseEntity<Map<String, Object>> journalUnavailable(Map<String, Object> response) {
+        response.put("success", false);
+        response.put("message", "Appointment could not be saved, please try again later");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     /** Vérifie si un créneau (date/heure) est disponible pour un médecin. */
     @GetMapping("/api/appointments/available-slots")
     @ResponseBody
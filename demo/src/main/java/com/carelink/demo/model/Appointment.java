@@ -1,19 +1,29 @@
 package com.carelink.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Modèle représentant un rendez-vous médical.
  * Il relie un patient, un médecin, une date/heure et un état.
+ *
+ * La date/heure et l'état forment un {@link State} immuable et versionné,
+ * remplacé d'un bloc par compare-and-set : un lecteur ne voit jamais une
+ * date nouvelle avec un état ancien (ou l'inverse), et une modification
+ * peut exiger la version qu'elle a lue (style If-Match).
  */
 public class Appointment {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private String id;
     private String patientId;
     private String doctorId;
-    private LocalDateTime dateTime;
-    private Status status;
+    private final AtomicReference<State> state = new AtomicReference<>(new State(null, null, 0));
     private String notes;
 
     /**
@@ -25,7 +35,44 @@ public class Appointment {
         SCHEDULED,
         RESCHEDULED,
         CANCELLED,
-        COMPLETED
+        COMPLETED;
+
+        /** Transitions autorisées : bit {@code ordinal()} de la cible, par état source. */
+        private static final int[] TRANSITIONS = new int[values().length];
+
+        static {
+            allow(PENDING, CONFIRMED, RESCHEDULED, CANCELLED);
+            allow(CONFIRMED, RESCHEDULED, CANCELLED, COMPLETED);
+            allow(SCHEDULED, RESCHEDULED, CANCELLED, COMPLETED);
+            allow(RESCHEDULED, RESCHEDULED, CANCELLED, COMPLETED);
+            // CANCELLED et COMPLETED sont terminaux
+        }
+
+        private static void allow(Status from, Status... targets) {
+            for (Status target : targets) {
+                TRANSITIONS[from.ordinal()] |= 1 << target.ordinal();
+            }
+        }
+
+        /** Indique si un rendez-vous dans cet état peut passer à {@code target}. */
+        public boolean canTransitionTo(Status target) {
+            return (TRANSITIONS[ordinal()] & (1 << target.ordinal())) != 0;
+        }
+    }
+
+    /**
+     * État d'un rendez-vous à un instant donné (immuable).
+     *
+     * @param dateTime date et heure du rendez-vous
+     * @param status   état du rendez-vous
+     * @param version  incrémentée à chaque changement
+     */
+    public record State(LocalDateTime dateTime, Status status, long version) {
+
+        /** État suivant (version + 1). */
+        public State next(LocalDateTime dateTime, Status status) {
+            return new State(dateTime, status, version + 1);
+        }
     }
 
     /** Constructeur par défaut. */
@@ -46,8 +93,18 @@ public class Appointment {
         this.id = id;
         this.patientId = patientId;
         this.doctorId = doctorId;
-        this.dateTime = dateTime;
-        this.status = status;
+        this.state.set(new State(dateTime, status, 0));
+    }
+
+    /**
+     * Constructeur de restauration (snapshot) : reprend l'état tel qu'il a
+     * été enregistré, version comprise.
+     */
+    public Appointment(String id, String patientId, String doctorId, State state) {
+        this.id = id;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.state.set(state);
     }
 
     // ---------- Getters et Setters ----------
@@ -77,19 +134,47 @@ public class Appointment {
     }
 
     public LocalDateTime getDateTime() {
-        return dateTime;
+        return state.get().dateTime();
     }
 
     public void setDateTime(LocalDateTime dateTime) {
-        this.dateTime = dateTime;
+        state.updateAndGet(s -> s.next(dateTime, s.status()));
     }
 
     public Status getStatus() {
-        return status;
+        return state.get().status();
     }
 
     public void setStatus(Status status) {
-        this.status = status;
+        state.updateAndGet(s -> s.next(s.dateTime(), status));
+    }
+
+    /** Version courante (à renvoyer dans l'en-tête If-Match d'une modification). */
+    public long getVersion() {
+        return state.get().version();
+    }
+
+    /** Date/heure, état et version lus ensemble. */
+    @JsonIgnore
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Remplace l'état si personne ne l'a modifié depuis {@code expected}.
+     *
+     * @return false si l'état courant n'est plus {@code expected}
+     */
+    public boolean compareAndSet(State expected, State next) {
+        return state.compareAndSet(expected, next);
+    }
+
+    /** Copie indépendante (même identifiant, même état, même version). */
+    public Appointment copy() {
+        Appointment copy = new Appointment(id, patientId, doctorId, null, null);
+        copy.state.set(state.get());
+        copy.notes = notes;
+        return copy;
     }
 
     public String getNotes() {
@@ -106,18 +191,20 @@ public class Appointment {
      * Retourne la date du rendez-vous au format lisible.
      */
     public String getFormattedDate() {
+        LocalDateTime dateTime = getDateTime();
         if (dateTime == null)
             return "";
-        return dateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        return dateTime.format(DATE_FORMAT);
     }
 
     /**
      * Retourne l'heure du rendez-vous au format lisible.
      */
     public String getFormattedTime() {
+        LocalDateTime dateTime = getDateTime();
         if (dateTime == null)
             return "";
-        return dateTime.format(DateTimeFormatter.ofPattern("HH:mm"));
+        return dateTime.format(TIME_FORMAT);
     }
 
     /**
@@ -142,6 +229,6 @@ public class Appointment {
         return "Appointment[" + id + "] Patient: " + patientId +
                 ", Doctor: " + doctorId +
                 ", Time: " + getFormattedDate() + " " + getFormattedTime() +
-                ", Status: " + status;
+                ", Status: " + getStatus();
     }
 }
@@ -0,0 +1,16 @@
+package com.carelink.demo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Opération d'un lot de modifications de rendez-vous.
+ *
+ * @param appointmentId   rendez-vous concerné
+ * @param target          nouvel état (CONFIRMED, COMPLETED, CANCELLED ou
+ *                        RESCHEDULED)
+ * @param newDateTime     nouvelle date/heure pour un report, sinon null
+ * @param expectedVersion version attendue (If-Match), ou null
+ */
+public record AppointmentOperation(String appointmentId, Appointment.Status target, LocalDateTime newDateTime,
+        Long expectedVersion) {
+}
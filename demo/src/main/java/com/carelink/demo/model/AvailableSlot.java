@@ -0,0 +1,12 @@
+package com.carelink.demo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Créneau libre trouvé par une recherche de première disponibilité.
+ *
+ * @param doctor   médecin
+ * @param dateTime début du créneau
+ */
+public record AvailableSlot(Doctor doctor, LocalDateTime dateTime) {
+}
@@ -4,10 +4,31 @@ package com.carelink.demo.model;
  * Représente une ville dans la hiérarchie géographique.
  * Cette classe est une feuille du pattern Composite.
  *
- * @param nom    nom de la ville
- * @param wilaya wilaya à laquelle appartient la ville
+ * @param nom       nom de la ville
+ * @param wilaya    wilaya à laquelle appartient la ville
+ * @param latitude  latitude du centre de la ville (NaN si inconnue)
+ * @param longitude longitude du centre de la ville (NaN si inconnue)
  */
-public record City(String nom, String wilaya) implements GeographicComponent {
+public record City(String nom, String wilaya, double latitude, double longitude) implements GeographicComponent {
+
+    /** Dictionnaire des noms de villes (codes partagés par les entités). */
+    public static final NameDictionary NAMES = new NameDictionary();
+
+    /** Les noms sont remplacés par leur forme canonique (une seule copie). */
+    public City {
+        nom = NAMES.canonical(nom);
+        wilaya = Wilaya.NAMES.canonical(wilaya);
+    }
+
+    /** Ville sans coordonnées connues. */
+    public City(String nom, String wilaya) {
+        this(nom, wilaya, Double.NaN, Double.NaN);
+    }
+
+    /** Indique si le centre de la ville est connu. */
+    public boolean hasCoordinates() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
 
     /**
      * Retourne le nom de la ville.
@@ -1,7 +1,12 @@
 package com.carelink.demo.model;
 
-import java.util.ArrayList;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Modèle représentant un médecin.
@@ -10,27 +15,29 @@ import java.util.List;
  */
 public class Doctor {
 
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private String id;
     private String firstName;
     private String lastName;
-    private String wilaya;
-    private String city;
+    /** Codes dans {@link Wilaya#NAMES} / {@link City#NAMES} / {@link Specialty#NAMES}. */
+    private int wilayaCode = NameDictionary.NONE;
+    private int cityCode = NameDictionary.NONE;
     private String email;
     private String passwordHash;
     private String phone;
     private String sexe;
-    private String speciality;
+    private int specialityCode = NameDictionary.NONE;
     private String locationLink;
 
     /** Observateurs à notifier lors d'un événement (pattern Observer). */
-    private final List<Observer> observers = new ArrayList<>();
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
 
-    /** Créneaux horaires disponibles du médecin. */
-    private final List<String> availableSlots = new ArrayList<>();
+    /** Calendrier des créneaux (ouverture + réservations par date). */
+    private SlotCalendar calendar = new SlotCalendar();
 
-    /** Constructeur par défaut : initialise les créneaux standards. */
+    /** Constructeur par défaut : créneaux standards (08:00 à 15:30). */
     public Doctor() {
-        initDefaultSlots();
     }
 
     /**
@@ -42,26 +49,14 @@ public class Doctor {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
-        this.wilaya = wilaya;
-        this.city = city;
+        this.wilayaCode = Wilaya.NAMES.code(wilaya);
+        this.cityCode = City.NAMES.code(city);
         this.email = email;
         this.passwordHash = passwordHash;
         this.phone = phone;
         this.sexe = sexe;
-        this.speciality = speciality;
+        this.specialityCode = Specialty.NAMES.code(speciality);
         this.locationLink = locationLink;
-        initDefaultSlots();
-    }
-
-    /**
-     * Définit les créneaux par défaut : de 08:00 à 15:00 (pas de 30 minutes).
-     */
-    private void initDefaultSlots() {
-        availableSlots.clear();
-        for (int hour = 8; hour <= 15; hour++) {
-            availableSlots.add(String.format("%02d:00", hour));
-            availableSlots.add(String.format("%02d:30", hour));
-        }
     }
 
     // -------------------- Observer --------------------
@@ -85,39 +80,99 @@ public class Doctor {
         }
     }
 
+    /**
+     * Reprend l'état d'exécution d'une version précédente du même médecin
+     * (rechargement des données) : calendrier des réservations et
+     * observateurs. À appeler avant de publier ce médecin.
+     */
+    public void inheritState(Doctor previous) {
+        this.calendar = previous.calendar;
+        for (Observer observer : previous.observers) {
+            addObserver(observer);
+        }
+    }
+
+    /**
+     * Copie du profil (sans calendrier ni observateurs) : les modifications
+     * s'y appliquent sans toucher au médecin publié.
+     */
+    public Doctor copy() {
+        Doctor copy = new Doctor();
+        copy.id = id;
+        copy.firstName = firstName;
+        copy.lastName = lastName;
+        copy.wilayaCode = wilayaCode;
+        copy.cityCode = cityCode;
+        copy.email = email;
+        copy.passwordHash = passwordHash;
+        copy.phone = phone;
+        copy.sexe = sexe;
+        copy.specialityCode = specialityCode;
+        copy.locationLink = locationLink;
+        return copy;
+    }
+
     // -------------------- Disponibilités --------------------
 
     /**
-     * Réserve un créneau si celui-ci est encore disponible.
+     * Réserve atomiquement un créneau à une date si celui-ci est ouvert et
+     * encore libre.
      *
-     * @param timeSlot créneau à réserver (ex: "10:30")
+     * @param date date du rendez-vous
+     * @param time début du créneau (ex: 10:30)
      * @return true si la réservation a réussi, sinon false
      */
-    public boolean bookSlot(String timeSlot) {
-        if (availableSlots.contains(timeSlot)) {
-            availableSlots.remove(timeSlot);
-            notifyObservers("Slot at " + timeSlot + " has been booked with Dr. " + lastName);
+    public boolean bookSlot(LocalDate date, LocalTime time) {
+        if (calendar.tryBook(date, time)) {
+            notifyObservers("Slot at " + date + " " + time + " has been booked with Dr. " + lastName);
             return true;
         }
         return false;
     }
 
     /**
-     * Retourne une copie de la liste des créneaux afin de préserver
-     * l'encapsulation.
+     * Libère un créneau réservé (annulation ou reprogrammation).
+     *
+     * @return true si le créneau était réservé
+     */
+    public boolean releaseSlot(LocalDate date, LocalTime time) {
+        return calendar.release(date, time);
+    }
+
+    /** Vérifie qu'un créneau est ouvert et libre à une date donnée. */
+    public boolean isSlotAvailable(LocalDate date, LocalTime time) {
+        return calendar.isAvailable(date, time);
+    }
+
+    /** Calendrier des créneaux du médecin. */
+    @JsonIgnore
+    public SlotCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Retourne les créneaux proposés chaque jour ("HH:mm").
+     * La liste est non modifiable et partagée : aucune copie par appel.
      */
     public List<String> getAvailableSlots() {
-        return new ArrayList<>(availableSlots);
+        return calendar.getOpeningTimes();
     }
 
     /**
-     * Remplace la liste des créneaux en copiant les données fournies.
+     * Remplace les créneaux proposés chaque jour ("HH:mm", alignés sur la
+     * demi-heure ; les autres valeurs sont ignorées).
      */
     public void setAvailableSlots(List<String> slots) {
-        availableSlots.clear();
+        long mask = 0L;
         if (slots != null) {
-            availableSlots.addAll(slots);
+            for (String slot : slots) {
+                int index = SlotCalendar.slotIndex(LocalTime.parse(slot.trim(), SLOT_FORMAT));
+                if (index >= 0) {
+                    mask |= 1L << index;
+                }
+            }
         }
+        calendar.setOpeningMask(mask);
     }
 
     // -------------------- Getters & Setters --------------------
@@ -147,19 +202,29 @@ public class Doctor {
     }
 
     public String getWilaya() {
-        return wilaya;
+        return Wilaya.NAMES.name(wilayaCode);
     }
 
     public void setWilaya(String wilaya) {
-        this.wilaya = wilaya;
+        this.wilayaCode = Wilaya.NAMES.code(wilaya);
+    }
+
+    @JsonIgnore
+    public int getWilayaCode() {
+        return wilayaCode;
     }
 
     public String getCity() {
-        return city;
+        return City.NAMES.name(cityCode);
     }
 
     public void setCity(String city) {
-        this.city = city;
+        this.cityCode = City.NAMES.code(city);
+    }
+
+    @JsonIgnore
+    public int getCityCode() {
+        return cityCode;
     }
 
     public String getEmail() {
@@ -170,6 +235,8 @@ public class Doctor {
         this.email = email;
     }
 
+    /** Jamais sérialisé dans les réponses JSON. */
+    @JsonIgnore
     public String getPasswordHash() {
         return passwordHash;
     }
@@ -195,11 +262,16 @@ public class Doctor {
     }
 
     public String getSpeciality() {
-        return speciality;
+        return Specialty.NAMES.name(specialityCode);
     }
 
     public void setSpeciality(String speciality) {
-        this.speciality = speciality;
+        this.specialityCode = Specialty.NAMES.code(speciality);
+    }
+
+    @JsonIgnore
+    public int getSpecialityCode() {
+        return specialityCode;
     }
 
     public String getLocationLink() {
@@ -221,7 +293,7 @@ public class Doctor {
     @Override
     public String toString() {
         return "Dr. " + firstName + " " + lastName +
-                " (" + speciality + ") - " + city + ", " + wilaya;
+                " (" + getSpeciality() + ") - " + getCity() + ", " + getWilaya();
     }
 }
 
@@ -0,0 +1,97 @@
+package com.carelink.demo.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Page d'une liste de médecins, paginée par curseur (keyset).
+ *
+ * Les médecins sont triés par identifiant ; le curseur encode le dernier
+ * identifiant de la page, et la page suivante commence strictement après
+ * lui. Le résultat reste donc stable même si des médecins sont ajoutés
+ * entre deux pages.
+ *
+ * Une source déjà triée par identifiant (annuaire du repository) est lue à
+ * partir du curseur et s'arrête à la fin de la page
+ * ({@link #ofSorted(List, int)}) ; {@link #of(Collection, String, int)} sert
+ * aux résultats non triés, qu'il parcourt en entier.
+ *
+ * @param doctors    médecins de la page, triés par identifiant
+ * @param nextCursor curseur de la page suivante (null s'il n'y en a pas)
+ */
+public record DoctorPage(List<Doctor> doctors, String nextCursor) {
+
+    private static final Comparator<Doctor> BY_ID = Comparator.comparing(Doctor::getId);
+
+    /**
+     * Sélectionne la page qui suit {@code cursor} : seuls {@code limit + 1}
+     * médecins sont gardés en mémoire (tas borné), quelle que soit la taille
+     * de {@code doctors}.
+     *
+     * @param cursor curseur reçu (null ou vide : première page)
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    public static DoctorPage of(Collection<Doctor> doctors, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        String after = decodeCursor(cursor);
+
+        // Tas max : le plus grand identifiant retenu est en tête
+        PriorityQueue<Doctor> selected = new PriorityQueue<>(Math.min(limit, 1024) + 1, BY_ID.reversed());
+        for (Doctor doctor : doctors) {
+            if (after != null && doctor.getId().compareTo(after) <= 0) {
+                continue;
+            }
+            if (selected.size() <= limit) {
+                selected.add(doctor);
+            } else if (BY_ID.compare(doctor, selected.peek()) < 0) {
+                selected.poll();
+                selected.add(doctor);
+            }
+        }
+
+        List<Doctor> page = new ArrayList<>(selected);
+        page.sort(BY_ID);
+        return ofSorted(page, limit);
+    }
+
+    /**
+     * Page formée des premiers médecins qui suivent le curseur, déjà triés
+     * par identifiant : au plus {@code limit + 1}, le dernier indiquant
+     * seulement qu'il existe une page suivante.
+     */
+    public static DoctorPage ofSorted(List<Doctor> following, int limit) {
+        if (following.size() <= limit) {
+            return new DoctorPage(List.copyOf(following), null);
+        }
+        List<Doctor> page = List.copyOf(following.subList(0, limit));
+        return new DoctorPage(page, encodeCursor(page.get(limit - 1).getId()));
+    }
+
+    private static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Identifiant après lequel commence la page du curseur.
+     *
+     * @return null pour la première page (curseur null ou vide)
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    public static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
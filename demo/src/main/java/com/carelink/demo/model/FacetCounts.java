@@ -0,0 +1,15 @@
+package com.carelink.demo.model;
+
+import java.util.Map;
+
+/**
+ * Nombre de médecins par valeur de chaque filtre de recherche, triés par
+ * nombre décroissant.
+ *
+ * @param wilayas     par wilaya
+ * @param cities      par ville
+ * @param specialties par spécialité
+ */
+public record FacetCounts(Map<String, Integer> wilayas, Map<String, Integer> cities,
+        Map<String, Integer> specialties) {
+}
@@ -0,0 +1,95 @@
+package com.carelink.demo.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionnaire de noms de référence (wilayas, villes, spécialités).
+ *
+ * Chaque nom distinct, sans tenir compte de la casse, reçoit un code entier
+ * stable (0, 1, 2...). Les entités stockent ce code au lieu de leur propre
+ * copie de la chaîne : la forme canonique (première orthographe rencontrée)
+ * n'existe qu'une fois en mémoire, et un filtre compare deux entiers au lieu
+ * d'appeler equalsIgnoreCase.
+ *
+ * La lecture ({@link #name(int)}, {@link #find(String)}) est sans verrou ;
+ * seul l'ajout d'un nom nouveau est synchronisé.
+ */
+public final class NameDictionary {
+
+    /** Code d'une valeur absente (null). */
+    public static final int NONE = -1;
+
+    /** Code renvoyé par {@link #find(String)} pour un nom inconnu (jamais attribué). */
+    public static final int UNKNOWN = -2;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[32];
+    private int size;
+
+    /**
+     * Retourne le code d'un nom, en l'ajoutant au dictionnaire s'il est
+     * nouveau.
+     *
+     * @return code du nom, ou {@link #NONE} si {@code name} est null
+     */
+    public int code(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer code = codes.get(fold(name));
+        return code != null ? code : register(name);
+    }
+
+    /**
+     * Retourne le code d'un nom sans l'ajouter.
+     *
+     * @return code du nom, {@link #NONE} si {@code name} est null,
+     *         {@link #UNKNOWN} s'il n'est pas dans le dictionnaire
+     */
+    public int find(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer code = codes.get(fold(name));
+        return code != null ? code : UNKNOWN;
+    }
+
+    /** Forme canonique d'un code (null pour {@link #NONE}). */
+    public String name(int code) {
+        return code < 0 ? null : names[code];
+    }
+
+    /** Forme canonique d'un nom (ajouté au dictionnaire s'il est nouveau). */
+    public String canonical(String name) {
+        return name(code(name));
+    }
+
+    /** Nombre de noms distincts. */
+    public int size() {
+        return codes.size();
+    }
+
+    private synchronized int register(String name) {
+        String key = fold(name);
+        Integer existing = codes.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = name;
+        // L'écriture volatile publie le nom avant que son code soit visible
+        names = current;
+        codes.put(key, size);
+        return size++;
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
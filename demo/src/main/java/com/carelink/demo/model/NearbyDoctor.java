@@ -0,0 +1,11 @@
+package com.carelink.demo.model;
+
+/**
+ * Médecin trouvé par une recherche de proximité.
+ *
+ * @param doctor     médecin
+ * @param distanceKm distance (en km) entre le point de recherche et le
+ *                   centre de la ville du médecin
+ */
+public record NearbyDoctor(Doctor doctor, double distanceKm) {
+}
@@ -0,0 +1,41 @@
+package com.carelink.demo.model;
+
+/**
+ * Résultat d'une opération d'un lot.
+ *
+ * @param appointmentId rendez-vous concerné
+ * @param success       l'opération a été appliquée
+ * @param message       raison de l'échec, ou "OK"
+ * @param version       version du rendez-vous après l'opération (null si
+ *                      inconnue)
+ * @param status        état du rendez-vous après l'opération (null si
+ *                      inconnu)
+ */
+public record OperationResult(String appointmentId, boolean success, String message, Long version,
+        Appointment.Status status) {
+
+    /**
+     * Message d'une opération appliquée et journalisée dont le fsync a
+     * échoué : elle est visible, sa durabilité n'est pas garantie.
+     */
+    public static final String DURABILITY_UNCONFIRMED = "Applied, durability not confirmed";
+
+    /** Opération appliquée ; {@code state} est l'état qu'elle a produit. */
+    public static OperationResult applied(String appointmentId, Appointment.State state) {
+        return new OperationResult(appointmentId, true, "OK", state.version(), state.status());
+    }
+
+    public static OperationResult failed(String appointmentId, String message) {
+        return new OperationResult(appointmentId, false, message, null, null);
+    }
+
+    /** Même résultat, marqué {@link #DURABILITY_UNCONFIRMED}. */
+    public OperationResult unconfirmed() {
+        return new OperationResult(appointmentId, success, DURABILITY_UNCONFIRMED, version, status);
+    }
+
+    /** Opération appliquée dont la durabilité n'a pas pu être confirmée. */
+    public boolean durabilityUnconfirmed() {
+        return success && DURABILITY_UNCONFIRMED.equals(message);
+    }
+}
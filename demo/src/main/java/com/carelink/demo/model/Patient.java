@@ -1,7 +1,10 @@
 package com.carelink.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Modèle représentant un patient.
@@ -13,8 +16,9 @@ public class Patient implements Observer {
     private String id;
     private String firstName;
     private String lastName;
-    private String wilaya;
-    private String city;
+    /** Codes dans {@link Wilaya#NAMES} / {@link City#NAMES}. */
+    private int wilayaCode = NameDictionary.NONE;
+    private int cityCode = NameDictionary.NONE;
     private String email;
     private String passwordHash;
     private String phone;
@@ -24,8 +28,8 @@ public class Patient implements Observer {
     private String bloodType;
     private String allergies;
 
-    /** Liste des rendez-vous du patient. */
-    private List<Appointment> appointments = new ArrayList<>();
+    /** Liste des rendez-vous du patient (modifiée depuis plusieurs threads). */
+    private List<Appointment> appointments = new CopyOnWriteArrayList<>();
 
     /** Constructeur par défaut. */
     public Patient() {
@@ -39,14 +43,34 @@ public class Patient implements Observer {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
-        this.wilaya = wilaya;
-        this.city = city;
+        this.wilayaCode = Wilaya.NAMES.code(wilaya);
+        this.cityCode = City.NAMES.code(city);
         this.email = email;
         this.passwordHash = passwordHash;
         this.phone = phone;
         this.sexe = sexe;
     }
 
+    /**
+     * Copie du profil (sans rendez-vous) : les modifications s'y appliquent
+     * sans toucher au patient enregistré.
+     */
+    public Patient copy() {
+        Patient copy = new Patient();
+        copy.id = id;
+        copy.firstName = firstName;
+        copy.lastName = lastName;
+        copy.wilayaCode = wilayaCode;
+        copy.cityCode = cityCode;
+        copy.email = email;
+        copy.passwordHash = passwordHash;
+        copy.phone = phone;
+        copy.sexe = sexe;
+        copy.bloodType = bloodType;
+        copy.allergies = allergies;
+        return copy;
+    }
+
     // -------------------- Observer --------------------
 
     /**
@@ -105,19 +129,29 @@ public class Patient implements Observer {
     }
 
     public String getWilaya() {
-        return wilaya;
+        return Wilaya.NAMES.name(wilayaCode);
     }
 
     public void setWilaya(String wilaya) {
-        this.wilaya = wilaya;
+        this.wilayaCode = Wilaya.NAMES.code(wilaya);
+    }
+
+    @JsonIgnore
+    public int getWilayaCode() {
+        return wilayaCode;
     }
 
     public String getCity() {
-        return city;
+        return City.NAMES.name(cityCode);
     }
 
     public void setCity(String city) {
-        this.city = city;
+        this.cityCode = City.NAMES.code(city);
+    }
+
+    @JsonIgnore
+    public int getCityCode() {
+        return cityCode;
     }
 
     public String getEmail() {
@@ -128,6 +162,8 @@ public class Patient implements Observer {
         this.email = email;
     }
 
+    /** Jamais sérialisé dans les réponses JSON. */
+    @JsonIgnore
     public String getPasswordHash() {
         return passwordHash;
     }
@@ -187,6 +223,6 @@ public class Patient implements Observer {
     @Override
     public String toString() {
         return "Patient: " + firstName + " " + lastName +
-                " - " + city + ", " + wilaya;
+                " - " + getCity() + ", " + getWilaya();
     }
 }
@@ -0,0 +1,16 @@
+package com.carelink.demo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Médecin classé par une recherche avec score.
+ *
+ * @param doctor         médecin
+ * @param score          score global (0 à 1, plus haut = mieux classé)
+ * @param firstAvailable premier créneau libre dans l'horizon (null s'il n'y
+ *                       en a pas)
+ * @param load           part des créneaux ouverts déjà réservés sur
+ *                       l'horizon (0 à 1)
+ */
+public record RankedDoctor(Doctor doctor, double score, LocalDateTime firstAvailable, double load) {
+}
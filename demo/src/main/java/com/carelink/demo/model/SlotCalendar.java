@@ -0,0 +1,181 @@
+package com.carelink.demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calendrier des créneaux d'un médecin, jour par jour.
+ *
+ * Une journée compte 48 demi-heures : le créneau i commence à i * 30 minutes
+ * (ex: 10:30 -> 21). Les créneaux réservés d'une date sont stockés dans un
+ * seul {@code long} (bit i = créneau i), modifié par compare-and-set : la
+ * vérification et la réservation sont en O(1) et sans verrou.
+ *
+ * Les dates ne sont créées qu'à la première réservation : une date absente
+ * est entièrement libre.
+ */
+public class SlotCalendar {
+
+    /** Nombre de demi-heures dans une journée. */
+    public static final int SLOTS_PER_DAY = 48;
+
+    /** Créneaux ouverts par défaut : de 08:00 à 15:30 (pas de 30 minutes). */
+    public static final long DEFAULT_OPENING_MASK = rangeMask(slotIndex(LocalTime.of(8, 0)),
+            slotIndex(LocalTime.of(15, 30)));
+
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** Créneaux réservés, par date (matérialisées à la demande). */
+    private final ConcurrentHashMap<LocalDate, AtomicLong> booked = new ConcurrentHashMap<>();
+
+    /** Créneaux proposés par le médecin (identiques chaque jour). */
+    private volatile long openingMask = DEFAULT_OPENING_MASK;
+
+    /** Vue "HH:mm" des créneaux ouverts, recalculée seulement si le masque change. */
+    private volatile List<String> openingTimes = toTimes(DEFAULT_OPENING_MASK);
+
+    // -------------------- Conversion heure <-> créneau --------------------
+
+    /**
+     * Retourne l'indice du créneau commençant à {@code time}, ou -1 si l'heure
+     * n'est pas alignée sur une demi-heure.
+     */
+    public static int slotIndex(LocalTime time) {
+        if (time == null || time.getMinute() % 30 != 0 || time.getSecond() != 0 || time.getNano() != 0) {
+            return -1;
+        }
+        return time.getHour() * 2 + time.getMinute() / 30;
+    }
+
+    /** Heure de début du créneau {@code slot}. */
+    public static LocalTime slotTime(int slot) {
+        return LocalTime.of(slot / 2, (slot % 2) * 30);
+    }
+
+    /** Masque des créneaux [first, last] (bornes incluses). */
+    public static long rangeMask(int first, int last) {
+        long mask = 0L;
+        for (int slot = first; slot <= last; slot++) {
+            mask |= 1L << slot;
+        }
+        return mask;
+    }
+
+    // -------------------- Ouverture --------------------
+
+    /** Indique si le médecin propose ce créneau (indépendamment de la date). */
+    public boolean isOpen(int slot) {
+        return slot >= 0 && slot < SLOTS_PER_DAY && (openingMask & (1L << slot)) != 0;
+    }
+
+    public long getOpeningMask() {
+        return openingMask;
+    }
+
+    public void setOpeningMask(long mask) {
+        long valid = mask & rangeMask(0, SLOTS_PER_DAY - 1);
+        this.openingMask = valid;
+        this.openingTimes = toTimes(valid);
+    }
+
+    /** Créneaux ouverts au format "HH:mm" (liste non modifiable, partagée). */
+    public List<String> getOpeningTimes() {
+        return openingTimes;
+    }
+
+    // -------------------- Réservations --------------------
+
+    /** Vérifie qu'un créneau est ouvert et libre à cette date. */
+    public boolean isAvailable(LocalDate date, LocalTime time) {
+        int slot = slotIndex(time);
+        if (!isOpen(slot)) {
+            return false;
+        }
+        AtomicLong day = booked.get(date);
+        return day == null || (day.get() & (1L << slot)) == 0;
+    }
+
+    /**
+     * Réserve atomiquement un créneau ouvert et libre.
+     *
+     * @return true si la réservation a réussi, false si le créneau est fermé
+     *         ou déjà pris
+     */
+    public boolean tryBook(LocalDate date, LocalTime time) {
+        int slot = slotIndex(time);
+        if (!isOpen(slot)) {
+            return false;
+        }
+        return claim(date, slot);
+    }
+
+    /**
+     * Marque un créneau comme occupé sans vérifier l'ouverture (rendez-vous
+     * existants lors du chargement / rejeu des données).
+     */
+    public void markBooked(LocalDate date, LocalTime time) {
+        int slot = slotIndex(time);
+        if (slot >= 0) {
+            claim(date, slot);
+        }
+    }
+
+    private boolean claim(LocalDate date, int slot) {
+        long bit = 1L << slot;
+        AtomicLong day = booked.computeIfAbsent(date, d -> new AtomicLong());
+        while (true) {
+            long current = day.get();
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (day.compareAndSet(current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libère un créneau réservé.
+     *
+     * @return true si le créneau était réservé
+     */
+    public boolean release(LocalDate date, LocalTime time) {
+        int slot = slotIndex(time);
+        AtomicLong day = slot < 0 ? null : booked.get(date);
+        if (day == null) {
+            return false;
+        }
+        long bit = 1L << slot;
+        while (true) {
+            long current = day.get();
+            if ((current & bit) == 0) {
+                return false;
+            }
+            if (day.compareAndSet(current, current & ~bit)) {
+                return true;
+            }
+        }
+    }
+
+    /** Bitmap des créneaux ouverts et libres à cette date. */
+    public long freeSlots(LocalDate date) {
+        AtomicLong day = booked.get(date);
+        return openingMask & ~(day == null ? 0L : day.get());
+    }
+
+    private static List<String> toTimes(long mask) {
+        List<String> times = new ArrayList<>(Long.bitCount(mask));
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+            if ((mask & (1L << slot)) != 0) {
+                times.add(slotTime(slot).format(SLOT_FORMAT));
+            }
+        }
+        return Collections.unmodifiableList(times);
+    }
+}
@@ -0,0 +1,18 @@
+package com.carelink.demo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réservation temporaire d'un créneau (le temps de finaliser une prise de
+ * rendez-vous). Le créneau est libéré à {@code expiresAt} si la réservation
+ * n'a pas été convertie en rendez-vous.
+ *
+ * @param id        identifiant à fournir lors de la réservation définitive
+ * @param doctorId  médecin
+ * @param patientId patient bénéficiaire
+ * @param dateTime  créneau retenu
+ * @param expiresAt fin de validité
+ */
+public record SlotHold(String id, String doctorId, String patientId, LocalDateTime dateTime,
+        LocalDateTime expiresAt) {
+}
@@ -5,6 +5,9 @@ package com.carelink.demo.model;
  */
 public class Specialty {
 
+    /** Dictionnaire des noms de spécialités (codes partagés par les entités). */
+    public static final NameDictionary NAMES = new NameDictionary();
+
     private String id;
     private String name;
 
@@ -20,7 +23,7 @@ public class Specialty {
      */
     public Specialty(String id, String name) {
         this.id = id;
-        this.name = name;
+        this.name = NAMES.canonical(name);
     }
 
     // -------------------- Getters & Setters --------------------
@@ -38,7 +41,7 @@ public class Specialty {
     }
 
     public void setName(String name) {
-        this.name = name;
+        this.name = NAMES.canonical(name);
     }
 
     /**
@@ -0,0 +1,18 @@
+package com.carelink.demo.model;
+
+/**
+ * Suggestion d'autocomplétion (médecin, spécialité ou ville).
+ *
+ * @param type   nature de la suggestion
+ * @param label  texte affiché
+ * @param detail précision (spécialité et ville d'un médecin, wilaya d'une
+ *               ville), null sinon
+ * @param id     identifiant du médecin (null pour les autres types)
+ */
+public record Suggestion(Type type, String label, String detail, String id) {
+
+    /** Nature d'une suggestion (l'ordre sert au classement à score égal). */
+    public enum Type {
+        SPECIALTY, CITY, DOCTOR
+    }
+}
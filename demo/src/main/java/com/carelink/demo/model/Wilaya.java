@@ -9,6 +9,9 @@ import java.util.List;
  */
 public class Wilaya implements GeographicComponent {
 
+    /** Dictionnaire des noms de wilayas (codes partagés par les entités). */
+    public static final NameDictionary NAMES = new NameDictionary();
+
     private String name;
     private final List<GeographicComponent> cities = new ArrayList<>();
 
@@ -22,7 +25,7 @@ public class Wilaya implements GeographicComponent {
      * @param name nom de la wilaya
      */
     public Wilaya(String name) {
-        this.name = name;
+        this.name = NAMES.canonical(name);
     }
 
     /**
@@ -67,7 +70,7 @@ public class Wilaya implements GeographicComponent {
     }
 
     public void setName(String name) {
-        this.name = name;
+        this.name = NAMES.canonical(name);
     }
 
     /**
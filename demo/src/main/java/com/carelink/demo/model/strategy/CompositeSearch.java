@@ -0,0 +1,54 @@
+package com.carelink.demo.model.strategy;
+
+import com.carelink.demo.model.Doctor;
+import java.util.List;
+
+/**
+ * Stratégie composée : applique plusieurs stratégies à la suite (ET
+ * logique), chacune avec son propre critère.
+ *
+ * L'ordre des étapes est celui fourni : l'appelant place en premier les
+ * filtres les plus sélectifs, pour que les suivants travaillent sur des
+ * listes plus courtes.
+ */
+public class CompositeSearch implements SearchStrategy {
+
+    /**
+     * Étape de la recherche.
+     *
+     * @param strategy  stratégie appliquée
+     * @param criterion critère propre à cette étape
+     */
+    public record Step(SearchStrategy strategy, String criterion) {
+    }
+
+    private final List<Step> steps;
+
+    public CompositeSearch(List<Step> steps) {
+        this.steps = List.copyOf(steps);
+    }
+
+    /**
+     * Applique les étapes dans l'ordre ; s'arrête dès qu'aucun médecin ne
+     * reste.
+     *
+     * @param doctors  médecins de départ
+     * @param criteria ignoré (chaque étape porte son critère)
+     * @return médecins satisfaisant toutes les étapes
+     */
+    @Override
+    public List<Doctor> search(List<Doctor> doctors, String criteria) {
+        List<Doctor> result = doctors;
+        for (Step step : steps) {
+            if (result.isEmpty()) {
+                break;
+            }
+            result = step.strategy().search(result, step.criterion());
+        }
+        return result;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+}
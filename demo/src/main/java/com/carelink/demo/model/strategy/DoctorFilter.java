@@ -0,0 +1,117 @@
+package com.carelink.demo.model.strategy;
+
+import com.carelink.demo.model.Doctor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Filtrage d'une liste de médecins, séquentiel ou parallèle selon sa taille.
+ *
+ * Au-dessous du seuil (propriété système
+ * {@code carelink.search.parallelThreshold}), une simple boucle est plus
+ * rapide : les prédicats des stratégies ne sont que des comparaisons de
+ * codes ou des tests de bits, et le coût de répartition des tâches
+ * l'emporterait. Au-dessus, la liste est découpée en tranches filtrées sur
+ * le pool fork-join commun, puis les résultats sont concaténés dans
+ * l'ordre d'origine.
+ *
+ * Le seuil par défaut (50 000) est une valeur de départ, non calibrée : le
+ * point de bascule dépend du nombre de cœurs de la machine. Il se mesure
+ * avec DoctorFilterBenchmarkTest (tests) et se règle par la propriété ;
+ * 0 désactive le mode parallèle.
+ */
+final class DoctorFilter {
+
+    /** Seuil par défaut (nombre de médecins), à calibrer sur la machine cible. */
+    private static final int DEFAULT_THRESHOLD = 50_000;
+
+    /** Taille minimale d'une tranche traitée par une tâche. */
+    private static final int MIN_CHUNK = 8_192;
+
+    private static final int THRESHOLD = Integer.getInteger("carelink.search.parallelThreshold", DEFAULT_THRESHOLD);
+
+    private DoctorFilter() {
+    }
+
+    /**
+     * Médecins satisfaisant le prédicat, dans l'ordre de la liste.
+     *
+     * @param matches prédicat sans effet de bord (évalué en parallèle sur
+     *                les grandes listes)
+     */
+    static List<Doctor> filter(List<Doctor> doctors, Predicate<Doctor> matches) {
+        return isParallel(doctors) ? parallel(doctors, matches) : sequential(doctors, matches);
+    }
+
+    /** Filtrage par une simple boucle. */
+    static List<Doctor> sequential(List<Doctor> doctors, Predicate<Doctor> matches) {
+        List<Doctor> result = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            if (matches.test(doctor)) {
+                result.add(doctor);
+            }
+        }
+        return result;
+    }
+
+    /** Filtrage par tranches sur le pool fork-join commun (liste à accès direct). */
+    static List<Doctor> parallel(List<Doctor> doctors, Predicate<Doctor> matches) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int chunk = Math.max(MIN_CHUNK, doctors.size() / (4 * pool.getParallelism()));
+        return pool.invoke(new FilterTask(doctors, matches, 0, doctors.size(), chunk));
+    }
+
+    private static boolean isParallel(List<Doctor> doctors) {
+        return THRESHOLD > 0
+                && doctors.size() >= THRESHOLD
+                && doctors instanceof RandomAccess
+                && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /** Filtre la tranche [from, to) en la coupant en deux tant qu'elle dépasse {@code chunk}. */
+    private static final class FilterTask extends RecursiveTask<List<Doctor>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Doctor> doctors;
+        private final Predicate<Doctor> matches;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        FilterTask(List<Doctor> doctors, Predicate<Doctor> matches, int from, int to, int chunk) {
+            this.doctors = doctors;
+            this.matches = matches;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected List<Doctor> compute() {
+            if (to - from <= chunk) {
+                List<Doctor> result = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    Doctor doctor = doctors.get(i);
+                    if (matches.test(doctor)) {
+                        result.add(doctor);
+                    }
+                }
+                return result;
+            }
+
+            int middle = (from + to) >>> 1;
+            FilterTask left = new FilterTask(doctors, matches, from, middle, chunk);
+            left.fork();
+            List<Doctor> right = new FilterTask(doctors, matches, middle, to, chunk).compute();
+            List<Doctor> result = left.join();
+            result.addAll(right);
+            return result;
+        }
+    }
+}
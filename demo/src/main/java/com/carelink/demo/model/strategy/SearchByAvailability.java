@@ -1,12 +1,21 @@
 package com.carelink.demo.model.strategy;
 
 import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.SlotCalendar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Stratégie de recherche basée sur la disponibilité des médecins.
  * Elle filtre les médecins ayant un créneau horaire précis disponible.
+ *
+ * Critère accepté : "HH:mm" (créneau proposé par le médecin) ou
+ * "yyyy-MM-ddTHH:mm" (créneau libre à cette date).
  */
 public class SearchByAvailability implements SearchStrategy {
 
@@ -23,11 +32,23 @@ public class SearchByAvailability implements SearchStrategy {
             return doctors;
         }
 
-        String slot = timeSlot.trim();
+        String slot = timeSlot.trim().replace(' ', 'T');
+
+        // Le critère est analysé une seule fois, le filtre ne fait que des tests de bits
+        try {
+            if (slot.indexOf('T') > 0) {
+                LocalDateTime dateTime = LocalDateTime.parse(slot);
+                LocalDate date = dateTime.toLocalDate();
+                LocalTime time = dateTime.toLocalTime();
+                return DoctorFilter.filter(doctors, d -> d.isSlotAvailable(date, time));
+            }
 
-        return doctors.stream()
-                .filter(d -> d.getAvailableSlots() != null
-                        && d.getAvailableSlots().contains(slot))
-                .collect(Collectors.toList());
+            int index = SlotCalendar.slotIndex(LocalTime.parse(slot));
+            return DoctorFilter.filter(doctors, d -> d.getCalendar().isOpen(index));
+
+        } catch (DateTimeParseException e) {
+            // Créneau invalide : aucun médecin ne peut le proposer
+            return new ArrayList<>();
+        }
     }
 }
@@ -1,8 +1,9 @@
 package com.carelink.demo.model.strategy;
 
+import com.carelink.demo.model.City;
 import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.Wilaya;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Stratégie de recherche basée sur la localisation géographique.
@@ -24,10 +25,9 @@ public class SearchByLocation implements SearchStrategy {
         }
 
         String loc = location.trim();
+        int wilayaCode = Wilaya.NAMES.find(loc);
+        int cityCode = City.NAMES.find(loc);
 
-        return doctors.stream()
-                .filter(d -> (d.getWilaya() != null && d.getWilaya().equalsIgnoreCase(loc)) ||
-                        (d.getCity() != null && d.getCity().equalsIgnoreCase(loc)))
-                .collect(Collectors.toList());
+        return DoctorFilter.filter(doctors, d -> d.getWilayaCode() == wilayaCode || d.getCityCode() == cityCode);
     }
 }
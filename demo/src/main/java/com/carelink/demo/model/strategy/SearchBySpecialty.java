@@ -1,8 +1,8 @@
 package com.carelink.demo.model.strategy;
 
 import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.Specialty;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Stratégie de recherche basée sur la spécialité médicale.
@@ -23,11 +23,9 @@ public class SearchBySpecialty implements SearchStrategy {
             return doctors;
         }
 
-        String s = specialty.trim();
+        // Comparaison de codes : une spécialité inconnue ne correspond à personne
+        int code = Specialty.NAMES.find(specialty.trim());
 
-        return doctors.stream()
-                .filter(d -> d.getSpeciality() != null
-                        && d.getSpeciality().equalsIgnoreCase(s))
-                .collect(Collectors.toList());
+        return DoctorFilter.filter(doctors, d -> d.getSpecialityCode() == code);
     }
 }
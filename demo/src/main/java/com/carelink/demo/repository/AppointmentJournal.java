@@ -0,0 +1,499 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Journal binaire en ajout seul (write-ahead log) des mutations de rendez-vous.
+ *
+ * Chaque mutation produit un enregistrement :
+ * [longueur (int)][CRC32 (int)][type (byte)][charge utile].
+ * Au démarrage, le journal est rejoué par-dessus les données CSV ; une fin de
+ * fichier tronquée ou corrompue (arrêt brutal pendant une écriture) est
+ * ignorée puis coupée.
+ *
+ * Les enregistrements portent l'état complet des champs modifiés, ce qui rend
+ * le rejeu idempotent.
+ */
+public class AppointmentJournal implements Closeable {
+
+    /** Taille de l'en-tête d'un enregistrement : longueur + CRC32. */
+    private static final int HEADER_SIZE = 8;
+
+    /** Taille maximale acceptée pour un enregistrement (protection au rejeu). */
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    /**
+     * Politiques de synchronisation disque (fsync).
+     */
+    public enum FsyncPolicy {
+        /** fsync après chaque enregistrement : durabilité maximale, débit minimal. */
+        ALWAYS,
+        /**
+         * Group commit : un thread dédié fait un seul fsync pour toutes les
+         * écritures en attente ; celles qui arrivent pendant un fsync
+         * partagent le suivant. L'appelant attend ce fsync.
+         */
+        GROUP,
+        /** Aucun fsync explicite : le système d'exploitation décide. */
+        NONE
+    }
+
+    /**
+     * Types d'enregistrements.
+     */
+    public enum Type {
+        CREATE,
+        STATUS,
+        RESCHEDULE
+    }
+
+    /**
+     * Mutation journalisée. Les champs non pertinents pour le type sont null.
+     */
+    public record Entry(Type type, String appointmentId, String patientId, String doctorId,
+            LocalDateTime dateTime, Appointment.Status status, String notes) {
+
+        public static Entry create(Appointment appointment) {
+            return new Entry(Type.CREATE, appointment.getId(), appointment.getPatientId(),
+                    appointment.getDoctorId(), appointment.getDateTime(), appointment.getStatus(),
+                    appointment.getNotes());
+        }
+
+        public static Entry status(String appointmentId, Appointment.Status status) {
+            return new Entry(Type.STATUS, appointmentId, null, null, null, status, null);
+        }
+
+        public static Entry reschedule(String appointmentId, LocalDateTime dateTime, Appointment.Status status) {
+            return new Entry(Type.RESCHEDULE, appointmentId, null, null, dateTime, status, null);
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final long groupCommitMillis;
+
+    /** Protège les écritures dans le canal (writtenSeq n'est modifié que sous ce verrou). */
+    private final Object writeLock = new Object();
+
+    /** Protège syncedSeq / failure et sert de moniteur au group commit. */
+    private final Object syncMonitor = new Object();
+
+    private volatile long writtenSeq;
+    private long syncedSeq;
+    private IOException failure;
+
+    /** Échec d'écriture non réparé (protégé par writeLock). */
+    private IOException writeFailure;
+    private volatile boolean closed;
+
+    private final Thread flusher;
+
+    /**
+     * Ouvre (ou crée) le journal.
+     *
+     * @param path              fichier du journal
+     * @param policy            politique de fsync
+     * @param groupCommitMillis attente supplémentaire avant chaque fsync du
+     *                          group commit pour grossir les lots (en ms, 0 :
+     *                          aucune)
+     */
+    public AppointmentJournal(Path path, FsyncPolicy policy, long groupCommitMillis) throws IOException {
+        this.path = path;
+        this.policy = policy;
+        this.groupCommitMillis = Math.max(0, groupCommitMillis);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (policy == FsyncPolicy.GROUP) {
+            flusher = new Thread(this::runFlusher, "appointment-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Position (en octets) de la fin du dernier enregistrement écrit : tout ce
+     * qui précède est déjà appliqué en mémoire.
+     */
+    public long position() throws IOException {
+        synchronized (writeLock) {
+            return channel.position();
+        }
+    }
+
+    // -------------------- Rejeu --------------------
+
+    /**
+     * Rejoue tous les enregistrements valides dans l'ordre d'écriture, puis
+     * positionne le journal en fin de la partie valide (une fin tronquée est
+     * supprimée).
+     *
+     * @param consumer reçoit chaque mutation
+     * @return nombre d'enregistrements rejoués
+     */
+    public int replay(Consumer<Entry> consumer) throws IOException {
+        return replay(0, consumer);
+    }
+
+    /**
+     * Rejoue les enregistrements à partir de la position {@code from} (une
+     * position obtenue par {@link #position()}, par exemple celle d'un
+     * snapshot). Une position au-delà de la fin du fichier fait rejouer tout le
+     * journal : le rejeu étant idempotent, le résultat reste correct.
+     *
+     * @param from     position de départ (en octets)
+     * @param consumer reçoit chaque mutation
+     * @return nombre d'enregistrements rejoués
+     */
+    public int replay(long from, Consumer<Entry> consumer) throws IOException {
+        synchronized (writeLock) {
+            long size = channel.size();
+            long position = from >= 0 && from <= size ? from : 0;
+            int count = 0;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                readFully(header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+
+                if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(payload, position + HEADER_SIZE);
+
+                crc.reset();
+                crc.update(payload.array(), 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                consumer.accept(decode(payload.array()));
+                position += HEADER_SIZE + length;
+                count++;
+            }
+
+            if (position < size) {
+                channel.truncate(position);
+                channel.force(false);
+            }
+            channel.position(position);
+            return count;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal " + path);
+            }
+        }
+    }
+
+    // -------------------- Écriture --------------------
+
+    /**
+     * Ajoute une mutation au journal et attend qu'elle soit durable selon la
+     * politique de fsync.
+     *
+     * @throws UncheckedIOException si l'écriture ou la synchronisation échoue
+     */
+    public void append(Entry entry) {
+        sync(write(entry));
+    }
+
+    /**
+     * Écrit une mutation à la suite du journal sans attendre le fsync (sauf
+     * politique ALWAYS). L'ordre des appels fixe l'ordre de rejeu.
+     *
+     * @return numéro de séquence à passer à {@link #sync(long)}
+     * @throws UncheckedIOException si l'écriture échoue (rien n'est écrit)
+     */
+    public long write(Entry entry) {
+        return write(List.of(entry));
+    }
+
+    /**
+     * Écrit plusieurs mutations d'un seul bloc : elles sont toutes écrites ou
+     * aucune ne l'est. En cas d'échec, le journal est ramené à sa taille
+     * précédente ; si ce retour en arrière échoue lui aussi, le journal
+     * refuse toute écriture ultérieure (un enregistrement partiel ne doit
+     * pas être suivi d'autres enregistrements).
+     *
+     * @return numéro de séquence à passer à {@link #sync(long)}
+     * @throws UncheckedIOException si l'écriture échoue
+     */
+    public long write(List<Entry> entries) {
+        ByteBuffer[] records = new ByteBuffer[entries.size()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = encode(entries.get(i));
+        }
+
+        synchronized (writeLock) {
+            ensureOpen();
+            if (writeFailure != null) {
+                throw new UncheckedIOException("Appointment journal unusable: " + path, writeFailure);
+            }
+            long start = -1;
+            try {
+                start = channel.position();
+                while (records.length > 0 && records[records.length - 1].hasRemaining()) {
+                    channel.write(records);
+                }
+                if (policy == FsyncPolicy.ALWAYS) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                truncateAfterFailure(start, e);
+                throw new UncheckedIOException("Appointment journal write failed: " + path, e);
+            }
+            return ++writtenSeq;
+        }
+    }
+
+    /** Retire la partie écrite d'un bloc en échec (appelé sous writeLock). */
+    private void truncateAfterFailure(long start, IOException cause) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            writeFailure = e;
+        }
+    }
+
+    /**
+     * Attend que l'enregistrement {@code seq} soit durable selon la politique.
+     * Peut être appelé hors de tout verrou applicatif afin que plusieurs
+     * écrivains partagent le même fsync.
+     *
+     * @throws UncheckedIOException si la synchronisation échoue
+     */
+    public void sync(long seq) {
+        if (policy == FsyncPolicy.GROUP) {
+            awaitSynced(seq);
+        }
+    }
+
+    /**
+     * Attend que le thread de group commit ait synchronisé l'enregistrement
+     * {@code seq}.
+     */
+    private void awaitSynced(long seq) {
+        synchronized (syncMonitor) {
+            syncMonitor.notifyAll();
+            boolean interrupted = false;
+            while (syncedSeq < seq && failure == null && !closed) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Appointment journal sync failed: " + path, failure);
+            }
+        }
+    }
+
+    /**
+     * Boucle du group commit : dès qu'une écriture est en attente, un seul
+     * fsync couvre tout ce qui a été écrit. Les écritures arrivées pendant ce
+     * fsync forment le lot suivant : la taille des lots suit la concurrence
+     * sans imposer de délai quand un écrivain est seul (une fenêtre fixe
+     * coûtait plusieurs fsync à chaque réservation sur un disque rapide).
+     */
+    private void runFlusher() {
+        while (!closed) {
+            try {
+                synchronized (syncMonitor) {
+                    while (!closed && writtenSeq <= syncedSeq) {
+                        syncMonitor.wait();
+                    }
+                }
+                if (closed) {
+                    break;
+                }
+
+                if (groupCommitMillis > 0) {
+                    Thread.sleep(groupCommitMillis);
+                }
+
+                long target = writtenSeq;
+                channel.force(false);
+
+                synchronized (syncMonitor) {
+                    syncedSeq = Math.max(syncedSeq, target);
+                    syncMonitor.notifyAll();
+                }
+            } catch (InterruptedException e) {
+                if (closed) {
+                    break;
+                }
+            } catch (IOException e) {
+                synchronized (syncMonitor) {
+                    failure = e;
+                    syncMonitor.notifyAll();
+                }
+                break;
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Appointment journal is closed");
+        }
+    }
+
+    /**
+     * Force les écritures en attente sur disque puis ferme le journal.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            channel.force(false);
+            synchronized (syncMonitor) {
+                closed = true;
+                syncedSeq = writtenSeq;
+                syncMonitor.notifyAll();
+            }
+            channel.close();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    // -------------------- Encodage binaire --------------------
+
+    private static ByteBuffer encode(Entry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeByte(entry.type().ordinal());
+            out.writeUTF(entry.appointmentId());
+
+            switch (entry.type()) {
+                case CREATE:
+                    out.writeUTF(entry.patientId());
+                    out.writeUTF(entry.doctorId());
+                    out.writeLong(entry.dateTime().toEpochSecond(ZoneOffset.UTC));
+                    out.writeByte(entry.status().ordinal());
+                    writeNullableUTF(out, entry.notes());
+                    break;
+                case STATUS:
+                    out.writeByte(entry.status().ordinal());
+                    break;
+                case RESCHEDULE:
+                    out.writeLong(entry.dateTime().toEpochSecond(ZoneOffset.UTC));
+                    out.writeByte(entry.status().ordinal());
+                    break;
+            }
+            out.flush();
+
+            byte[] payload = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+            record.putInt(payload.length);
+            record.putInt((int) crc.getValue());
+            record.put(payload);
+            record.flip();
+            return record;
+        } catch (IOException e) {
+            // Impossible avec un ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        Type type = Type.values()[in.readUnsignedByte()];
+        String appointmentId = in.readUTF();
+
+        switch (type) {
+            case CREATE: {
+                String patientId = in.readUTF();
+                String doctorId = in.readUTF();
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+                Appointment.Status status = Appointment.Status.values()[in.readUnsignedByte()];
+                String notes = readNullableUTF(in);
+                return new Entry(type, appointmentId, patientId, doctorId, dateTime, status, notes);
+            }
+            case STATUS:
+                return Entry.status(appointmentId, Appointment.Status.values()[in.readUnsignedByte()]);
+            case RESCHEDULE: {
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+                Appointment.Status status = Appointment.Status.values()[in.readUnsignedByte()];
+                return Entry.reschedule(appointmentId, dateTime, status);
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,322 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.AppointmentOperation;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.OperationResult;
+import com.carelink.demo.model.Patient;
+import com.carelink.demo.model.SlotCalendar;
+import com.carelink.demo.model.SlotHold;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Échéances du cycle de vie des rendez-vous, suivies par une
+ * {@link TimingWheel} :
+ * <ul>
+ * <li>une demande PENDING sans réponse du médecin est annulée au bout de
+ * {@code carelink.lifecycle.pendingTtlSeconds} (au plus tard à l'heure du
+ * rendez-vous), ce qui libère le créneau ;</li>
+ * <li>un rappel est envoyé au patient
+ * {@code carelink.lifecycle.reminderSeconds} avant un rendez-vous confirmé ou
+ * reporté ;</li>
+ * <li>un rendez-vous confirmé ou reporté passe à COMPLETED
+ * {@code carelink.lifecycle.completionGraceSeconds} après la fin de son
+ * créneau ;</li>
+ * <li>une réservation temporaire de créneau ({@link SlotHold}) expire au
+ * bout de {@code carelink.lifecycle.holdSeconds} ; un patient en garde au
+ * plus {@code carelink.lifecycle.maxHoldsPerPatient} à la fois.</li>
+ * </ul>
+ *
+ * Les échéances d'un rendez-vous sont replanifiées à chaque changement de
+ * son état ; elles portent la version lue à la planification et passent par
+ * les transitions du repository avec cette version : une échéance devenue
+ * obsolète échoue sans effet. Les expirations et clôtures échues pendant un
+ * tick sont appliquées ensemble à sa fin, en un seul lot
+ * ({@link CsvDataRepository#applyTransitions}, un seul fsync).
+ *
+ * Au démarrage, les échéances sont reconstruites une fois depuis les
+ * rendez-vous chargés, sauf pour les rendez-vous terminés et ceux dont
+ * l'échéance est passée depuis plus de
+ * {@code carelink.lifecycle.catchUpSeconds} (historique laissé en l'état) ;
+ * les échéances déjà passées partent toutes au premier tick, dans le même
+ * lot. Aucun tick ne parcourt les rendez-vous. Aucune échéance ne se
+ * déclenche avant {@link #start()}.
+ */
+final class AppointmentLifecycle {
+
+    private static final long PENDING_TTL_MILLIS =
+            1000 * Long.getLong("carelink.lifecycle.pendingTtlSeconds", 48 * 3600L);
+    private static final long REMINDER_MILLIS =
+            1000 * Long.getLong("carelink.lifecycle.reminderSeconds", 24 * 3600L);
+    private static final long COMPLETION_GRACE_MILLIS =
+            1000 * Long.getLong("carelink.lifecycle.completionGraceSeconds", 30 * 60L);
+    private static final long HOLD_MILLIS =
+            1000 * Long.getLong("carelink.lifecycle.holdSeconds", 5 * 60L);
+    private static final long CATCH_UP_MILLIS =
+            1000 * Long.getLong("carelink.lifecycle.catchUpSeconds", 7 * 24 * 3600L);
+    private static final int MAX_HOLDS_PER_PATIENT =
+            Integer.getInteger("carelink.lifecycle.maxHoldsPerPatient", 3);
+
+    /** Durée d'un créneau. */
+    private static final long SLOT_MILLIS = 30 * 60 * 1000L;
+
+    private final CsvDataRepository repository;
+    private final TimingWheel wheel;
+
+    /** Appelé quand une réservation temporaire abandonnée ou expirée libère son créneau. */
+    private final BiConsumer<Doctor, LocalDateTime> slotReleased;
+
+    /** Échéances en attente de chaque rendez-vous. */
+    private final Map<String, List<TimingWheel.Timeout>> deadlines = new ConcurrentHashMap<>();
+
+    /** Transitions échues pendant le tick en cours, appliquées en un lot à sa fin. */
+    private final Queue<AppointmentOperation> due = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, SlotHold> holds = new ConcurrentHashMap<>();
+    private final Map<String, TimingWheel.Timeout> holdExpiries = new ConcurrentHashMap<>();
+
+    /** Nombre de réservations temporaires actives par patient. */
+    private final Map<String, Integer> holdsPerPatient = new ConcurrentHashMap<>();
+    private final AtomicLong holdSequence = new AtomicLong();
+
+    AppointmentLifecycle(CsvDataRepository repository, BiConsumer<Doctor, LocalDateTime> slotReleased) {
+        this(repository, slotReleased, Long.getLong("carelink.lifecycle.tickMillis", 1000L));
+    }
+
+    /** @param tickMillis résolution de l'horloge des échéances */
+    AppointmentLifecycle(CsvDataRepository repository, BiConsumer<Doctor, LocalDateTime> slotReleased,
+            long tickMillis) {
+        this.repository = repository;
+        this.slotReleased = slotReleased;
+        this.wheel = new TimingWheel(tickMillis, "appointment-lifecycle", this::applyDue);
+    }
+
+    /** Démarre l'horloge des échéances (repository entièrement construit). */
+    void start() {
+        wheel.start();
+    }
+
+    /** Arrête l'horloge des échéances (les échéances en attente sont abandonnées). */
+    void stop() {
+        wheel.stop();
+    }
+
+    // -------------------- Rendez-vous --------------------
+
+    /** Reconstruit les échéances des rendez-vous chargés (démarrage). */
+    void trackAll(Collection<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            Appointment.Status status = appointment.getStatus();
+            if (status != Appointment.Status.CANCELLED && status != Appointment.Status.COMPLETED) {
+                track(appointment);
+            }
+        }
+    }
+
+    /**
+     * (Re)planifie les échéances d'un rendez-vous d'après son état courant.
+     * Appelé sous le verrou du médecin après chaque changement.
+     */
+    void track(Appointment appointment) {
+        Appointment.State state = appointment.getState();
+        String id = appointment.getId();
+        List<TimingWheel.Timeout> planned = new ArrayList<>(2);
+
+        if (state.status() != null && state.dateTime() != null) {
+            long now = System.currentTimeMillis();
+            long start = toMillis(state.dateTime());
+            long version = state.version();
+            switch (state.status()) {
+                case PENDING: {
+                    long expiry = Math.min(now + PENDING_TTL_MILLIS, start);
+                    if (expiry >= now - CATCH_UP_MILLIS) {
+                        planned.add(wheel.schedule(expiry, () -> due.add(new AppointmentOperation(id,
+                                Appointment.Status.CANCELLED, null, version))));
+                    }
+                    break;
+                }
+                case CONFIRMED:
+                case SCHEDULED:
+                case RESCHEDULED: {
+                    if (start - REMINDER_MILLIS > now) {
+                        planned.add(wheel.schedule(start - REMINDER_MILLIS, () -> remind(id, version)));
+                    }
+                    long completion = start + SLOT_MILLIS + COMPLETION_GRACE_MILLIS;
+                    if (completion >= now - CATCH_UP_MILLIS) {
+                        planned.add(wheel.schedule(completion, () -> due.add(new AppointmentOperation(id,
+                                Appointment.Status.COMPLETED, null, version))));
+                    }
+                    break;
+                }
+                default:
+                    // CANCELLED, COMPLETED : plus d'échéance
+            }
+        }
+
+        List<TimingWheel.Timeout> previous = planned.isEmpty() ? deadlines.remove(id) : deadlines.put(id, planned);
+        if (previous != null) {
+            for (TimingWheel.Timeout timeout : previous) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    /**
+     * Applique en un lot les expirations et clôtures échues pendant le tick
+     * (fin de tick). Une opération dont la version a changé depuis la
+     * planification échoue sans effet ; une demande expirée libère son
+     * créneau (proposé à la liste d'attente) et le patient est prévenu.
+     */
+    private void applyDue() {
+        List<AppointmentOperation> batch = new ArrayList<>();
+        for (AppointmentOperation operation; (operation = due.poll()) != null;) {
+            batch.add(operation);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<OperationResult> results = repository.applyTransitions(batch);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).success() && batch.get(i).target() == Appointment.Status.CANCELLED) {
+                Appointment appointment = repository.getAppointmentById(batch.get(i).appointmentId());
+                notifyPatient(appointment, "Your appointment request for " + appointment.getFormattedDate() + " "
+                        + appointment.getFormattedTime() + " expired without an answer from the doctor.");
+            }
+        }
+    }
+
+    private void remind(String appointmentId, long version) {
+        Appointment appointment = repository.getAppointmentById(appointmentId);
+        if (appointment != null && appointment.getVersion() == version) {
+            notifyPatient(appointment, "Reminder: appointment on " + appointment.getFormattedDate() + " at "
+                    + appointment.getFormattedTime() + ".");
+        }
+    }
+
+    private void notifyPatient(Appointment appointment, String message) {
+        Patient patient = appointment == null ? null : repository.getPatientById(appointment.getPatientId());
+        if (patient != null) {
+            patient.update(message);
+        }
+    }
+
+    // -------------------- Réservations temporaires --------------------
+
+    /**
+     * Retient un créneau libre pour un patient.
+     *
+     * @return la réservation, ou null si le créneau est passé, n'est pas
+     *         proposé par le médecin ou n'est pas libre
+     * @throws IllegalStateException si le patient a déjà
+     *                               {@code carelink.lifecycle.maxHoldsPerPatient}
+     *                               réservations actives
+     */
+    SlotHold hold(Doctor doctor, String patientId, LocalDateTime dateTime) {
+        if (!dateTime.isAfter(LocalDateTime.now())
+                || !doctor.getCalendar().isOpen(SlotCalendar.slotIndex(dateTime.toLocalTime()))) {
+            return null;
+        }
+        if (!acquireHoldQuota(patientId)) {
+            throw new IllegalStateException("At most " + MAX_HOLDS_PER_PATIENT + " slot holds per patient");
+        }
+        if (!doctor.getCalendar().tryBook(dateTime.toLocalDate(), dateTime.toLocalTime())) {
+            releaseHoldQuota(patientId);
+            return null;
+        }
+        long expiresAt = System.currentTimeMillis() + HOLD_MILLIS;
+        String id = "HOLD" + holdSequence.incrementAndGet();
+        SlotHold hold = new SlotHold(id, doctor.getId(), patientId, dateTime,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+        holds.put(id, hold);
+        holdExpiries.put(id, wheel.schedule(expiresAt, () -> releaseHold(id, null)));
+        return hold;
+    }
+
+    /**
+     * Convertit une réservation en rendez-vous : le créneau reste occupé et
+     * l'échéance est annulée.
+     *
+     * @return false si la réservation n'existe plus ou ne correspond pas
+     */
+    boolean claim(String holdId, String patientId, String doctorId, LocalDateTime dateTime) {
+        SlotHold hold = holds.get(holdId);
+        if (hold == null || !hold.patientId().equals(patientId) || !hold.doctorId().equals(doctorId)
+                || !hold.dateTime().equals(dateTime) || !holds.remove(holdId, hold)) {
+            return false;
+        }
+        TimingWheel.Timeout expiry = holdExpiries.remove(holdId);
+        if (expiry != null) {
+            expiry.cancel();
+        }
+        releaseHoldQuota(hold.patientId());
+        return true;
+    }
+
+    /**
+     * Abandonne une réservation et libère son créneau.
+     *
+     * @param patientId titulaire attendu, ou null (expiration)
+     */
+    boolean releaseHold(String holdId, String patientId) {
+        SlotHold hold = holds.get(holdId);
+        if (hold == null || (patientId != null && !hold.patientId().equals(patientId))
+                || !holds.remove(holdId, hold)) {
+            return false;
+        }
+        TimingWheel.Timeout expiry = holdExpiries.remove(holdId);
+        if (expiry != null) {
+            expiry.cancel();
+        }
+        releaseHoldQuota(hold.patientId());
+        Doctor doctor = repository.getDoctorById(hold.doctorId());
+        if (doctor != null) {
+            doctor.releaseSlot(hold.dateTime().toLocalDate(), hold.dateTime().toLocalTime());
+            slotReleased.accept(doctor, hold.dateTime());
+        }
+        return true;
+    }
+
+    /** Compte une réservation de plus pour le patient, sauf s'il a atteint le plafond. */
+    private boolean acquireHoldQuota(String patientId) {
+        boolean[] acquired = new boolean[1];
+        holdsPerPatient.compute(patientId, (k, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= MAX_HOLDS_PER_PATIENT) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private void releaseHoldQuota(String patientId) {
+        holdsPerPatient.computeIfPresent(patientId, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /** Planifie une tâche annexe (ex: purge d'une liste d'attente échue). */
+    TimingWheel.Timeout schedule(long deadlineMillis, Runnable task) {
+        return wheel.schedule(deadlineMillis, task);
+    }
+
+    /** Nombre d'échéances suivies (rendez-vous et réservations). */
+    int pendingDeadlines() {
+        return wheel.size();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
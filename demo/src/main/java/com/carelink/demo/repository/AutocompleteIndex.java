@@ -0,0 +1,315 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.City;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.Suggestion;
+import com.carelink.demo.model.Suggestion.Type;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index d'autocomplétion tolérant aux fautes de frappe, sur les noms des
+ * médecins, les spécialités et les villes.
+ *
+ * Les libellés sont normalisés (minuscules, sans accents) et découpés en
+ * mots. Deux structures servent la recherche :
+ * <ul>
+ * <li>un arbre trié des mots, pour les préfixes ("cardio" -> "cardiology") ;</li>
+ * <li>un index de trigrammes des mots : seuls les mots partageant assez de
+ * trigrammes avec la saisie sont comparés par distance d'édition bornée
+ * ("meghraui" -> "meghraoui").</li>
+ * </ul>
+ * Le coût d'une requête dépend du nombre de candidats, pas de la taille de
+ * l'annuaire.
+ */
+final class AutocompleteIndex {
+
+    /** Nombre maximal de mots candidats examinés par requête. */
+    private static final int MAX_PREFIX_TOKENS = 256;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> entryByKey = new HashMap<>();
+
+    /** Mot normalisé -> entrées dont le libellé contient ce mot. */
+    private final TreeMap<String, List<Integer>> tokens = new TreeMap<>();
+
+    /** Trigramme -> mots qui le contiennent. */
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    private static final class Entry {
+        final Suggestion suggestion;
+        final String normalized;
+        boolean alive = true;
+
+        Entry(Suggestion suggestion) {
+            this.suggestion = suggestion;
+            this.normalized = normalize(suggestion.label());
+        }
+    }
+
+    /** Construit l'index d'un annuaire. */
+    static AutocompleteIndex build(Collection<Doctor> doctors, Collection<City> cities,
+            Collection<String> specialties) {
+        AutocompleteIndex index = new AutocompleteIndex();
+        for (String specialty : specialties) {
+            index.addUnlocked("S:" + normalize(specialty), new Suggestion(Type.SPECIALTY, specialty, null, null));
+        }
+        for (City city : cities) {
+            index.addUnlocked("C:" + normalize(city.getName()) + "/" + normalize(city.wilaya()),
+                    new Suggestion(Type.CITY, city.getName(), city.wilaya(), null));
+        }
+        for (Doctor doctor : doctors) {
+            index.addDoctorUnlocked(doctor);
+        }
+        return index;
+    }
+
+    // -------------------- Mises à jour --------------------
+
+    /** Ajoute ou remplace la suggestion d'un médecin (inscription, profil). */
+    void putDoctor(Doctor doctor) {
+        lock.writeLock().lock();
+        try {
+            addDoctorUnlocked(doctor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addDoctorUnlocked(Doctor doctor) {
+        if (doctor.getSpeciality() != null) {
+            String specialty = doctor.getSpeciality();
+            addUnlocked("S:" + normalize(specialty), new Suggestion(Type.SPECIALTY, specialty, null, null));
+        }
+        addUnlocked("D:" + doctor.getId(), new Suggestion(Type.DOCTOR, "Dr. " + doctor.getFullName(),
+                doctor.getSpeciality() + " - " + doctor.getCity(), doctor.getId()));
+    }
+
+    private void addUnlocked(String key, Suggestion suggestion) {
+        Integer existing = entryByKey.get(key);
+        if (existing != null) {
+            Entry previous = entries.get(existing);
+            if (previous.suggestion.equals(suggestion)) {
+                return;
+            }
+            // L'ancienne entrée reste dans les listes mais n'est plus servie
+            previous.alive = false;
+        }
+
+        int id = entries.size();
+        Entry entry = new Entry(suggestion);
+        entries.add(entry);
+        entryByKey.put(key, id);
+
+        for (String token : entry.normalized.split(" ")) {
+            if (token.isEmpty() || "dr.".equals(token)) {
+                continue;
+            }
+            List<Integer> postings = tokens.get(token);
+            if (postings == null) {
+                postings = new ArrayList<>(1);
+                tokens.put(token, postings);
+                for (String gram : trigramsOf(token)) {
+                    trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(token);
+                }
+            }
+            postings.add(id);
+        }
+    }
+
+    // -------------------- Recherche --------------------
+
+    /**
+     * Suggestions pour une saisie partielle ou mal orthographiée.
+     *
+     * Classement : préfixe du libellé complet, puis préfixe d'un mot, puis
+     * correspondance approchée (par distance croissante) ; à égalité, les
+     * spécialités et villes passent avant les médecins, puis le libellé le
+     * plus court.
+     */
+    List<Suggestion> suggest(String query, int limit) {
+        String q = normalize(query == null ? "" : query);
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        String[] words = q.split(" ");
+        String last = words[words.length - 1];
+
+        lock.readLock().lock();
+        try {
+            // entrée -> meilleur score (plus petit = meilleur)
+            Map<Integer, Integer> scores = new LinkedHashMap<>();
+
+            // 1. Préfixes exacts du dernier mot
+            int examined = 0;
+            for (Map.Entry<String, List<Integer>> token : tokens.tailMap(last, true).entrySet()) {
+                if (!token.getKey().startsWith(last) || ++examined > MAX_PREFIX_TOKENS) {
+                    break;
+                }
+                for (int id : token.getValue()) {
+                    score(scores, id, entries.get(id).normalized.startsWith(q) ? 0 : 1);
+                }
+            }
+
+            // 2. Correspondances approchées (trigrammes + distance bornée)
+            int maxDistance = last.length() <= 3 ? 0 : last.length() <= 6 ? 1 : 2;
+            if (maxDistance > 0) {
+                for (String token : fuzzyCandidates(last, maxDistance)) {
+                    int distance = Math.min(
+                            boundedDistance(last, token, maxDistance),
+                            boundedDistance(last, token.substring(0, Math.min(token.length(), last.length())),
+                                    maxDistance));
+                    if (distance <= maxDistance) {
+                        for (int id : tokens.get(token)) {
+                            score(scores, id, 1 + distance);
+                        }
+                    }
+                }
+            }
+
+            // Les mots précédents de la saisie doivent figurer dans le libellé
+            List<Integer> matches = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> match : scores.entrySet()) {
+                Entry entry = entries.get(match.getKey());
+                if (entry.alive && containsWords(entry.normalized, words)) {
+                    matches.add(match.getKey());
+                }
+            }
+
+            matches.sort(Comparator.<Integer>comparingInt(scores::get)
+                    .thenComparingInt(id -> entries.get(id).suggestion.type().ordinal())
+                    .thenComparingInt(id -> entries.get(id).normalized.length())
+                    .thenComparing(id -> entries.get(id).normalized));
+
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, matches.size()));
+            for (int i = 0; i < matches.size() && result.size() < limit; i++) {
+                result.add(entries.get(matches.get(i)).suggestion);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void score(Map<Integer, Integer> scores, int id, int score) {
+        scores.merge(id, score, Math::min);
+    }
+
+    private static boolean containsWords(String label, String[] words) {
+        for (int i = 0; i < words.length - 1; i++) {
+            if (!words[i].isEmpty() && !label.contains(words[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mots partageant suffisamment de trigrammes avec la saisie : une erreur
+     * d'édition modifie au plus 3 trigrammes.
+     */
+    private Set<String> fuzzyCandidates(String word, int maxDistance) {
+        List<String> grams = trigramsOf(word);
+        int required = Math.max(1, grams.size() - 3 * maxDistance);
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> words = trigrams.get(gram);
+            if (words != null) {
+                for (String candidate : words) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        Set<String> candidates = new HashSet<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            if (candidate.getValue() >= required) {
+                candidates.add(candidate.getKey());
+            }
+        }
+        return candidates;
+    }
+
+    // -------------------- Utilitaires --------------------
+
+    /** Minuscules, sans accents, espaces simples. */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace('-', ' ')
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    /** Trigrammes d'un mot encadré de marqueurs ("^ca", "car", ..., "gy$"). */
+    private static List<String> trigramsOf(String word) {
+        String padded = "^" + word + "$";
+        List<String> grams = new ArrayList<>(Math.max(1, padded.length() - 2));
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Distance de Levenshtein bornée : calcule seulement la bande diagonale de
+     * largeur 2k+1 et s'arrête dès que la borne est dépassée.
+     *
+     * @return la distance, ou {@code max + 1} si elle dépasse {@code max}
+     */
+    static int boundedDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[0] = i;
+            if (from > 1) {
+                current[from - 1] = max + 1;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j] + 1, current[j - 1] + 1));
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (to < b.length()) {
+                current[to + 1] = max + 1;
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -1,428 +1,1866 @@
-package com.carelink.demo.repository;
-
-import com.carelink.demo.model.*;
-import org.springframework.core.io.ClassPathResource;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
-import java.util.stream.Collectors;
-
-/**
- * Dépôt de données basé sur des fichiers CSV (chargés depuis le classpath).
- * Cette classe centralise l'accès aux médecins, patients, rendez-vous, wilayas
- * et spécialités.
- *
- * Elle est implémentée en Singleton afin de charger les fichiers une seule
- * fois.
- */
-public class CsvDataRepository {
-
-    /** Instance unique (thread-safe) du repository. */
-    private static volatile CsvDataRepository instance;
-
-    private final Map<String, Doctor> doctors = new HashMap<>();
-    private final Map<String, Patient> patients = new HashMap<>();
-    private final Map<String, Appointment> appointments = new HashMap<>();
-    private final Map<String, Wilaya> wilayas = new HashMap<>();
-    private final Map<String, Specialty> specialties = new HashMap<>();
-
-    /** Indique si les données ont déjà été chargées. */
-    private boolean dataLoaded = false;
-
-    /**
-     * Constructeur privé : force l'utilisation du Singleton.
-     * Charge les données au premier accès.
-     */
-    private CsvDataRepository() {
-        if (!dataLoaded) {
-            loadAllData();
-            dataLoaded = true;
-        }
-    }
-
-    /**
-     * Retourne l'instance unique du repository (double-check locking).
-     */
-    public static CsvDataRepository getInstance() {
-        if (instance == null) {
-            synchronized (CsvDataRepository.class) {
-                if (instance == null) {
-                    instance = new CsvDataRepository();
-                }
-            }
-        }
-        return instance;
-    }
-
-    /**
-     * Charge l'ensemble des fichiers CSV nécessaires au fonctionnement.
-     */
-    private void loadAllData() {
-        loadSpecialties();
-        loadWilayasAndCities();
-        loadDoctors();
-        loadPatients();
-        loadAppointments();
-    }
-
-    /**
-     * Charge les spécialités depuis "data/specialties.csv".
-     */
-    private void loadSpecialties() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(
-                new ClassPathResource("data/specialties.csv").getInputStream(), StandardCharsets.UTF_8))) {
-
-            br.lines().skip(1).forEach(line -> {
-                String[] parts = line.split(",");
-                if (parts.length >= 2) {
-                    Specialty specialty = new Specialty(parts[0].trim(), parts[1].trim());
-                    specialties.put(specialty.getId(), specialty);
-                }
-            });
-
-        } catch (Exception ignored) {
-            // En cas d'erreur, les données correspondantes resteront vides.
-        }
-    }
-
-    /**
-     * Charge les wilayas et leurs villes depuis "data/cities.csv".
-     * Utilise le pattern Composite (Wilaya -> City).
-     */
-    private void loadWilayasAndCities() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(
-                new ClassPathResource("data/cities.csv").getInputStream(), StandardCharsets.UTF_8))) {
-
-            br.lines().skip(1).forEach(line -> {
-                String[] parts = line.split(",");
-                if (parts.length >= 2) {
-                    String wilayaName = parts[0].trim();
-                    String cityName = parts[1].trim();
-
-                    Wilaya wilaya = wilayas.computeIfAbsent(wilayaName, Wilaya::new);
-                    wilaya.addCity(new City(cityName, wilayaName));
-                }
-            });
-
-        } catch (Exception ignored) {
-            // En cas d'erreur, les données correspondantes resteront vides.
-        }
-    }
-
-    /**
-     * Charge les médecins depuis "data/doctors.csv".
-     */
-    private void loadDoctors() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(
-                new ClassPathResource("data/doctors.csv").getInputStream(), StandardCharsets.UTF_8))) {
-
-            br.lines().skip(1).forEach(line -> {
-                String[] p = line.split(",");
-                if (p.length >= 11) {
-                    Doctor doctor = new Doctor(
-                            p[0].trim(), p[1].trim(), p[2].trim(), p[3].trim(),
-                            p[4].trim(), p[5].trim(), p[6].trim(),
-                            p[7].trim(), p[8].trim(), p[9].trim(), p[10].trim());
-                    doctors.put(doctor.getId(), doctor);
-                }
-            });
-
-        } catch (Exception ignored) {
-            // En cas d'erreur, les données correspondantes resteront vides.
-        }
-    }
-
-    /**
-     * Charge les patients depuis "data/patients.csv".
-     */
-    private void loadPatients() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(
-                new ClassPathResource("data/patients.csv").getInputStream(), StandardCharsets.UTF_8))) {
-
-            br.lines().skip(1).forEach(line -> {
-                String[] p = line.split(",");
-                if (p.length >= 8) {
-                    Patient patient = new Patient(
-                            p[0].trim(), p[1].trim(), p[2].trim(), p[3].trim(),
-                            p[4].trim(), p[5].trim(), p[6].trim(),
-                            p[7].trim(), p.length > 8 ? p[8].trim() : "");
-                    patients.put(patient.getId(), patient);
-                }
-            });
-
-        } catch (Exception ignored) {
-            // En cas d'erreur, les données correspondantes resteront vides.
-        }
-    }
-
-    /**
-     * Charge les rendez-vous depuis "data/appointments.csv" et les rattache aux
-     * patients.
-     * Le champ dateTime est parsé au format "yyyy-MM-dd'T'HH:mm".
-     */
-    private void loadAppointments() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(
-                new ClassPathResource("data/appointments.csv").getInputStream(), StandardCharsets.UTF_8))) {
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-
-            br.lines().skip(1).forEach(line -> {
-                String[] p = line.split(",");
-                if (p.length >= 5) {
-                    try {
-                        String raw = p[4].trim().toUpperCase();
-                        Appointment.Status status;
-
-                        // Harmonisation d'un ancien état si présent dans les CSV
-                        if ("SCHEDULED".equals(raw)) {
-                            status = Appointment.Status.CONFIRMED;
-                        } else {
-                            status = Appointment.Status.valueOf(raw);
-                        }
-
-                        Appointment appointment = new Appointment(
-                                p[0].trim(),
-                                p[1].trim(),
-                                p[2].trim(),
-                                LocalDateTime.parse(p[3].trim(), formatter),
-                                status);
-
-                        appointments.put(appointment.getId(), appointment);
-
-                        Patient patient = patients.get(appointment.getPatientId());
-                        if (patient != null) {
-                            patient.addAppointment(appointment);
-                        }
-                    } catch (Exception ignored) {
-                        // Ligne invalide : rendez-vous ignoré.
-                    }
-                }
-            });
-
-        } catch (Exception ignored) {
-            // En cas d'erreur, les données correspondantes resteront vides.
-        }
-    }
-
-    // -------------------- Accès aux données --------------------
-
-    public List<Doctor> getAllDoctors() {
-        return new ArrayList<>(doctors.values());
-    }
-
-    public List<Patient> getAllPatients() {
-        return new ArrayList<>(patients.values());
-    }
-
-    public List<Appointment> getAllAppointments() {
-        return new ArrayList<>(appointments.values());
-    }
-
-    public Doctor getDoctorById(String id) {
-        return doctors.get(id);
-    }
-
-    public Doctor getDoctorByEmail(String email) {
-        if (email == null)
-            return null;
-        return doctors.values().stream()
-                .filter(d -> d.getEmail() != null && d.getEmail().equalsIgnoreCase(email))
-                .findFirst().orElse(null);
-    }
-
-    public Patient getPatientById(String id) {
-        return patients.get(id);
-    }
-
-    public Patient getPatientByEmail(String email) {
-        if (email == null)
-            return null;
-        return patients.values().stream()
-                .filter(p -> p.getEmail() != null && p.getEmail().equalsIgnoreCase(email))
-                .findFirst().orElse(null);
-    }
-
-    public Appointment getAppointmentById(String id) {
-        return appointments.get(id);
-    }
-
-    // -------------------- Recherches --------------------
-
-    public List<Doctor> findDoctorsByWilayaAndCity(String wilaya, String city) {
-        return doctors.values().stream()
-                .filter(d -> d.getWilaya() != null && d.getCity() != null)
-                .filter(d -> d.getWilaya().equalsIgnoreCase(wilaya) && d.getCity().equalsIgnoreCase(city))
-                .collect(Collectors.toList());
-    }
-
-    public List<Doctor> findDoctorsBySpecialty(String specialty) {
-        return doctors.values().stream()
-                .filter(d -> d.getSpeciality() != null)
-                .filter(d -> d.getSpeciality().equalsIgnoreCase(specialty))
-                .collect(Collectors.toList());
-    }
-
-    public List<String> getAllWilayas() {
-        return wilayas.keySet().stream()
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
-    }
-
-    public List<String> getCitiesByWilaya(String wilayaName) {
-        Wilaya wilaya = wilayas.get(wilayaName);
-        if (wilaya == null)
-            return Collections.emptyList();
-
-        return wilaya.getCities().stream()
-                .map(GeographicComponent::getName)
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
-    }
-
-    public boolean isValidCityForWilaya(String wilaya, String city) {
-        if (!wilayas.containsKey(wilaya))
-            return false;
-
-        return wilayas.get(wilaya).getCities().stream()
-                .anyMatch(c -> c.getName().equalsIgnoreCase(city));
-    }
-
-    public List<String> getAllSpecialties() {
-        return specialties.values().stream()
-                .map(Specialty::getName)
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
-    }
-
-    public boolean isValidSpecialty(String specialtyName) {
-        return specialties.values().stream()
-                .anyMatch(s -> s.getName() != null && s.getName().equalsIgnoreCase(specialtyName));
-    }
-
-    public List<Appointment> getAppointmentsByPatientId(String patientId) {
-        return appointments.values().stream()
-                .filter(a -> a.getPatientId().equals(patientId))
-                .sorted((a1, a2) -> a2.getDateTime().compareTo(a1.getDateTime()))
-                .collect(Collectors.toList());
-    }
-
-    public List<Appointment> getAppointmentsByDoctorId(String doctorId) {
-        return appointments.values().stream()
-                .filter(a -> a.getDoctorId().equals(doctorId))
-                .sorted((a1, a2) -> a2.getDateTime().compareTo(a1.getDateTime()))
-                .collect(Collectors.toList());
-    }
-
-    // -------------------- Création / mise à jour des rendez-vous
-    // --------------------
-
-    public Appointment createAppointment(Appointment appointment) {
-        String newId = "APP" + (appointments.size() + 1);
-        appointment.setId(newId);
-        appointments.put(newId, appointment);
-
-        Patient patient = patients.get(appointment.getPatientId());
-        if (patient != null) {
-            patient.addAppointment(appointment);
-        }
-
-        return appointment;
-    }
-
-    public boolean updateAppointmentStatus(String appointmentId, Appointment.Status newStatus) {
-        Appointment appointment = appointments.get(appointmentId);
-        if (appointment != null) {
-            appointment.setStatus(newStatus);
-            return true;
-        }
-        return false;
-    }
-
-    public boolean cancelAppointment(String appointmentId) {
-        return updateAppointmentStatus(appointmentId, Appointment.Status.CANCELLED);
-    }
-
-    public boolean confirmAppointment(String appointmentId) {
-        Appointment appointment = appointments.get(appointmentId);
-        if (appointment == null)
-            return false;
-
-        if (appointment.getStatus() == Appointment.Status.CANCELLED ||
-                appointment.getStatus() == Appointment.Status.COMPLETED) {
-            return false;
-        }
-
-        if (appointment.getStatus() != Appointment.Status.PENDING)
-            return false;
-
-        appointment.setStatus(Appointment.Status.CONFIRMED);
-        return true;
-    }
-
-    public boolean rescheduleAppointment(String appointmentId, LocalDateTime newDateTime) {
-        Appointment appointment = appointments.get(appointmentId);
-        if (appointment == null)
-            return false;
-
-        if (appointment.getStatus() == Appointment.Status.CANCELLED ||
-                appointment.getStatus() == Appointment.Status.COMPLETED) {
-            return false;
-        }
-
-        appointment.setDateTime(newDateTime);
-        appointment.setStatus(Appointment.Status.RESCHEDULED);
-        return true;
-    }
-
-    public boolean completeAppointment(String appointmentId) {
-        Appointment appointment = appointments.get(appointmentId);
-        if (appointment == null)
-            return false;
-
-        if (appointment.getStatus() == Appointment.Status.CANCELLED ||
-                appointment.getStatus() == Appointment.Status.COMPLETED ||
-                appointment.getStatus() == Appointment.Status.PENDING) {
-            return false;
-        }
-
-        if (appointment.getStatus() != Appointment.Status.CONFIRMED &&
-                appointment.getStatus() != Appointment.Status.RESCHEDULED &&
-                appointment.getStatus() != Appointment.Status.SCHEDULED) {
-            return false;
-        }
-
-        appointment.setStatus(Appointment.Status.COMPLETED);
-        return true;
-    }
-
-    // -------------------- Authentification --------------------
-
-    public boolean validateDoctorCredentials(String email, String password) {
-        Doctor doctor = getDoctorByEmail(email);
-        return doctor != null
-                && doctor.getPasswordHash() != null
-                && doctor.getPasswordHash().equals(password);
-    }
-
-    public boolean validatePatientCredentials(String email, String password) {
-        Patient patient = getPatientByEmail(email);
-        return patient != null
-                && patient.getPasswordHash() != null
-                && patient.getPasswordHash().equals(password);
-    }
-
-    // -------------------- Disponibilités --------------------
-
-    public boolean isDoctorAvailable(String doctorId, LocalDateTime dateTime) {
-        Doctor doctor = getDoctorById(doctorId);
-        if (doctor == null)
-            return false;
-
-        String timeSlot = dateTime.toLocalTime().format(DateTimeFormatter.ofPattern("HH:mm"));
-        return doctor.getAvailableSlots() != null && doctor.getAvailableSlots().contains(timeSlot);
-    }
-}
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.*;
+import com.carelink.demo.repository.csv.CsvLoadReport;
+import com.carelink.demo.repository.csv.CsvRowMapper;
+import com.carelink.demo.repository.csv.MappedCsvLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Dépôt de données basé sur des fichiers CSV (chargés depuis le classpath).
+ * Cette classe centralise l'accès aux médecins, patients, rendez-vous, wilayas
+ * et spécialités.
+ *
+ * Elle est implémentée en Singleton afin de charger les fichiers une seule
+ * fois.
+ *
+ * Les mutations de rendez-vous sont rendues durables par un journal binaire
+ * (voir {@link AppointmentJournal}) rejoué au démarrage par-dessus les CSV.
+ * Configuration (propriétés système) :
+ * carelink.journal.path, carelink.journal.fsync (ALWAYS, GROUP, NONE) et
+ * carelink.journal.groupCommitMillis.
+ *
+ * Un snapshot binaire (voir {@link RepositorySnapshot}) est écrit
+ * périodiquement et à l'arrêt : au démarrage, s'il a été construit à partir
+ * des fichiers CSV actuels (empreintes identiques), il remplace leur lecture
+ * et seule la fin du journal est rejouée. Configuration : carelink.snapshot.path
+ * et carelink.snapshot.intervalSeconds (0 désactive l'écriture périodique).
+ *
+ * L'annuaire (médecins, wilayas / villes) est une version
+ * ({@link ReferenceData}) remplacée d'un bloc au rechargement ; les
+ * inscriptions et modifications de profil s'y appliquent en place, sans la
+ * reconstruire. Avec carelink.data.watch=true,
+ * les fichiers doctors.csv et cities.csv du dossier carelink.data.dir sont
+ * surveillés et rechargés en arrière-plan sans redémarrage.
+ *
+ * Le repository est partagé entre les threads des requêtes : les données sont
+ * dans des maps concurrentes, les créneaux sont réservés sans verrou (CAS du
+ * {@link SlotCalendar}) et les transitions des rendez-vous sont sérialisées
+ * par médecin.
+ */
+public class CsvDataRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvDataRepository.class);
+
+    /** Instance unique (thread-safe) du repository. */
+    private static volatile CsvDataRepository instance;
+
+    /** Patients (fichiers et inscriptions) par identifiant et par email. */
+    private final IdentityRegistry<Patient> patients = new IdentityRegistry<>(Patient::getId, Patient::getEmail);
+    private final Map<String, Appointment> appointments = new ConcurrentHashMap<>();
+    private final Map<String, Specialty> specialties = new ConcurrentHashMap<>();
+
+    /** Version publiée de l'annuaire, remplacée d'un bloc au rechargement. */
+    private volatile ReferenceData reference = ReferenceData.EMPTY;
+
+    /**
+     * Médecins de la version publiée, par identifiant et par email (tenu à
+     * jour à chaque publication).
+     */
+    private final IdentityRegistry<Doctor> doctorRegistry = new IdentityRegistry<>(Doctor::getId, Doctor::getEmail);
+
+    /** Index inversé wilaya / ville / spécialité de la version publiée. */
+    private volatile DoctorIndex doctorIndex = DoctorIndex.build(List.of());
+
+    /** Index spatial (centres des villes) de la version publiée. */
+    private volatile GeoIndex geoIndex = GeoIndex.build(List.of(), List.of());
+
+    /** Index d'autocomplétion (noms, spécialités, villes) de la version publiée. */
+    private volatile AutocompleteIndex autocompleteIndex = AutocompleteIndex.build(List.of(), List.of(), List.of());
+
+    /** Sérialise les publications de l'annuaire (rechargement, inscription, profil). */
+    private final Object referenceLock = new Object();
+
+    /** Médecins inscrits à l'exécution : absents des fichiers, conservés au rechargement. */
+    private final Set<String> runtimeDoctorIds = ConcurrentHashMap.newKeySet();
+
+    /** Compteurs des identifiants "Dnnn" / "Pnnn" attribués aux inscriptions. */
+    private final AtomicLong doctorIdSequence = new AtomicLong();
+    private final AtomicLong patientIdSequence = new AtomicLong();
+
+    /** Fichiers de l'annuaire rechargeables à chaud. */
+    private static final Set<String> RELOADABLE_FILES = Set.of("doctors.csv", "cities.csv");
+
+    /** Fichiers CSV dont est issu l'état du repository. */
+    private static final List<String> DATA_FILES = List.of("specialties.csv", "cities.csv", "doctors.csv",
+            "patients.csv", "appointments.csv");
+
+    /** Délai sans nouvel événement avant de recharger (écriture terminée). */
+    private static final long RELOAD_QUIET_MILLIS = 500L;
+
+    /** Wilaya, ville, puis (facultatif) latitude et longitude du centre. */
+    private static final CsvRowMapper<City> CITY_ROW = row -> {
+        row.requireColumns(2);
+        return new City(row.get(1), row.get(0), coordinate(row.get(2, "")), coordinate(row.get(3, "")));
+    };
+
+    private static final CsvRowMapper<Doctor> DOCTOR_ROW = row -> {
+        row.requireColumns(11);
+        return new Doctor(
+                row.get(0), row.get(1), row.get(2), row.get(3),
+                row.get(4), row.get(5), row.get(6),
+                row.get(7), row.get(8), row.get(9), row.get(10));
+    };
+
+    /** Ordre chronologique (l'identifiant départage les rendez-vous simultanés). */
+    private static final Comparator<Appointment> BY_DATE_TIME = Comparator
+            .comparing(Appointment::getDateTime)
+            .thenComparing(Appointment::getId);
+
+    /** Index secondaires : rendez-vous par médecin / par patient, triés par date. */
+    private final Map<String, NavigableSet<Appointment>> appointmentsByDoctor = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Appointment>> appointmentsByPatient = new ConcurrentHashMap<>();
+
+    /**
+     * Verrous par médecin : les mutations des rendez-vous d'un même médecin
+     * (et leur ordre dans le journal) sont sérialisées, celles de médecins
+     * différents s'exécutent en parallèle.
+     */
+    private final StripedLocks doctorLocks = new StripedLocks(64);
+
+    /**
+     * Partagé par les mutations des rendez-vous (application, journal et
+     * éventuelle annulation), exclusif pour la capture d'un snapshot : la
+     * copie correspond exactement à la position du journal lue avec elle.
+     */
+    private final ReentrantReadWriteLock mutationLock = new ReentrantReadWriteLock();
+
+    /** Compteur des identifiants "APPn" attribués à l'exécution. */
+    private final AtomicLong appointmentSequence = new AtomicLong();
+
+    /** Notifiés après chaque rechargement à chaud de l'annuaire. */
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+
+    /** Notifiés quand un créneau d'un médecin est libéré (annulation, report, échéance). */
+    private final List<Consumer<Doctor>> slotListeners = new CopyOnWriteArrayList<>();
+
+    /** Échéances des rendez-vous et réservations temporaires (null pendant le chargement). */
+    private final AppointmentLifecycle lifecycle;
+
+    /** Listes d'attente par médecin et par jour (null pendant le chargement). */
+    private final SlotWaitlist waitlist;
+
+    /** Rapports du chargement CSV (par fichier). */
+    private final Map<String, CsvLoadReport> loadReports = new LinkedHashMap<>();
+
+    /** Journal des mutations de rendez-vous (null si indisponible). */
+    private AppointmentJournal journal;
+
+    /** Fichier du snapshot binaire. */
+    private final Path snapshotPath = Path.of(
+            System.getProperty("carelink.snapshot.path", "data/repository.snapshot"));
+
+    /** Position du journal couverte par le snapshot chargé (0 : rejeu complet). */
+    private long snapshotJournalPosition = 0L;
+
+    /**
+     * Empreinte de la version de chaque fichier CSV reflétée en mémoire
+     * (écrite dans le snapshot) ; un fichier absent n'y figure pas tant que
+     * sa version chargée est inconnue.
+     */
+    private final Map<String, Long> sourceFingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Constructeur privé : force l'utilisation du Singleton.
+     * Charge les données au premier accès, puis rejoue le journal. Aucun
+     * thread n'est lancé ici (voir {@link #start()}).
+     */
+    private CsvDataRepository() {
+        loadAllData();
+        openJournal();
+        appointmentSequence.set(highestAppointmentNumber());
+        doctorIdSequence.set(reference.doctors().size());
+        patientIdSequence.set(patients.size());
+        lifecycle = new AppointmentLifecycle(this, this::slotFreed);
+        lifecycle.trackAll(appointments.values());
+        waitlist = new SlotWaitlist(this, lifecycle);
+    }
+
+    /**
+     * Lance les tâches de fond (échéances, snapshots, surveillance des
+     * fichiers), une fois le repository entièrement construit : aucune ne
+     * peut voir un objet à moitié initialisé.
+     */
+    private void start() {
+        lifecycle.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "carelink-repository-shutdown"));
+        scheduleSnapshots();
+        watchDataFiles();
+    }
+
+    /**
+     * Retourne l'instance unique du repository (double-check locking).
+     */
+    public static CsvDataRepository getInstance() {
+        if (instance == null) {
+            synchronized (CsvDataRepository.class) {
+                if (instance == null) {
+                    CsvDataRepository repository = new CsvDataRepository();
+                    repository.start();
+                    instance = repository;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Charge les données : depuis le snapshot s'il est valide et à jour, sinon
+     * depuis l'ensemble des fichiers CSV.
+     */
+    private void loadAllData() {
+        if (loadSnapshot()) {
+            return;
+        }
+        loadSpecialties();
+        publish(new ReferenceData(1L, loadCsv("doctors.csv", DOCTOR_ROW), loadCsv("cities.csv", CITY_ROW)));
+        loadPatients();
+        loadAppointments();
+    }
+
+    /**
+     * Charge un fichier de données avec {@link MappedCsvLoader} et journalise
+     * les lignes rejetées.
+     *
+     * Le fichier est cherché d'abord dans le dossier externe
+     * "carelink.data.dir" (propriété système), sinon dans le classpath
+     * ("data/"). Les fichiers présents sur disque sont projetés en mémoire.
+     *
+     * @return objets construits, ou liste vide si le fichier est illisible
+     */
+    private <T> List<T> loadCsv(String fileName, CsvRowMapper<T> mapper) {
+        try {
+            return readCsv(fileName, mapper);
+        } catch (IOException e) {
+            // En cas d'erreur, les données correspondantes resteront vides.
+            log.error("Unable to read data file {}", fileName, e);
+            sourceFingerprints.put(fileName, RepositorySnapshot.MISSING_SOURCE);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Analyse un fichier de données et enregistre son rapport de chargement
+     * et l'empreinte de la version lue.
+     *
+     * @throws IOException si le fichier est illisible
+     */
+    private <T> List<T> readCsv(String fileName, CsvRowMapper<T> mapper) throws IOException {
+        ByteBuffer data = openDataFile(fileName);
+        MappedCsvLoader.Result<T> result = MappedCsvLoader.load(fileName, data, mapper);
+        sourceFingerprints.put(fileName, RepositorySnapshot.fingerprint(data));
+        CsvLoadReport report = result.report();
+        synchronized (loadReports) {
+            loadReports.put(fileName, report);
+        }
+
+        if (report.hasRejections()) {
+            log.warn("{}", report);
+            for (CsvLoadReport.Rejection rejection : report.getRejections()) {
+                log.warn("{} line {}: {} [{}]", fileName, rejection.line(), rejection.reason(), rejection.raw());
+            }
+        } else {
+            log.debug("{}", report);
+        }
+        return result.records();
+    }
+
+    /**
+     * Ouvre un fichier de données : dossier externe, sinon classpath.
+     */
+    private ByteBuffer openDataFile(String fileName) throws IOException {
+        String dataDir = System.getProperty("carelink.data.dir");
+        if (dataDir != null && !dataDir.isBlank()) {
+            Path external = Path.of(dataDir, fileName);
+            if (Files.isRegularFile(external)) {
+                return MappedCsvLoader.map(external);
+            }
+        }
+
+        ClassPathResource resource = new ClassPathResource("data/" + fileName);
+        if (resource.isFile()) {
+            return MappedCsvLoader.map(resource.getFile().toPath());
+        }
+        // Ressource dans un jar : pas de projection possible, lecture en mémoire
+        try (InputStream in = resource.getInputStream()) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    /**
+     * Charge les spécialités depuis "data/specialties.csv".
+     */
+    private void loadSpecialties() {
+        List<Specialty> loaded = loadCsv("specialties.csv", row -> {
+            row.requireColumns(2);
+            return new Specialty(row.get(0), row.get(1));
+        });
+        loaded.forEach(this::putSpecialty);
+    }
+
+    /**
+     * Charge les patients depuis "data/patients.csv".
+     */
+    private void loadPatients() {
+        List<Patient> loaded = loadCsv("patients.csv", row -> {
+            row.requireColumns(8);
+            return new Patient(
+                    row.get(0), row.get(1), row.get(2), row.get(3),
+                    row.get(4), row.get(5), row.get(6),
+                    row.get(7), row.get(8, ""));
+        });
+        loaded.forEach(this::putPatient);
+    }
+
+    /**
+     * Charge les rendez-vous depuis "data/appointments.csv" et les rattache aux
+     * patients.
+     * Le champ dateTime est parsé au format "yyyy-MM-dd'T'HH:mm".
+     */
+    private void loadAppointments() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+        List<Appointment> loaded = loadCsv("appointments.csv", row -> {
+            row.requireColumns(5);
+
+            String raw = row.get(4).toUpperCase();
+            Appointment.Status status;
+
+            // Harmonisation d'un ancien état si présent dans les CSV
+            if ("SCHEDULED".equals(raw)) {
+                status = Appointment.Status.CONFIRMED;
+            } else {
+                status = Appointment.Status.valueOf(raw);
+            }
+
+            return new Appointment(
+                    row.get(0),
+                    row.get(1),
+                    row.get(2),
+                    LocalDateTime.parse(row.get(3), formatter),
+                    status);
+        });
+
+        loaded.forEach(this::putAppointment);
+    }
+
+    // Insertion commune au chargement CSV et au snapshot
+
+    private void putSpecialty(Specialty specialty) {
+        specialties.put(specialty.getId(), specialty);
+    }
+
+    private void putPatient(Patient patient) {
+        patients.put(patient);
+    }
+
+    /**
+     * Ajoute un rendez-vous (chargé ou créé) : index, créneau occupé, lien
+     * patient.
+     */
+    private void putAppointment(Appointment appointment) {
+        appointments.put(appointment.getId(), appointment);
+        indexAppointment(appointment);
+        markSlot(appointment);
+
+        Patient patient = patients.findById(appointment.getPatientId());
+        if (patient != null) {
+            patient.addAppointment(appointment);
+        }
+    }
+
+    /**
+     * Rapports du dernier chargement CSV (lignes acceptées / rejetées), par
+     * fichier.
+     */
+    public Map<String, CsvLoadReport> getLoadReports() {
+        synchronized (loadReports) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(loadReports));
+        }
+    }
+
+    // -------------------- Journal --------------------
+
+    /**
+     * Ouvre le journal des rendez-vous et rejoue les mutations enregistrées.
+     * En cas d'échec, l'application reste utilisable sans durabilité.
+     */
+    private void openJournal() {
+        Path path = Path.of(System.getProperty("carelink.journal.path", "data/appointments.journal"));
+        AppointmentJournal.FsyncPolicy policy = AppointmentJournal.FsyncPolicy.valueOf(
+                System.getProperty("carelink.journal.fsync", "GROUP").trim().toUpperCase());
+        long groupCommitMillis = Long.getLong("carelink.journal.groupCommitMillis", 0L);
+
+        try {
+            AppointmentJournal opened = new AppointmentJournal(path, policy, groupCommitMillis);
+            int replayed = opened.replay(snapshotJournalPosition, this::applyJournalEntry);
+            journal = opened;
+            log.info("Appointment journal {} opened ({} policy, {} records replayed)", path, policy, replayed);
+        } catch (IOException e) {
+            log.error("Appointment journal {} unavailable, mutations will not be durable", path, e);
+        }
+    }
+
+    /**
+     * Applique une mutation rejouée sans la réécrire dans le journal.
+     */
+    private void applyJournalEntry(AppointmentJournal.Entry entry) {
+        switch (entry.type()) {
+            case CREATE: {
+                Appointment appointment = new Appointment(entry.appointmentId(), entry.patientId(),
+                        entry.doctorId(), entry.dateTime(), entry.status());
+                appointment.setNotes(entry.notes());
+
+                Appointment previous = appointments.put(appointment.getId(), appointment);
+                if (previous != null) {
+                    unindexAppointment(previous);
+                    releaseSlot(previous);
+                }
+                indexAppointment(appointment);
+                markSlot(appointment);
+
+                Patient patient = patients.findById(appointment.getPatientId());
+                if (patient != null) {
+                    if (previous != null) {
+                        patient.removeAppointment(previous);
+                    }
+                    patient.addAppointment(appointment);
+                }
+                break;
+            }
+            case STATUS: {
+                Appointment appointment = appointments.get(entry.appointmentId());
+                if (appointment != null) {
+                    changeStatus(appointment, entry.status());
+                }
+                break;
+            }
+            case RESCHEDULE: {
+                Appointment appointment = appointments.get(entry.appointmentId());
+                if (appointment != null) {
+                    releaseSlot(appointment);
+                    unindexAppointment(appointment);
+                    // Une seule version, comme la transition d'origine
+                    Appointment.State current = appointment.getState();
+                    appointment.compareAndSet(current, current.next(entry.dateTime(), entry.status()));
+                    indexAppointment(appointment);
+                    markSlot(appointment);
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Écrit une mutation dans le journal. Appelé sous le verrou du médecin pour
+     * que l'ordre du journal suive l'ordre d'application.
+     *
+     * @return numéro de séquence à passer à {@link #journalSync(long)}
+     * @throws UncheckedIOException si l'écriture échoue (rien n'est écrit :
+     *                              l'appelant annule la mutation en mémoire)
+     */
+    private long journalWrite(AppointmentJournal.Entry entry) {
+        return journalWrite(List.of(entry));
+    }
+
+    /**
+     * Écrit plusieurs mutations d'un seul bloc (toutes ou aucune), sous les
+     * verrous des médecins concernés.
+     *
+     * @see #journalWrite(AppointmentJournal.Entry)
+     */
+    private long journalWrite(List<AppointmentJournal.Entry> entries) {
+        if (journal == null)
+            return 0;
+        try {
+            return journal.write(entries);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            throw new UncheckedIOException("Appointment could not be persisted",
+                    e.getCause() instanceof IOException io ? io : new IOException(e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Attend la durabilité d'une mutation (hors verrou : les écrivains
+     * concurrents partagent le même fsync).
+     *
+     * @throws UncheckedIOException si le fsync a échoué (la mutation est
+     *                              appliquée et écrite, sa durabilité n'est
+     *                              pas garantie)
+     */
+    private void journalSync(long seq) {
+        if (journal == null || seq <= 0)
+            return;
+        try {
+            journal.sync(seq);
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException("Appointment durability could not be confirmed", e.getCause());
+        }
+    }
+
+    /**
+     * Plus grand numéro n des identifiants "APPn" existants (au moins le
+     * nombre de rendez-vous, pour rester compatible avec l'ancien schéma).
+     */
+    private long highestAppointmentNumber() {
+        long highest = appointments.size();
+        for (String id : appointments.keySet()) {
+            if (id.startsWith("APP")) {
+                try {
+                    highest = Math.max(highest, Long.parseLong(id.substring(3)));
+                } catch (NumberFormatException ignored) {
+                    // Identifiant d'un autre format
+                }
+            }
+        }
+        return highest;
+    }
+
+    // -------------------- Snapshot --------------------
+
+    /**
+     * Charge le snapshot binaire s'il existe, est valide et a été construit à
+     * partir des fichiers CSV actuels (dossier externe ou classpath) : les
+     * empreintes qu'il enregistre sont comparées à celles des fichiers.
+     *
+     * @return false si les CSV doivent être lus
+     */
+    private boolean loadSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return false;
+        }
+        try {
+            Map<String, Long> current = dataFingerprints();
+            if (!current.equals(RepositorySnapshot.readSources(snapshotPath))) {
+                log.info("Data files changed since snapshot {}, loading CSV files", snapshotPath);
+                return false;
+            }
+
+            RepositorySnapshot.Contents contents = RepositorySnapshot.read(snapshotPath);
+            contents.specialties().forEach(this::putSpecialty);
+            publish(new ReferenceData(1L, contents.doctors(), contents.cities()));
+            runtimeDoctorIds.addAll(contents.runtimeDoctorIds());
+            contents.patients().forEach(this::putPatient);
+            contents.appointments().forEach(this::putAppointment);
+            snapshotJournalPosition = contents.journalPosition();
+            sourceFingerprints.putAll(current);
+
+            log.info("Repository loaded from snapshot {} ({} doctors, {} patients, {} appointments)",
+                    snapshotPath, reference.doctors().size(), patients.size(), appointments.size());
+            return true;
+
+        } catch (IOException e) {
+            log.warn("Snapshot {} unusable, loading CSV files", snapshotPath, e);
+            specialties.clear();
+            publish(ReferenceData.EMPTY);
+            patients.clear();
+            appointments.clear();
+            appointmentsByDoctor.clear();
+            appointmentsByPatient.clear();
+            return false;
+        }
+    }
+
+    /** Empreinte actuelle de chaque fichier CSV, là où il serait lu. */
+    private Map<String, Long> dataFingerprints() {
+        Map<String, Long> fingerprints = new HashMap<>();
+        for (String fileName : DATA_FILES) {
+            long fingerprint;
+            try {
+                fingerprint = RepositorySnapshot.fingerprint(openDataFile(fileName));
+            } catch (IOException e) {
+                fingerprint = RepositorySnapshot.MISSING_SOURCE;
+            }
+            fingerprints.put(fileName, fingerprint);
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Écrit un snapshot de l'état courant.
+     *
+     * La position du journal et la copie des rendez-vous sont prises
+     * ensemble, entre deux mutations (verrou exclusif {@link #mutationLock}) :
+     * le snapshot contient exactement les mutations qui précèdent cette
+     * position, aucune mutation annulée faute d'avoir été journalisée.
+     * L'écriture du fichier se fait ensuite sans bloquer les mutations.
+     */
+    public synchronized void writeSnapshot() {
+        try {
+            long position;
+            List<Appointment> copies = new ArrayList<>(appointments.size());
+            mutationLock.writeLock().lock();
+            try {
+                position = journal == null ? 0L : journal.position();
+                for (Appointment appointment : appointments.values()) {
+                    copies.add(appointment.copy());
+                }
+            } finally {
+                mutationLock.writeLock().unlock();
+            }
+            ReferenceData current = reference;
+
+            RepositorySnapshot.write(snapshotPath, new RepositorySnapshot.Contents(
+                    new ArrayList<>(specialties.values()), current.cities(),
+                    new ArrayList<>(current.doctorList()), Set.copyOf(runtimeDoctorIds),
+                    new ArrayList<>(patients.values()), copies, position, Map.copyOf(sourceFingerprints)));
+            log.debug("Snapshot {} written (journal position {})", snapshotPath, position);
+
+        } catch (IOException e) {
+            log.warn("Snapshot {} could not be written", snapshotPath, e);
+        }
+    }
+
+    /** Planifie l'écriture périodique du snapshot (thread démon). */
+    private void scheduleSnapshots() {
+        long interval = Long.getLong("carelink.snapshot.intervalSeconds", 300L);
+        if (interval <= 0) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "repository-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::writeSnapshot, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // -------------------- Rechargement à chaud --------------------
+
+    /**
+     * Démarre la surveillance du dossier carelink.data.dir si
+     * carelink.data.watch vaut true (thread démon).
+     */
+    private void watchDataFiles() {
+        String dataDir = System.getProperty("carelink.data.dir");
+        if (!Boolean.getBoolean("carelink.data.watch") || dataDir == null || dataDir.isBlank()) {
+            return;
+        }
+        Thread watcher = new Thread(() -> runWatcher(Path.of(dataDir)), "data-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Boucle de surveillance : les événements sont regroupés jusqu'à
+     * {@link #RELOAD_QUIET_MILLIS} de calme (fichier entièrement écrit), puis
+     * les fichiers modifiés sont rechargés ensemble.
+     */
+    private void runWatcher(Path dir) {
+        try (WatchService watchService = dir.getFileSystem().newWatchService()) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            log.info("Watching {} for data file changes", dir);
+
+            while (true) {
+                Set<String> changed = new HashSet<>();
+                collectChanges(watchService.take(), changed);
+
+                WatchKey more;
+                while ((more = watchService.poll(RELOAD_QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collectChanges(more, changed);
+                }
+
+                changed.retainAll(RELOADABLE_FILES);
+                if (!changed.isEmpty()) {
+                    reloadReferenceData(changed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ClosedWatchServiceException e) {
+            log.warn("Data file watcher on {} stopped", dir, e);
+        }
+    }
+
+    private static void collectChanges(WatchKey key, Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path file) {
+                changed.add(file.getFileName().toString());
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Recharge les fichiers de l'annuaire indiqués et publie une nouvelle
+     * version.
+     *
+     * Les médecins inchangés sont conservés tels quels ; un médecin modifié
+     * reprend le calendrier et les observateurs de sa version précédente, de
+     * sorte que les réservations (y compris celles en cours) sont préservées.
+     * Les rendez-vous ne sont pas touchés. Une ligne dont l'identifiant est
+     * celui d'un médecin inscrit à l'exécution est ignorée (le compte inscrit
+     * est conservé). Si un fichier est illisible, l'ancienne version reste
+     * en place.
+     */
+    void reloadReferenceData(Set<String> changedFiles) {
+        synchronized (referenceLock) {
+            if (!reloadLocked(changedFiles)) {
+                return;
+            }
+        }
+        writeSnapshot();
+    }
+
+    private boolean reloadLocked(Set<String> changedFiles) {
+        ReferenceData current = reference;
+        List<Doctor> loadedDoctors;
+        List<City> cities;
+        try {
+            loadedDoctors = changedFiles.contains("doctors.csv")
+                    ? readCsv("doctors.csv", DOCTOR_ROW)
+                    : new ArrayList<>(current.doctorList());
+            cities = changedFiles.contains("cities.csv") ? readCsv("cities.csv", CITY_ROW) : current.cities();
+        } catch (IOException e) {
+            log.warn("Reload of {} failed, keeping data version {}", changedFiles, current.version(), e);
+            // Version en mémoire incertaine : le prochain snapshot sera écarté
+            changedFiles.forEach(sourceFingerprints::remove);
+            return false;
+        }
+
+        int added = 0;
+        int changed = 0;
+        int rejected = 0;
+        List<Doctor> doctors = new ArrayList<>(loadedDoctors.size());
+        for (Doctor doctor : loadedDoctors) {
+            if (runtimeDoctorIds.contains(doctor.getId())) {
+                // Le compte inscrit (email, mot de passe, rendez-vous) ne doit pas être repris par le fichier
+                log.warn("doctors.csv row {} ignored: id already assigned to a registered doctor", doctor.getId());
+                rejected++;
+                continue;
+            }
+            Doctor previous = current.doctors().get(doctor.getId());
+            if (previous == null) {
+                markSlots(doctor);
+                added++;
+            } else if (previous != doctor && !sameProfile(previous, doctor)) {
+                doctor.inheritState(previous);
+                changed++;
+            } else {
+                doctor = previous;
+            }
+            doctors.add(doctor);
+        }
+
+        // Les médecins inscrits à l'exécution ne figurent pas dans le fichier
+        Set<String> loadedIds = new HashSet<>();
+        for (Doctor doctor : doctors) {
+            loadedIds.add(doctor.getId());
+        }
+        for (String id : runtimeDoctorIds) {
+            Doctor registered = current.doctors().get(id);
+            if (registered != null && !loadedIds.contains(id)) {
+                doctors.add(registered);
+            }
+        }
+
+        ReferenceData next = new ReferenceData(current.version() + 1, doctors, cities);
+        int removed = 0;
+        for (Doctor doctor : current.doctorList()) {
+            if (next.doctors().get(doctor.getId()) == null) {
+                removed++;
+            }
+        }
+
+        publish(next);
+        for (Runnable listener : reloadListeners) {
+            listener.run();
+        }
+        log.info("Data version {} published from {}: {} doctors ({} added, {} changed, {} removed, {} rejected),"
+                + " {} wilayas", next.version(), changedFiles, next.doctors().size(), added, changed, removed,
+                rejected, next.wilayas().size());
+        return true;
+    }
+
+    /**
+     * Publie une version de l'annuaire, puis met le registre des médecins et
+     * les index de recherche en accord avec elle : une recherche ne renvoie
+     * jamais un médecin que {@link #getDoctorById(String)} ne connaît pas
+     * encore. Appelé au chargement ou sous {@link #referenceLock}.
+     */
+    private void publish(ReferenceData next) {
+        ReferenceData current = reference;
+        DoctorIndex index = DoctorIndex.build(next.doctorList());
+        GeoIndex places = GeoIndex.build(next.doctorList(), next.cities());
+        AutocompleteIndex suggestions = AutocompleteIndex.build(next.doctorList(), next.cities(),
+                specialties.values().stream().map(Specialty::getName).collect(Collectors.toList()));
+        reference = next;
+        for (Doctor doctor : next.doctorList()) {
+            if (doctorRegistry.findById(doctor.getId()) != doctor) {
+                doctorRegistry.put(doctor);
+            }
+        }
+        for (Doctor doctor : current.doctorList()) {
+            if (next.doctors().get(doctor.getId()) != doctor) {
+                doctorRegistry.remove(doctor);
+            }
+        }
+        doctorIndex = index;
+        geoIndex = places;
+        autocompleteIndex = suggestions;
+    }
+
+    /** Marque les créneaux déjà réservés d'un médecin ajouté au rechargement. */
+    private void markSlots(Doctor doctor) {
+        NavigableSet<Appointment> booked = appointmentsByDoctor.get(doctor.getId());
+        if (booked == null) {
+            return;
+        }
+        for (Appointment appointment : booked) {
+            if (holdsSlot(appointment.getStatus())) {
+                LocalDateTime dateTime = appointment.getDateTime();
+                doctor.getCalendar().markBooked(dateTime.toLocalDate(), dateTime.toLocalTime());
+            }
+        }
+    }
+
+    private static boolean sameProfile(Doctor a, Doctor b) {
+        return Objects.equals(a.getFirstName(), b.getFirstName())
+                && Objects.equals(a.getLastName(), b.getLastName())
+                && a.getWilayaCode() == b.getWilayaCode()
+                && a.getCityCode() == b.getCityCode()
+                && Objects.equals(a.getEmail(), b.getEmail())
+                && Objects.equals(a.getPasswordHash(), b.getPasswordHash())
+                && Objects.equals(a.getPhone(), b.getPhone())
+                && Objects.equals(a.getSexe(), b.getSexe())
+                && a.getSpecialityCode() == b.getSpecialityCode()
+                && Objects.equals(a.getLocationLink(), b.getLocationLink());
+    }
+
+    /** Arrêt de la JVM : dernier snapshot, puis fermeture du journal. */
+    private void shutdown() {
+        writeSnapshot();
+        closeJournal();
+    }
+
+    /** Ferme le journal. */
+    private void closeJournal() {
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            log.warn("Appointment journal close failed", e);
+        }
+    }
+
+    // -------------------- Accès aux données --------------------
+
+    /**
+     * Médecins de la version courante de l'annuaire. La liste est partagée et
+     * non modifiable : elle est parcourue sans copie.
+     */
+    public List<Doctor> getAllDoctors() {
+        return reference.doctorList();
+    }
+
+    /**
+     * Enregistre une action exécutée après chaque rechargement à chaud de
+     * l'annuaire (ex: vider un cache de résultats).
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Ajoute un observateur appelé quand un créneau d'un médecin est libéré
+     * (annulation, report, demande expirée, réservation temporaire
+     * abandonnée).
+     */
+    public void addSlotListener(Consumer<Doctor> listener) {
+        slotListeners.add(listener);
+    }
+
+    /**
+     * Un créneau vient d'être libéré : il est proposé au premier patient de
+     * la liste d'attente du jour, puis les observateurs sont notifiés.
+     */
+    private void slotFreed(Doctor doctor, LocalDateTime dateTime) {
+        if (doctor == null)
+            return;
+        if (waitlist != null)
+            waitlist.offer(doctor, dateTime);
+        for (Consumer<Doctor> listener : slotListeners) {
+            listener.accept(doctor);
+        }
+    }
+
+    // -------------------- Listes d'attente --------------------
+
+    /**
+     * Inscrit un patient sur la liste d'attente d'un médecin pour les jours
+     * donnés (remplace son inscription précédente auprès de ce médecin). Le
+     * premier créneau libéré l'un de ces jours lui est réservé
+     * temporairement.
+     *
+     * @throws IllegalArgumentException si le médecin est inconnu
+     */
+    public void joinWaitlist(String doctorId, String patientId, Collection<LocalDate> dates) {
+        if (getDoctorById(doctorId) == null)
+            throw new IllegalArgumentException("Doctor not found");
+        waitlist.subscribe(doctorId, patientId, dates);
+    }
+
+    /**
+     * Retire un patient de la liste d'attente d'un médecin.
+     *
+     * @return false si le patient n'était pas inscrit
+     */
+    public boolean leaveWaitlist(String doctorId, String patientId) {
+        return waitlist.unsubscribe(doctorId, patientId);
+    }
+
+    // -------------------- Réservations temporaires --------------------
+
+    /**
+     * Retient un créneau libre pour un patient, le temps de finaliser la
+     * réservation (durée : carelink.lifecycle.holdSeconds).
+     *
+     * @return la réservation, ou null si le créneau est passé, fermé ou pris
+     * @throws IllegalArgumentException si le médecin est inconnu
+     * @throws IllegalStateException    si le patient a atteint
+     *                                  carelink.lifecycle.maxHoldsPerPatient
+     */
+    public SlotHold holdSlot(String doctorId, String patientId, LocalDateTime dateTime) {
+        Doctor doctor = getDoctorById(doctorId);
+        if (doctor == null)
+            throw new IllegalArgumentException("Doctor not found");
+        return lifecycle.hold(doctor, patientId, dateTime);
+    }
+
+    /**
+     * Consomme une réservation temporaire pour créer le rendez-vous
+     * correspondant (le créneau reste occupé).
+     *
+     * @return false si la réservation a expiré ou ne correspond pas
+     */
+    public boolean claimHold(String holdId, String patientId, String doctorId, LocalDateTime dateTime) {
+        return lifecycle.claim(holdId, patientId, doctorId, dateTime);
+    }
+
+    /** Abandonne une réservation temporaire du patient et libère son créneau. */
+    public boolean releaseHold(String holdId, String patientId) {
+        return lifecycle.releaseHold(holdId, patientId);
+    }
+
+    /** Version de l'annuaire (change à chaque rechargement). */
+    public long getDataVersion() {
+        return reference.version();
+    }
+
+    public List<Patient> getAllPatients() {
+        return new ArrayList<>(patients.values());
+    }
+
+    public List<Appointment> getAllAppointments() {
+        return new ArrayList<>(appointments.values());
+    }
+
+    public Doctor getDoctorById(String id) {
+        return reference.doctors().get(id);
+    }
+
+    public Doctor getDoctorByEmail(String email) {
+        return doctorRegistry.findByEmail(email);
+    }
+
+    public Patient getPatientById(String id) {
+        return patients.findById(id);
+    }
+
+    public Patient getPatientByEmail(String email) {
+        return patients.findByEmail(email);
+    }
+
+    // -------------------- Inscriptions / Profils --------------------
+
+    /**
+     * Inscrit un médecin : identifiant "Dnnn" attribué, email réservé de
+     * façon atomique, puis médecin ajouté à l'annuaire courant (en O(1),
+     * sans nouvelle version) et enfin aux index de recherche.
+     *
+     * @throws IllegalArgumentException si l'email est déjà utilisé
+     */
+    public Doctor registerDoctor(Doctor doctor) {
+        synchronized (referenceLock) {
+            do {
+                doctor.setId("D" + String.format("%03d", doctorIdSequence.incrementAndGet()));
+            } while (doctorRegistry.findById(doctor.getId()) != null);
+
+            if (!doctorRegistry.register(doctor))
+                throw new IllegalArgumentException("Email already registered");
+
+            runtimeDoctorIds.add(doctor.getId());
+            reference.doctors().put(doctor);
+            doctorIndex.add(doctor);
+            geoIndex.put(doctor);
+            autocompleteIndex.putDoctor(doctor);
+        }
+        return doctor;
+    }
+
+    /**
+     * Inscrit un patient : identifiant "Pnnn" attribué et email réservé de
+     * façon atomique.
+     *
+     * @throws IllegalArgumentException si l'email est déjà utilisé
+     */
+    public Patient registerPatient(Patient patient) {
+        do {
+            patient.setId("P" + String.format("%03d", patientIdSequence.incrementAndGet()));
+        } while (patients.findById(patient.getId()) != null);
+
+        synchronized (patients) {
+            if (!patients.register(patient))
+                throw new IllegalArgumentException("Email already registered");
+        }
+        return patient;
+    }
+
+    /**
+     * Enregistre le profil d'un médecin existant.
+     *
+     * Le médecin publié n'est pas modifié en place : le profil reçu est
+     * copié, la copie reprend son calendrier et ses observateurs, puis le
+     * remplace à sa position dans l'annuaire courant (en O(1), sans nouvelle
+     * version), dans le registre et enfin dans les index. Un mot de passe
+     * vide conserve l'ancien.
+     *
+     * @return false si le médecin est inconnu ou si le nouvel email est déjà
+     *         utilisé par un autre compte (rien n'est alors modifié)
+     */
+    public boolean updateDoctorProfile(Doctor doctor) {
+        synchronized (referenceLock) {
+            DoctorDirectory doctors = reference.doctors();
+            Doctor existing = doctors.get(doctor.getId());
+            if (existing == null)
+                return false;
+
+            // Les inscriptions passent aussi par referenceLock : l'email reste libre
+            Doctor holder = doctorRegistry.findByEmail(doctor.getEmail());
+            if (holder != null && holder != existing)
+                return false;
+
+            Doctor updated = doctor.copy();
+            if (updated.getPasswordHash() == null || updated.getPasswordHash().isEmpty())
+                updated.setPasswordHash(existing.getPasswordHash());
+            updated.inheritState(existing);
+
+            doctors.put(updated);
+            doctorRegistry.put(updated);
+            doctorIndex.update(updated);
+            geoIndex.put(updated);
+            autocompleteIndex.putDoctor(updated);
+            return true;
+        }
+    }
+
+    /**
+     * Enregistre le profil d'un patient existant (les champs de
+     * {@code patient} sont recopiés si ce n'est pas l'instance enregistrée).
+     * Le nouvel email est vérifié avant toute modification.
+     *
+     * @return false si le patient est inconnu ou si le nouvel email est déjà
+     *         utilisé par un autre compte (rien n'est alors modifié)
+     */
+    public boolean updatePatientProfile(Patient patient) {
+        synchronized (patients) {
+            Patient existing = patients.findById(patient.getId());
+            if (existing == null)
+                return false;
+
+            // Les inscriptions passent aussi par ce moniteur : l'email reste libre
+            Patient holder = patients.findByEmail(patient.getEmail());
+            if (holder != null && holder != existing)
+                return false;
+
+            if (existing != patient) {
+                existing.setFirstName(patient.getFirstName());
+                existing.setLastName(patient.getLastName());
+                existing.setEmail(patient.getEmail());
+                existing.setPhone(patient.getPhone());
+                existing.setSexe(patient.getSexe());
+                existing.setWilaya(patient.getWilaya());
+                existing.setCity(patient.getCity());
+
+                if (patient.getPasswordHash() != null && !patient.getPasswordHash().isEmpty()) {
+                    existing.setPasswordHash(patient.getPasswordHash());
+                }
+            }
+
+            patients.reindex(existing);
+            return true;
+        }
+    }
+
+    public Appointment getAppointmentById(String id) {
+        return appointments.get(id);
+    }
+
+    // -------------------- Recherches --------------------
+
+    public List<Doctor> findDoctorsByWilayaAndCity(String wilaya, String city) {
+        return findDoctors(wilaya, city, null);
+    }
+
+    public List<Doctor> findDoctorsBySpecialty(String specialty) {
+        return findDoctors(null, null, specialty);
+    }
+
+    /**
+     * Recherche multi-critères par l'index inversé : intersection des
+     * bitmaps des critères renseignés (null ou vide : pas de filtre), puis
+     * matérialisation des seuls résultats. Comparaison sans casse.
+     */
+    public List<Doctor> findDoctors(String wilaya, String city, String specialty) {
+        return doctorIndex.find(criterion(Wilaya.NAMES, wilaya), criterion(City.NAMES, city),
+                criterion(Specialty.NAMES, specialty));
+    }
+
+    /**
+     * Page des médecins correspondant aux critères (mêmes règles que
+     * {@link #findDoctors(String, String, String)}), par identifiant
+     * croissant, qui suit {@code cursor}.
+     *
+     * L'annuaire trié par identifiant est lu à partir du curseur, médecin
+     * par médecin, jusqu'à remplir la page : environ {@code limit * n / m}
+     * médecins lus pour m résultats sur n. Quand ce parcours dépasserait les
+     * m résultats (critères très sélectifs), la page est prise parmi les
+     * résultats de l'index ({@link DoctorPage#of}).
+     *
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    public DoctorPage findDoctorPage(String wilaya, String city, String specialty, String cursor, int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("Page size must be positive");
+        String after = DoctorPage.decodeCursor(cursor);
+        int w = criterion(Wilaya.NAMES, wilaya);
+        int c = criterion(City.NAMES, city);
+        int s = criterion(Specialty.NAMES, specialty);
+
+        long matches = doctorIndex.count(w, c, s);
+        if (matches == 0)
+            return new DoctorPage(List.of(), null);
+        DoctorDirectory doctors = reference.doctors();
+        if ((long) limit * doctors.size() > matches * matches)
+            return DoctorPage.of(doctorIndex.find(w, c, s), cursor, limit);
+
+        List<Doctor> following = new ArrayList<>(limit + 1);
+        for (Doctor doctor : doctors.after(after)) {
+            if ((w == DoctorIndex.ANY || doctor.getWilayaCode() == w)
+                    && (c == DoctorIndex.ANY || doctor.getCityCode() == c)
+                    && (s == DoctorIndex.ANY || doctor.getSpecialityCode() == s)) {
+                following.add(doctor);
+                if (following.size() > limit)
+                    break;
+            }
+        }
+        return DoctorPage.ofSorted(following, limit);
+    }
+
+    /**
+     * Nombre de médecins correspondant aux critères (mêmes règles que
+     * {@link #findDoctors(String, String, String)}), sans construire la liste.
+     * Sert d'estimation de sélectivité.
+     */
+    public int countDoctors(String wilaya, String city, String specialty) {
+        return doctorIndex.count(criterion(Wilaya.NAMES, wilaya), criterion(City.NAMES, city),
+                criterion(Specialty.NAMES, specialty));
+    }
+
+    /**
+     * Nombre de médecins qui proposent chaque jour le créneau {@code time}
+     * (d'après leurs horaires, sans tenir compte des réservations), lu sur
+     * les compteurs de l'index.
+     */
+    public int countDoctorsOpenAt(LocalTime time) {
+        return doctorIndex.countOpen(SlotCalendar.slotIndex(time));
+    }
+
+    /**
+     * Nombre de médecins par wilaya, ville et spécialité ; chaque facette est
+     * filtrée par les critères renseignés sur les deux autres (null ou vide :
+     * pas de filtre). Calculé sur les compteurs de l'index, sans parcourir
+     * l'annuaire.
+     */
+    public FacetCounts getFacetCounts(String wilaya, String city, String specialty) {
+        DoctorIndex.Facets facets = doctorIndex.facets(criterion(Wilaya.NAMES, wilaya), criterion(City.NAMES, city),
+                criterion(Specialty.NAMES, specialty));
+        return new FacetCounts(named(facets.byWilaya(), Wilaya.NAMES), named(facets.byCity(), City.NAMES),
+                named(facets.bySpecialty(), Specialty.NAMES));
+    }
+
+    /** Comptes par code -> comptes par nom, du plus grand au plus petit (puis par nom). */
+    private static Map<String, Integer> named(Map<Integer, Integer> counts, NameDictionary dictionary) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.size());
+        for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+            entries.add(Map.entry(dictionary.name(count.getKey()), count.getValue()));
+        }
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        Map<String, Integer> named = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            named.put(entry.getKey(), entry.getValue());
+        }
+        return named;
+    }
+
+    /**
+     * Premiers créneaux libres des médecins correspondant aux critères
+     * (mêmes règles que {@link #findDoctors(String, String, String)}), à
+     * partir de {@code from} et sur {@code days} jours, par ordre
+     * chronologique.
+     */
+    public List<AvailableSlot> findFirstAvailableSlots(String wilaya, String city, String specialty,
+            LocalDateTime from, int days, int limit) {
+        return FirstAvailableSearch.find(findDoctors(wilaya, city, specialty), from, days, limit);
+    }
+
+    /**
+     * Les {@code k} médecins les mieux classés d'une spécialité et d'une
+     * wilaya (filtres facultatifs), du meilleur score au moins bon. La ville
+     * n'est pas un filtre mais une préférence : les médecins d'autres villes
+     * restent classés, avec un score de localisation qui décroît avec la
+     * distance. Voir {@link DoctorRanker} pour le calcul du score.
+     */
+    public List<RankedDoctor> rankDoctors(String wilaya, String city, String specialty, LocalDateTime now, int k) {
+        return DoctorRanker.rank(findDoctors(wilaya, null, specialty), geoIndex,
+                criterion(Wilaya.NAMES, wilaya), criterion(City.NAMES, city), now, k);
+    }
+
+    /**
+     * Les {@code k} médecins les plus proches d'un point (filtre de spécialité
+     * facultatif), du plus proche au plus éloigné. Un médecin est situé au
+     * centre de sa ville, ou de sa wilaya si la ville n'a pas de coordonnées.
+     */
+    public List<NearbyDoctor> findNearestDoctors(double latitude, double longitude, String specialty, int k) {
+        return geoIndex.nearest(latitude, longitude, criterion(Specialty.NAMES, specialty), k);
+    }
+
+    /**
+     * Les {@code k} médecins les plus proches du centre d'une ville (ou de la
+     * wilaya si la ville est absente ou sans coordonnées).
+     *
+     * @throws IllegalArgumentException si le lieu n'a pas de coordonnées
+     */
+    public List<NearbyDoctor> findNearestDoctors(String wilaya, String city, String specialty, int k) {
+        double[] centre = geoIndex.locate(Wilaya.NAMES.find(wilaya), City.NAMES.find(city));
+        if (centre == null) {
+            throw new IllegalArgumentException("Unknown location: " + wilaya + (city == null ? "" : " / " + city));
+        }
+        return findNearestDoctors(centre[0], centre[1], specialty, k);
+    }
+
+    /**
+     * Suggestions d'autocomplétion (médecins, spécialités, villes) pour une
+     * saisie partielle ou approximative.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        return autocompleteIndex.suggest(query, limit);
+    }
+
+    /** Coordonnée d'une colonne facultative (NaN si vide). */
+    private static double coordinate(String value) {
+        return value.isEmpty() ? Double.NaN : Double.parseDouble(value);
+    }
+
+    private static int criterion(NameDictionary dictionary, String value) {
+        return value == null || value.isEmpty() ? DoctorIndex.ANY : dictionary.find(value);
+    }
+
+    public List<String> getAllWilayas() {
+        return reference.wilayas().keySet().stream()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    public List<String> getCitiesByWilaya(String wilayaName) {
+        Wilaya wilaya = reference.wilayas().get(wilayaName);
+        if (wilaya == null)
+            return Collections.emptyList();
+
+        return wilaya.getCities().stream()
+                .map(GeographicComponent::getName)
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isValidCityForWilaya(String wilaya, String city) {
+        Wilaya known = reference.wilayas().get(wilaya);
+        if (known == null)
+            return false;
+
+        return known.getCities().stream()
+                .anyMatch(c -> c.getName().equalsIgnoreCase(city));
+    }
+
+    public List<String> getAllSpecialties() {
+        return specialties.values().stream()
+                .map(Specialty::getName)
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isValidSpecialty(String specialtyName) {
+        return specialties.values().stream()
+                .anyMatch(s -> s.getName() != null && s.getName().equalsIgnoreCase(specialtyName));
+    }
+
+    /** Rendez-vous d'un patient, du plus récent au plus ancien. */
+    public List<Appointment> getAppointmentsByPatientId(String patientId) {
+        NavigableSet<Appointment> set = appointmentsByPatient.get(patientId);
+        return set == null ? new ArrayList<>() : new ArrayList<>(set.descendingSet());
+    }
+
+    /** Rendez-vous d'un médecin, du plus récent au plus ancien. */
+    public List<Appointment> getAppointmentsByDoctorId(String doctorId) {
+        NavigableSet<Appointment> set = appointmentsByDoctor.get(doctorId);
+        return set == null ? new ArrayList<>() : new ArrayList<>(set.descendingSet());
+    }
+
+    /**
+     * Rendez-vous d'un médecin dans l'intervalle [from, to), par ordre
+     * chronologique. Coût : O(log n + k).
+     */
+    public List<Appointment> getAppointmentsByDoctorIdBetween(String doctorId, LocalDateTime from, LocalDateTime to) {
+        return range(appointmentsByDoctor.get(doctorId), from, to);
+    }
+
+    /**
+     * Rendez-vous d'un patient dans l'intervalle [from, to), par ordre
+     * chronologique. Coût : O(log n + k).
+     */
+    public List<Appointment> getAppointmentsByPatientIdBetween(String patientId, LocalDateTime from, LocalDateTime to) {
+        return range(appointmentsByPatient.get(patientId), from, to);
+    }
+
+    private static List<Appointment> range(NavigableSet<Appointment> set, LocalDateTime from, LocalDateTime to) {
+        if (set == null || !from.isBefore(to))
+            return new ArrayList<>();
+        return new ArrayList<>(set.subSet(probe(from), true, probe(to), false));
+    }
+
+    /**
+     * Borne de recherche : l'identifiant vide précède tous les rendez-vous de
+     * la même date.
+     */
+    private static Appointment probe(LocalDateTime dateTime) {
+        return new Appointment("", null, null, dateTime, null);
+    }
+
+    /** Ajoute un rendez-vous aux index médecin / patient. */
+    private void indexAppointment(Appointment appointment) {
+        appointmentsByDoctor.computeIfAbsent(appointment.getDoctorId(), k -> new ConcurrentSkipListSet<>(BY_DATE_TIME))
+                .add(appointment);
+        appointmentsByPatient.computeIfAbsent(appointment.getPatientId(), k -> new ConcurrentSkipListSet<>(BY_DATE_TIME))
+                .add(appointment);
+    }
+
+    /**
+     * Retire un rendez-vous des index (à appeler avant toute modification de
+     * sa date, qui sert de clé de tri).
+     */
+    private void unindexAppointment(Appointment appointment) {
+        NavigableSet<Appointment> byDoctor = appointmentsByDoctor.get(appointment.getDoctorId());
+        if (byDoctor != null)
+            byDoctor.remove(appointment);
+        NavigableSet<Appointment> byPatient = appointmentsByPatient.get(appointment.getPatientId());
+        if (byPatient != null)
+            byPatient.remove(appointment);
+    }
+
+    // -------------------- Création / mise à jour des rendez-vous
+    // --------------------
+
+    /** @see #createAppointments(List) */
+    public Appointment createAppointment(Appointment appointment) {
+        createAppointments(List.of(appointment));
+        return appointment;
+    }
+
+    /**
+     * Crée plusieurs rendez-vous, tout ou rien, et attend une seule fois leur
+     * durabilité (un fsync pour tout le lot au lieu d'un par rendez-vous).
+     *
+     * Le lot est appliqué en mémoire sous les verrous de tous ses médecins,
+     * puis journalisé en une seule écriture. Si elle échoue, les rendez-vous
+     * du lot sont retirés avant de rendre la main : aucun n'a été journalisé
+     * ni ne reste visible. Les créneaux, réservés par l'appelant, restent à
+     * sa charge.
+     *
+     * @throws UncheckedIOException si le lot n'a pas pu être journalisé (rien
+     *                              n'est créé), ou si son fsync a échoué (le
+     *                              lot est créé et écrit dans le journal)
+     */
+    public List<Appointment> createAppointments(List<Appointment> batch) {
+        List<String> doctorIds = new ArrayList<>(batch.size());
+        for (Appointment appointment : batch) {
+            doctorIds.add(appointment.getDoctorId());
+        }
+        List<ReentrantLock> locks = doctorLocks.locksFor(doctorIds);
+        locks.forEach(ReentrantLock::lock);
+        mutationLock.readLock().lock();
+        long seq;
+        try {
+            List<AppointmentJournal.Entry> entries = new ArrayList<>(batch.size());
+            int applied = 0;
+            try {
+                for (Appointment appointment : batch) {
+                    appointment.setId("APP" + appointmentSequence.incrementAndGet());
+                    putAppointment(appointment);
+                    applied++;
+                    entries.add(AppointmentJournal.Entry.create(appointment));
+                }
+                seq = journalWrite(entries);
+            } catch (RuntimeException e) {
+                for (Appointment appointment : batch.subList(0, applied)) {
+                    removeAppointment(appointment);
+                }
+                throw e;
+            }
+
+            if (lifecycle != null) {
+                for (Appointment appointment : batch) {
+                    lifecycle.track(appointment);
+                }
+            }
+        } finally {
+            mutationLock.readLock().unlock();
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+        journalSync(seq);
+        return batch;
+    }
+
+    /**
+     * Retire un rendez-vous non journalisé (map, index, lien patient) ; son
+     * créneau n'est pas libéré.
+     */
+    private void removeAppointment(Appointment appointment) {
+        appointments.remove(appointment.getId(), appointment);
+        unindexAppointment(appointment);
+        Patient patient = patients.findById(appointment.getPatientId());
+        if (patient != null) {
+            patient.removeAppointment(appointment);
+        }
+    }
+
+    /**
+     * Change l'état d'un rendez-vous si la table de transitions de
+     * {@link Appointment.Status} l'autorise.
+     */
+    public boolean updateAppointmentStatus(String appointmentId, Appointment.Status newStatus) {
+        return updateAppointmentStatus(appointmentId, newStatus, null);
+    }
+
+    /**
+     * Comme {@link #updateAppointmentStatus(String, Appointment.Status)}, en
+     * exigeant la version lue par l'appelant.
+     *
+     * @param expectedVersion version attendue, ou null pour ne pas vérifier
+     * @throws ConcurrentModificationException si le rendez-vous a changé
+     *                                         depuis cette version
+     */
+    public boolean updateAppointmentStatus(String appointmentId, Appointment.Status newStatus, Long expectedVersion) {
+        return transition(appointmentId, newStatus, null, expectedVersion);
+    }
+
+    public boolean cancelAppointment(String appointmentId) {
+        return cancelAppointment(appointmentId, null);
+    }
+
+    /** @see #updateAppointmentStatus(String, Appointment.Status, Long) */
+    public boolean cancelAppointment(String appointmentId, Long expectedVersion) {
+        return transition(appointmentId, Appointment.Status.CANCELLED, null, expectedVersion);
+    }
+
+    public boolean confirmAppointment(String appointmentId) {
+        return confirmAppointment(appointmentId, null);
+    }
+
+    /** @see #updateAppointmentStatus(String, Appointment.Status, Long) */
+    public boolean confirmAppointment(String appointmentId, Long expectedVersion) {
+        return transition(appointmentId, Appointment.Status.CONFIRMED, null, expectedVersion);
+    }
+
+    public boolean rescheduleAppointment(String appointmentId, LocalDateTime newDateTime) {
+        return rescheduleAppointment(appointmentId, newDateTime, null);
+    }
+
+    /** @see #updateAppointmentStatus(String, Appointment.Status, Long) */
+    public boolean rescheduleAppointment(String appointmentId, LocalDateTime newDateTime, Long expectedVersion) {
+        return transition(appointmentId, Appointment.Status.RESCHEDULED, newDateTime, expectedVersion);
+    }
+
+    public boolean completeAppointment(String appointmentId) {
+        return completeAppointment(appointmentId, null);
+    }
+
+    /** @see #updateAppointmentStatus(String, Appointment.Status, Long) */
+    public boolean completeAppointment(String appointmentId, Long expectedVersion) {
+        return transition(appointmentId, Appointment.Status.COMPLETED, null, expectedVersion);
+    }
+
+    /**
+     * Applique une transition : le nouvel état (date/heure, statut, version)
+     * remplace l'ancien par compare-and-set.
+     *
+     * Une version périmée ou une transition interdite échoue sans prendre de
+     * verrou. Sinon, la transition est appliquée sous le verrou du médecin,
+     * qui ordonne les effets de bord (créneaux, index, journal) dans l'ordre
+     * des versions.
+     *
+     * @param newDateTime nouvelle date/heure (report), ou null pour la garder
+     * @return false si le rendez-vous n'existe pas, si la transition est
+     *         interdite ou si le nouveau créneau est pris
+     * @throws ConcurrentModificationException si {@code expectedVersion} n'est
+     *                                         plus la version courante
+     */
+    private boolean transition(String appointmentId, Appointment.Status target, LocalDateTime newDateTime,
+            Long expectedVersion) {
+        long seq = applyTransition(appointmentId, target, newDateTime, expectedVersion);
+        if (seq < 0)
+            return false;
+        journalSync(seq);
+        return true;
+    }
+
+    /**
+     * Applique une transition sans attendre le fsync du journal.
+     *
+     * @return numéro de séquence à passer à {@link #journalSync(long)}, ou -1
+     *         si la transition n'a pas été appliquée
+     */
+    private long applyTransition(String appointmentId, Appointment.Status target, LocalDateTime newDateTime,
+            Long expectedVersion) {
+        Appointment appointment = appointments.get(appointmentId);
+        if (appointment == null)
+            return -1;
+        if (!isApplicable(appointment.getState(), target, expectedVersion))
+            return -1;
+
+        ReentrantLock lock = doctorLocks.lockFor(appointment.getDoctorId());
+        lock.lock();
+        mutationLock.readLock().lock();
+        try {
+            PendingTransition pending = prepareTransition(appointment, target, newDateTime, expectedVersion);
+            if (pending == null)
+                return -1;
+
+            long seq;
+            try {
+                seq = journalWrite(pending.entry());
+            } catch (UncheckedIOException e) {
+                undoTransition(pending);
+                throw e;
+            }
+            completeTransition(pending);
+            return seq;
+        } finally {
+            mutationLock.readLock().unlock();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Transition appliquée en mémoire mais pas encore journalisée.
+     *
+     * @param previous état remplacé
+     * @param next     nouvel état
+     * @param moved    la date/heure change (report)
+     */
+    private record PendingTransition(Appointment appointment, Doctor doctor, Appointment.State previous,
+            Appointment.State next, boolean moved, AppointmentJournal.Entry entry) {
+    }
+
+    /**
+     * Applique une transition en mémoire : nouveau créneau réservé, état
+     * remplacé par compare-and-set, index mis à jour. Appelé sous le verrou
+     * du médecin et {@link #mutationLock} ; l'ancien créneau n'est libéré
+     * que par {@link #completeTransition(PendingTransition)}.
+     *
+     * @return la transition à journaliser, ou null si elle est interdite ou
+     *         si le nouveau créneau est pris
+     * @throws ConcurrentModificationException si {@code expectedVersion} n'est
+     *                                         plus la version courante
+     */
+    private PendingTransition prepareTransition(Appointment appointment, Appointment.Status target,
+            LocalDateTime newDateTime, Long expectedVersion) {
+        Appointment.State current = appointment.getState();
+        if (!isApplicable(current, target, expectedVersion))
+            return null;
+
+        LocalDateTime dateTime = newDateTime != null ? newDateTime : current.dateTime();
+        Appointment.State next = current.next(dateTime, target);
+        boolean moved = !dateTime.equals(current.dateTime());
+
+        // Réserve d'abord le nouveau créneau
+        Doctor doctor = reference.doctors().get(appointment.getDoctorId());
+        if (moved && doctor != null && holdsSlot(target)
+                && !doctor.getCalendar().tryBook(dateTime.toLocalDate(), dateTime.toLocalTime()))
+            return null;
+
+        if (moved)
+            unindexAppointment(appointment);
+        if (!appointment.compareAndSet(current, next)) {
+            // Écriture hors verrou (rejeu) : on annule la réservation
+            if (moved) {
+                indexAppointment(appointment);
+                if (doctor != null && holdsSlot(target))
+                    doctor.releaseSlot(dateTime.toLocalDate(), dateTime.toLocalTime());
+            }
+            throw new ConcurrentModificationException("Appointment " + appointment.getId() + " was modified");
+        }
+        if (moved)
+            indexAppointment(appointment);
+
+        AppointmentJournal.Entry entry = moved
+                ? AppointmentJournal.Entry.reschedule(appointment.getId(), dateTime, target)
+                : AppointmentJournal.Entry.status(appointment.getId(), target);
+        return new PendingTransition(appointment, doctor, current, next, moved, entry);
+    }
+
+    /** Rétablit l'état précédent d'une transition non journalisée et rend son nouveau créneau. */
+    private void undoTransition(PendingTransition pending) {
+        Appointment appointment = pending.appointment();
+        if (pending.moved())
+            unindexAppointment(appointment);
+        appointment.compareAndSet(pending.next(), pending.previous());
+        if (pending.moved()) {
+            indexAppointment(appointment);
+            LocalDateTime dateTime = pending.next().dateTime();
+            if (pending.doctor() != null && holdsSlot(pending.next().status()))
+                pending.doctor().releaseSlot(dateTime.toLocalDate(), dateTime.toLocalTime());
+        }
+    }
+
+    /** Suite d'une transition journalisée : échéances, puis libération de l'ancien créneau. */
+    private void completeTransition(PendingTransition pending) {
+        if (lifecycle != null)
+            lifecycle.track(pending.appointment());
+
+        Appointment.State previous = pending.previous();
+        Doctor doctor = pending.doctor();
+        boolean released = pending.moved() || !holdsSlot(pending.next().status());
+        if (doctor != null && holdsSlot(previous.status()) && released) {
+            doctor.releaseSlot(previous.dateTime().toLocalDate(), previous.dateTime().toLocalTime());
+            slotFreed(doctor, previous.dateTime());
+        }
+    }
+
+    /**
+     * Applique un lot de transitions (guichet d'une clinique).
+     *
+     * Les opérations d'un même médecin sont appliquées en mémoire dans
+     * l'ordre du lot, sous une seule prise de son verrou et de
+     * {@link #mutationLock}, puis journalisées en une seule écriture ; si
+     * elle échoue, toutes les opérations du groupe sont annulées et échouent.
+     * Les anciens créneaux ne sont libérés qu'après cette écriture : une
+     * opération ne peut pas reprendre un créneau libéré par une autre du
+     * même lot. Le journal n'est synchronisé qu'une fois pour tout le lot ;
+     * si ce fsync échoue, les opérations appliquées sont marquées
+     * {@link OperationResult#DURABILITY_UNCONFIRMED}.
+     *
+     * @return un résultat par opération, dans l'ordre du lot
+     */
+    public List<OperationResult> applyTransitions(List<AppointmentOperation> operations) {
+        OperationResult[] results = new OperationResult[operations.size()];
+
+        // Opérations regroupées par médecin (ordre du lot conservé dans chaque groupe)
+        Map<String, List<Integer>> byDoctor = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            Appointment appointment = appointments.get(operations.get(i).appointmentId());
+            if (appointment == null) {
+                results[i] = OperationResult.failed(operations.get(i).appointmentId(), "Appointment not found");
+                continue;
+            }
+            byDoctor.computeIfAbsent(appointment.getDoctorId(), d -> new ArrayList<>()).add(i);
+        }
+
+        long seq = 0;
+        for (Map.Entry<String, List<Integer>> group : byDoctor.entrySet()) {
+            seq = Math.max(seq, applyGroup(group.getValue(), operations, results));
+        }
+
+        try {
+            journalSync(seq);
+        } catch (UncheckedIOException e) {
+            log.warn("Batch of {} operations applied but not confirmed durable", operations.size(), e);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i].success())
+                    results[i] = results[i].unconfirmed();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Applique les opérations d'un médecin (positions {@code positions} du
+     * lot) et les journalise d'un bloc.
+     *
+     * @return numéro de séquence de l'écriture, 0 si rien n'a été écrit
+     */
+    private long applyGroup(List<Integer> positions, List<AppointmentOperation> operations,
+            OperationResult[] results) {
+        String doctorId = appointments.get(operations.get(positions.get(0)).appointmentId()).getDoctorId();
+        ReentrantLock lock = doctorLocks.lockFor(doctorId);
+        lock.lock();
+        mutationLock.readLock().lock();
+        try {
+            List<PendingTransition> pending = new ArrayList<>(positions.size());
+            List<Integer> applied = new ArrayList<>(positions.size());
+            for (int i : positions) {
+                AppointmentOperation operation = operations.get(i);
+                try {
+                    PendingTransition transition = prepareTransition(appointments.get(operation.appointmentId()),
+                            operation.target(), operation.newDateTime(), operation.expectedVersion());
+                    if (transition == null) {
+                        results[i] = OperationResult.failed(operation.appointmentId(),
+                                "Operation could not be applied");
+                    } else {
+                        pending.add(transition);
+                        applied.add(i);
+                    }
+                } catch (ConcurrentModificationException e) {
+                    results[i] = OperationResult.failed(operation.appointmentId(), e.getMessage());
+                }
+            }
+            if (pending.isEmpty())
+                return 0;
+
+            List<AppointmentJournal.Entry> entries = new ArrayList<>(pending.size());
+            for (PendingTransition transition : pending) {
+                entries.add(transition.entry());
+            }
+            long seq;
+            try {
+                seq = journalWrite(entries);
+            } catch (UncheckedIOException e) {
+                // Annulées dans l'ordre inverse : un rendez-vous peut figurer deux fois
+                for (int j = pending.size() - 1; j >= 0; j--) {
+                    undoTransition(pending.get(j));
+                    results[applied.get(j)] = OperationResult.failed(pending.get(j).appointment().getId(),
+                            e.getMessage());
+                }
+                return 0;
+            }
+
+            for (int j = 0; j < pending.size(); j++) {
+                PendingTransition transition = pending.get(j);
+                completeTransition(transition);
+                results[applied.get(j)] = OperationResult.applied(transition.appointment().getId(), transition.next());
+            }
+            return seq;
+        } finally {
+            mutationLock.readLock().unlock();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Vérifie la version attendue et la table de transitions.
+     *
+     * @throws ConcurrentModificationException si la version ne correspond pas
+     */
+    private static boolean isApplicable(Appointment.State state, Appointment.Status target, Long expectedVersion) {
+        if (expectedVersion != null && state.version() != expectedVersion) {
+            throw new ConcurrentModificationException(
+                    "Appointment version is " + state.version() + ", expected " + expectedVersion);
+        }
+        return state.status() != null && state.status().canTransitionTo(target);
+    }
+
+    // -------------------- Authentification --------------------
+
+    public boolean validateDoctorCredentials(String email, String password) {
+        Doctor doctor = getDoctorByEmail(email);
+        return doctor != null
+                && doctor.getPasswordHash() != null
+                && doctor.getPasswordHash().equals(password);
+    }
+
+    public boolean validatePatientCredentials(String email, String password) {
+        Patient patient = getPatientByEmail(email);
+        return patient != null
+                && patient.getPasswordHash() != null
+                && patient.getPasswordHash().equals(password);
+    }
+
+    // -------------------- Disponibilités --------------------
+
+    public boolean isDoctorAvailable(String doctorId, LocalDateTime dateTime) {
+        Doctor doctor = getDoctorById(doctorId);
+        if (doctor == null)
+            return false;
+
+        return doctor.isSlotAvailable(dateTime.toLocalDate(), dateTime.toLocalTime());
+    }
+
+    /** Un rendez-vous occupe son créneau tant qu'il n'est pas annulé. */
+    private static boolean holdsSlot(Appointment.Status status) {
+        return status != Appointment.Status.CANCELLED;
+    }
+
+    /** Marque le créneau d'un rendez-vous comme occupé dans le calendrier du médecin. */
+    private void markSlot(Appointment appointment) {
+        Doctor doctor = reference.doctors().get(appointment.getDoctorId());
+        if (doctor != null && holdsSlot(appointment.getStatus())) {
+            LocalDateTime dateTime = appointment.getDateTime();
+            doctor.getCalendar().markBooked(dateTime.toLocalDate(), dateTime.toLocalTime());
+        }
+    }
+
+    /** Libère le créneau d'un rendez-vous dans le calendrier du médecin. */
+    private void releaseSlot(Appointment appointment) {
+        Doctor doctor = reference.doctors().get(appointment.getDoctorId());
+        if (doctor != null && holdsSlot(appointment.getStatus())) {
+            LocalDateTime dateTime = appointment.getDateTime();
+            doctor.releaseSlot(dateTime.toLocalDate(), dateTime.toLocalTime());
+        }
+    }
+
+    /** Change l'état d'un rendez-vous et met à jour l'occupation de son créneau. */
+    private void changeStatus(Appointment appointment, Appointment.Status newStatus) {
+        boolean held = holdsSlot(appointment.getStatus());
+        if (held && !holdsSlot(newStatus)) {
+            releaseSlot(appointment);
+        }
+        appointment.setStatus(newStatus);
+        if (!held && holdsSlot(newStatus)) {
+            markSlot(appointment);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Doctor;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Médecins d'une version de l'annuaire : accès par identifiant en O(1),
+ * liste dans l'ordre de chargement, partagée sans copie, et parcours par
+ * identifiant croissant à partir d'un curseur (pagination keyset).
+ *
+ * Le répertoire est construit en entier au chargement et au rechargement.
+ * Les inscriptions et les modifications de profil s'y appliquent ensuite en
+ * place, en O(1) amorti : un médecin inscrit est ajouté en fin de tableau,
+ * un profil modifié remplace le médecin à sa position. Les écritures sont
+ * sérialisées par l'appelant ; les lectures se font sans verrou.
+ */
+final class DoctorDirectory {
+
+    /** Position de chaque médecin dans {@link #slots}. */
+    private final ConcurrentHashMap<String, Integer> positions;
+
+    /** Médecins triés par identifiant. */
+    private final ConcurrentSkipListMap<String, Doctor> byId = new ConcurrentSkipListMap<>();
+
+    /** Médecins par position (remplacé par un tableau plus grand si besoin). */
+    private volatile AtomicReferenceArray<Doctor> slots;
+
+    /** Nombre de médecins (écrit après leur position et leur case). */
+    private volatile int size;
+
+    /** Liste des {@link #size} premiers médecins, refaite à chaque ajout. */
+    private volatile List<Doctor> view;
+
+    /**
+     * @param doctors médecins dans l'ordre de chargement (pour un identifiant
+     *                en double, le dernier prend la place du premier)
+     */
+    DoctorDirectory(Collection<Doctor> doctors) {
+        positions = new ConcurrentHashMap<>(Math.max(16, doctors.size() * 4 / 3));
+        AtomicReferenceArray<Doctor> array = new AtomicReferenceArray<>(Math.max(16, doctors.size()));
+        int count = 0;
+        for (Doctor doctor : doctors) {
+            Integer position = positions.putIfAbsent(doctor.getId(), count);
+            if (position != null) {
+                array.set(position, doctor);
+            } else {
+                array.set(count++, doctor);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            byId.put(array.get(i).getId(), array.get(i));
+        }
+        slots = array;
+        size = count;
+        view = new View(array, count);
+    }
+
+    /** Médecin d'identifiant {@code id}, ou null. */
+    Doctor get(String id) {
+        Integer position = id == null ? null : positions.get(id);
+        return position == null ? null : slots.get(position);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Médecins dans l'ordre de chargement (liste non modifiable, partagée).
+     * Une liste déjà obtenue ne contient pas les médecins inscrits après
+     * elle et peut encore montrer l'ancien profil d'un médecin modifié.
+     */
+    List<Doctor> list() {
+        return view;
+    }
+
+    /**
+     * Médecins d'identifiant strictement supérieur à {@code after} (tous si
+     * null), par identifiant croissant ; parcours paresseux, en
+     * O(log n) jusqu'au premier.
+     */
+    Collection<Doctor> after(String after) {
+        return after == null ? byId.values() : byId.tailMap(after, false).values();
+    }
+
+    /**
+     * Ajoute un médecin dont l'identifiant est libre, ou remplace celui de
+     * même identifiant à sa position. Appelé sous le verrou de l'annuaire.
+     */
+    void put(Doctor doctor) {
+        Integer position = positions.get(doctor.getId());
+        byId.put(doctor.getId(), doctor);
+        if (position != null) {
+            slots.set(position, doctor);
+            return;
+        }
+
+        int count = size;
+        AtomicReferenceArray<Doctor> array = slots;
+        if (count == array.length()) {
+            AtomicReferenceArray<Doctor> grown = new AtomicReferenceArray<>(count + (count >> 1) + 1);
+            for (int i = 0; i < count; i++) {
+                grown.set(i, array.get(i));
+            }
+            array = grown;
+            slots = grown;
+        }
+        array.set(count, doctor);
+        positions.put(doctor.getId(), count);
+        size = count + 1;
+        view = new View(array, count + 1);
+    }
+
+    /** Vue des {@code size} premières cases d'un tableau. */
+    private static final class View extends AbstractList<Doctor> implements RandomAccess {
+
+        private final AtomicReferenceArray<Doctor> array;
+        private final int size;
+
+        View(AtomicReferenceArray<Doctor> array, int size) {
+            this.array = array;
+            this.size = size;
+        }
+
+        @Override
+        public Doctor get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            return array.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.SlotCalendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé des médecins : pour chaque code de wilaya, de ville et de
+ * spécialité (voir {@link com.carelink.demo.model.NameDictionary}), l'ensemble
+ * des médecins concernés sous forme de bitmap.
+ *
+ * Chaque médecin reçoit un ordinal (position dans l'index). Une recherche
+ * multi-critères est une intersection de bitmaps, en partant de la plus
+ * petite, puis seuls les médecins trouvés sont matérialisés.
+ *
+ * L'index tient aussi, de façon incrémentale, le nombre de médecins de chaque
+ * combinaison (wilaya, ville, spécialité) présente : les comptes par facette
+ * se calculent sur ces quelques combinaisons, sans parcourir les médecins.
+ * De même, il compte les médecins qui proposent chaque créneau de la
+ * journée (horaires lus à l'indexation du médecin).
+ *
+ * L'index est reconstruit à chaque nouvelle version de l'annuaire et tenu à
+ * jour de façon incrémentale pour les inscriptions et les modifications de
+ * profil. Les lectures se font sous verrou partagé.
+ */
+final class DoctorIndex {
+
+    /** Critère non renseigné : ne filtre pas. */
+    static final int ANY = Integer.MIN_VALUE;
+
+    /** Bitmap vide partagée (critère sans aucun médecin). */
+    private static final BitSet NONE = new BitSet();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Doctor[] doctors = new Doctor[16];
+    private int[] wilayaOf = new int[16];
+    private int[] cityOf = new int[16];
+    private int[] specialtyOf = new int[16];
+    private long[] openingOf = new long[16];
+    private int size;
+
+    /** Nombre de médecins qui proposent chaque créneau de la journée. */
+    private final int[] openAt = new int[SlotCalendar.SLOTS_PER_DAY];
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private BitSet[] byWilaya = new BitSet[0];
+    private BitSet[] byCity = new BitSet[0];
+    private BitSet[] bySpecialty = new BitSet[0];
+
+    /** Nombre de médecins par combinaison (wilaya, ville, spécialité), voir {@link #combination}. */
+    private final Map<Long, int[]> combinations = new HashMap<>();
+
+    /**
+     * Comptes par facette : code -> nombre de médecins.
+     *
+     * @param byWilaya    par wilaya
+     * @param byCity      par ville
+     * @param bySpecialty par spécialité
+     */
+    record Facets(Map<Integer, Integer> byWilaya, Map<Integer, Integer> byCity, Map<Integer, Integer> bySpecialty) {
+    }
+
+    /** Construit l'index d'un ensemble de médecins. */
+    static DoctorIndex build(Collection<Doctor> doctors) {
+        DoctorIndex index = new DoctorIndex();
+        for (Doctor doctor : doctors) {
+            index.addUnlocked(doctor);
+        }
+        return index;
+    }
+
+    // -------------------- Mises à jour --------------------
+
+    /** Ajoute un médecin (ou le remplace s'il est déjà indexé). */
+    void add(Doctor doctor) {
+        lock.writeLock().lock();
+        try {
+            addUnlocked(doctor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Réindexe un médecin après modification de sa wilaya, sa ville ou sa
+     * spécialité (les anciens codes sont conservés par l'index).
+     */
+    void update(Doctor doctor) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(doctor.getId());
+            if (ordinal == null) {
+                addUnlocked(doctor);
+                return;
+            }
+            unindex(ordinal);
+            doctors[ordinal] = doctor;
+            index(ordinal, doctor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addUnlocked(Doctor doctor) {
+        Integer existing = ordinals.get(doctor.getId());
+        if (existing != null) {
+            unindex(existing);
+            doctors[existing] = doctor;
+            index(existing, doctor);
+            return;
+        }
+
+        if (size == doctors.length) {
+            int capacity = size * 2;
+            doctors = Arrays.copyOf(doctors, capacity);
+            wilayaOf = Arrays.copyOf(wilayaOf, capacity);
+            cityOf = Arrays.copyOf(cityOf, capacity);
+            specialtyOf = Arrays.copyOf(specialtyOf, capacity);
+            openingOf = Arrays.copyOf(openingOf, capacity);
+        }
+        int ordinal = size++;
+        doctors[ordinal] = doctor;
+        ordinals.put(doctor.getId(), ordinal);
+        live.set(ordinal);
+        index(ordinal, doctor);
+    }
+
+    private void index(int ordinal, Doctor doctor) {
+        wilayaOf[ordinal] = doctor.getWilayaCode();
+        cityOf[ordinal] = doctor.getCityCode();
+        specialtyOf[ordinal] = doctor.getSpecialityCode();
+        openingOf[ordinal] = doctor.getCalendar().getOpeningMask();
+        countOpenings(openingOf[ordinal], 1);
+
+        byWilaya = set(byWilaya, wilayaOf[ordinal], ordinal);
+        byCity = set(byCity, cityOf[ordinal], ordinal);
+        bySpecialty = set(bySpecialty, specialtyOf[ordinal], ordinal);
+
+        combinations.computeIfAbsent(combination(ordinal), k -> new int[1])[0]++;
+    }
+
+    private void unindex(int ordinal) {
+        clear(byWilaya, wilayaOf[ordinal], ordinal);
+        clear(byCity, cityOf[ordinal], ordinal);
+        clear(bySpecialty, specialtyOf[ordinal], ordinal);
+        countOpenings(openingOf[ordinal], -1);
+
+        long key = combination(ordinal);
+        int[] count = combinations.get(key);
+        if (count != null && --count[0] == 0) {
+            combinations.remove(key);
+        }
+    }
+
+    private void countOpenings(long mask, int delta) {
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            openAt[Long.numberOfTrailingZeros(rest)] += delta;
+        }
+    }
+
+    /** Clé d'une combinaison : trois codes (décalés de 1 pour NONE) sur 21 bits. */
+    private long combination(int ordinal) {
+        return ((long) (wilayaOf[ordinal] + 1) << 42)
+                | ((long) (cityOf[ordinal] + 1) << 21)
+                | (specialtyOf[ordinal] + 1);
+    }
+
+    private static BitSet[] set(BitSet[] postings, int code, int ordinal) {
+        if (code < 0) {
+            return postings;
+        }
+        if (code >= postings.length) {
+            postings = Arrays.copyOf(postings, Math.max(code + 1, postings.length * 2));
+        }
+        if (postings[code] == null) {
+            postings[code] = new BitSet();
+        }
+        postings[code].set(ordinal);
+        return postings;
+    }
+
+    private static void clear(BitSet[] postings, int code, int ordinal) {
+        if (code >= 0 && code < postings.length && postings[code] != null) {
+            postings[code].clear(ordinal);
+        }
+    }
+
+    // -------------------- Recherche --------------------
+
+    /**
+     * Médecins correspondant à tous les critères renseignés (codes de
+     * dictionnaire, ou {@link #ANY}), dans l'ordre de l'index.
+     */
+    List<Doctor> find(int wilayaCode, int cityCode, int specialtyCode) {
+        lock.readLock().lock();
+        try {
+            BitSet hits = match(wilayaCode, cityCode, specialtyCode);
+            List<Doctor> result = new ArrayList<>(hits.cardinality());
+            for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+                result.add(doctors[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre de médecins correspondant aux critères (sans matérialisation). */
+    int count(int wilayaCode, int cityCode, int specialtyCode) {
+        lock.readLock().lock();
+        try {
+            return match(wilayaCode, cityCode, specialtyCode).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre de médecins qui proposent le créneau {@code slot} (index de la journée). */
+    int countOpen(int slot) {
+        if (slot < 0 || slot >= openAt.length) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return openAt[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Comptes par wilaya, ville et spécialité. Chaque facette tient compte
+     * des critères renseignés sur les deux autres (codes, ou {@link #ANY}),
+     * pas du sien : on voit ainsi les autres choix possibles.
+     */
+    Facets facets(int wilayaCode, int cityCode, int specialtyCode) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> wilayas = new HashMap<>();
+            Map<Integer, Integer> cities = new HashMap<>();
+            Map<Integer, Integer> specialties = new HashMap<>();
+            for (Map.Entry<Long, int[]> combination : combinations.entrySet()) {
+                long key = combination.getKey();
+                int wilaya = (int) (key >>> 42) - 1;
+                int city = (int) ((key >>> 21) & 0x1FFFFF) - 1;
+                int specialty = (int) (key & 0x1FFFFF) - 1;
+                int count = combination.getValue()[0];
+
+                boolean wilayaMatches = wilayaCode == ANY || wilaya == wilayaCode;
+                boolean cityMatches = cityCode == ANY || city == cityCode;
+                boolean specialtyMatches = specialtyCode == ANY || specialty == specialtyCode;
+
+                if (cityMatches && specialtyMatches && wilaya >= 0) {
+                    wilayas.merge(wilaya, count, Integer::sum);
+                }
+                if (wilayaMatches && specialtyMatches && city >= 0) {
+                    cities.merge(city, count, Integer::sum);
+                }
+                if (wilayaMatches && cityMatches && specialty >= 0) {
+                    specialties.merge(specialty, count, Integer::sum);
+                }
+            }
+            return new Facets(wilayas, cities, specialties);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Intersection des bitmaps des critères, de la plus petite à la plus grande. */
+    private BitSet match(int wilayaCode, int cityCode, int specialtyCode) {
+        BitSet[] selected = new BitSet[3];
+        int count = 0;
+        if (wilayaCode != ANY) {
+            selected[count++] = postings(byWilaya, wilayaCode);
+        }
+        if (cityCode != ANY) {
+            selected[count++] = postings(byCity, cityCode);
+        }
+        if (specialtyCode != ANY) {
+            selected[count++] = postings(bySpecialty, specialtyCode);
+        }
+        if (count == 0) {
+            return (BitSet) live.clone();
+        }
+
+        Arrays.sort(selected, 0, count, (a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        BitSet hits = (BitSet) selected[0].clone();
+        for (int i = 1; i < count && !hits.isEmpty(); i++) {
+            hits.and(selected[i]);
+        }
+        return hits;
+    }
+
+    private static BitSet postings(BitSet[] postings, int code) {
+        if (code < 0 || code >= postings.length || postings[code] == null) {
+            return NONE;
+        }
+        return postings[code];
+    }
+}
@@ -0,0 +1,138 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.RankedDoctor;
+import com.carelink.demo.model.SlotCalendar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Classement des médecins d'une recherche : seuls les {@code k} meilleurs
+ * sont gardés, dans un tas borné (O(n log k)), l'ensemble des résultats
+ * n'est jamais trié.
+ *
+ * Le score combine, sur un horizon de {@value #HORIZON_DAYS} jours :
+ * <ul>
+ * <li>la proximité du premier créneau libre ;</li>
+ * <li>la charge du médecin (part de ses créneaux ouverts déjà réservés) ;</li>
+ * <li>la proximité de sa ville avec la ville demandée (même ville : 1, puis
+ * décroissance avec la distance entre les centres des villes).</li>
+ * </ul>
+ * Disponibilité et charge se lisent dans les bitmaps journalières du
+ * calendrier de chaque médecin, sans parcourir les rendez-vous.
+ */
+final class DoctorRanker {
+
+    static final int HORIZON_DAYS = 14;
+
+    private static final double SOONNESS_WEIGHT = 0.5;
+    private static final double LOAD_WEIGHT = 0.2;
+    private static final double LOCATION_WEIGHT = 0.3;
+
+    /** Distance (km) à laquelle la qualité de localisation tombe à 1/2. */
+    private static final double HALF_SCORE_DISTANCE_KM = 15.0;
+
+    /** Qualité de localisation d'un médecin dans la même wilaya sans coordonnées. */
+    private static final double SAME_WILAYA_QUALITY = 0.5;
+
+    private static final int HORIZON_MINUTES = HORIZON_DAYS * 24 * 60;
+
+    /** Tas min : le moins bon des k retenus en tête (à score égal, l'identifiant le plus grand). */
+    private static final Comparator<RankedDoctor> WORST_FIRST = Comparator
+            .comparingDouble(RankedDoctor::score)
+            .thenComparing(r -> r.doctor().getId(), Comparator.reverseOrder());
+
+    private DoctorRanker() {
+    }
+
+    /**
+     * Les {@code k} meilleurs médecins, du mieux classé au moins bien classé.
+     *
+     * @param wilayaCode wilaya demandée (code, ou {@link DoctorIndex#ANY})
+     * @param cityCode   ville demandée (code, ou {@link DoctorIndex#ANY})
+     */
+    static List<RankedDoctor> rank(Collection<Doctor> doctors, GeoIndex places, int wilayaCode, int cityCode,
+            LocalDateTime now, int k) {
+        PriorityQueue<RankedDoctor> best = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), WORST_FIRST);
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        double[] origin = cityCode == DoctorIndex.ANY && wilayaCode == DoctorIndex.ANY
+                ? null
+                : places.locate(wilayaCode, cityCode);
+        LocalDate today = now.toLocalDate();
+        int firstSlotToday = FirstAvailableSearch.firstSlotAtOrAfter(now.toLocalTime());
+        int nowMinutes = now.getHour() * 60 + now.getMinute();
+
+        for (Doctor doctor : doctors) {
+            RankedDoctor ranked = score(doctor, places, wilayaCode, cityCode, origin, today, firstSlotToday,
+                    nowMinutes);
+            if (best.size() < k) {
+                best.add(ranked);
+            } else if (WORST_FIRST.compare(ranked, best.peek()) > 0) {
+                best.poll();
+                best.add(ranked);
+            }
+        }
+
+        List<RankedDoctor> result = new ArrayList<>(best);
+        result.sort(WORST_FIRST.reversed());
+        return result;
+    }
+
+    private static RankedDoctor score(Doctor doctor, GeoIndex places, int wilayaCode, int cityCode,
+            double[] origin, LocalDate today, int firstSlotToday, int nowMinutes) {
+        SlotCalendar calendar = doctor.getCalendar();
+        long opening = calendar.getOpeningMask();
+
+        // Disponibilité et charge sur l'horizon
+        LocalDateTime firstAvailable = null;
+        int minutesUntil = HORIZON_MINUTES;
+        int open = 0;
+        int free = 0;
+        LocalDate date = today;
+        for (int day = 0; day < HORIZON_DAYS; day++, date = date.plusDays(1)) {
+            long allowed = day == 0 ? ~0L << firstSlotToday : ~0L;
+            long freeSlots = calendar.freeSlots(date) & allowed;
+            open += Long.bitCount(opening & allowed);
+            free += Long.bitCount(freeSlots);
+            if (firstAvailable == null && freeSlots != 0) {
+                int slot = Long.numberOfTrailingZeros(freeSlots);
+                firstAvailable = date.atTime(SlotCalendar.slotTime(slot));
+                minutesUntil = day * 24 * 60 + slot * 30 - nowMinutes;
+            }
+        }
+        double soonness = firstAvailable == null ? 0.0 : 1.0 - (double) Math.max(0, minutesUntil) / HORIZON_MINUTES;
+        double load = open == 0 ? 1.0 : 1.0 - (double) free / open;
+
+        double score = SOONNESS_WEIGHT * soonness
+                + LOAD_WEIGHT * (1.0 - load)
+                + LOCATION_WEIGHT * location(doctor, places, wilayaCode, cityCode, origin);
+        return new RankedDoctor(doctor, score, firstAvailable, load);
+    }
+
+    /** Qualité de localisation (0 à 1) par rapport à la ville ou la wilaya demandée. */
+    private static double location(Doctor doctor, GeoIndex places, int wilayaCode, int cityCode,
+            double[] origin) {
+        if (wilayaCode == DoctorIndex.ANY && cityCode == DoctorIndex.ANY) {
+            return 1.0;
+        }
+        boolean sameWilaya = wilayaCode == DoctorIndex.ANY || doctor.getWilayaCode() == wilayaCode;
+        if (sameWilaya && (cityCode == DoctorIndex.ANY || doctor.getCityCode() == cityCode)) {
+            return 1.0;
+        }
+        double[] position = origin == null ? null : places.locate(doctor.getWilayaCode(), doctor.getCityCode());
+        if (position == null) {
+            return sameWilaya ? SAME_WILAYA_QUALITY : 0.0;
+        }
+        double distance = GeoIndex.distanceKm(origin[0], origin[1], position[0], position[1]);
+        return HALF_SCORE_DISTANCE_KM / (HALF_SCORE_DISTANCE_KM + distance);
+    }
+}
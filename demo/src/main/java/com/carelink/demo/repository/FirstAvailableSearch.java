@@ -0,0 +1,72 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.AvailableSlot;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.SlotCalendar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recherche des premiers créneaux libres d'un groupe de médecins (déjà
+ * filtré par l'index inversé : spécialité, wilaya, ville).
+ *
+ * Pour chaque date, la disponibilité d'un médecin est un seul {@code long}
+ * (créneaux ouverts et non réservés, voir {@link SlotCalendar#freeSlots}).
+ * Les bitmaps du groupe sont lues une fois par date et réunies par OU : une
+ * date sans aucun créneau libre est écartée d'un coup, sinon les créneaux
+ * de l'union sont parcourus dans l'ordre chronologique. Les rendez-vous ne
+ * sont jamais parcourus.
+ */
+final class FirstAvailableSearch {
+
+    private FirstAvailableSearch() {
+    }
+
+    /**
+     * Les {@code limit} premiers créneaux libres (médecin, date/heure) à partir
+     * de {@code from}, sur {@code days} jours, par ordre chronologique (à
+     * créneau égal, dans l'ordre des médecins).
+     */
+    static List<AvailableSlot> find(List<Doctor> doctors, LocalDateTime from, int days, int limit) {
+        List<AvailableSlot> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        if (doctors.isEmpty() || days <= 0 || limit <= 0) {
+            return result;
+        }
+
+        long[] free = new long[doctors.size()];
+        LocalDate date = from.toLocalDate();
+        long firstDayMask = ~0L << firstSlotAtOrAfter(from.toLocalTime());
+
+        for (int day = 0; day < days && result.size() < limit; day++, date = date.plusDays(1)) {
+            long allowed = day == 0 ? firstDayMask : ~0L;
+
+            long union = 0L;
+            for (int i = 0; i < free.length; i++) {
+                free[i] = doctors.get(i).getCalendar().freeSlots(date) & allowed;
+                union |= free[i];
+            }
+
+            for (long slots = union; slots != 0 && result.size() < limit; slots &= slots - 1) {
+                int slot = Long.numberOfTrailingZeros(slots);
+                long bit = 1L << slot;
+                LocalDateTime dateTime = date.atTime(SlotCalendar.slotTime(slot));
+                for (int i = 0; i < free.length && result.size() < limit; i++) {
+                    if ((free[i] & bit) != 0) {
+                        result.add(new AvailableSlot(doctors.get(i), dateTime));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Premier créneau commençant à {@code time} ou après (48 : aucun ce jour-là). */
+    static int firstSlotAtOrAfter(LocalTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute() + (time.getSecond() > 0 || time.getNano() > 0 ? 1 : 0);
+        return (minutes + 29) / 30;
+    }
+}
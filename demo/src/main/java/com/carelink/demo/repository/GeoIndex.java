@@ -0,0 +1,321 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.City;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.NameDictionary;
+import com.carelink.demo.model.NearbyDoctor;
+import com.carelink.demo.model.Wilaya;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index spatial des médecins, pour les recherches "les k plus proches".
+ *
+ * Un médecin est placé au centre de sa ville (coordonnées de cities.csv) ou,
+ * si sa ville est inconnue, au centre de sa wilaya (moyenne des centres de
+ * ses villes). Les lieux sont rangés dans une grille régulière de cellules de
+ * {@value #CELL_DEGREES} degré ; chaque lieu regroupe ses médecins par code
+ * de spécialité.
+ *
+ * Une recherche parcourt les anneaux de cellules autour du point demandé et
+ * garde les k meilleurs candidats dans un tas ; elle s'arrête dès que les
+ * anneaux restants sont forcément plus loin que le k-ième candidat. Un lieu
+ * plus éloigné que le k-ième candidat est écarté sans examiner ses médecins.
+ *
+ * L'index est reconstruit à chaque nouvelle version de l'annuaire et tenu à
+ * jour pour les inscriptions et les modifications de profil.
+ */
+final class GeoIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    /** Côté d'une cellule de la grille, en degrés (environ 11 km). */
+    private static final double CELL_DEGREES = 0.1;
+
+    /**
+     * Marge appliquée à la distance minimale d'un anneau (approximation
+     * plane d'une distance sur la sphère).
+     */
+    private static final double RING_BOUND_MARGIN = 0.9;
+
+    /** Classement du tas : le candidat le plus éloigné en tête. */
+    private static final Comparator<NearbyDoctor> FARTHEST_FIRST =
+            Comparator.comparingDouble(NearbyDoctor::distanceKm).reversed();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Lieux par clé wilaya/ville (ville {@link NameDictionary#NONE} : centre de la wilaya). */
+    private final Map<Long, Site> sites = new HashMap<>();
+
+    /** Centre de chaque wilaya : latitude, longitude. */
+    private final Map<Integer, double[]> wilayaCentres = new HashMap<>();
+
+    /** Cellule de la grille -> lieux qu'elle contient. */
+    private final Map<Long, List<Site>> grid = new HashMap<>();
+
+    /** Médecin -> lieu et spécialité sous lesquels il est indexé. */
+    private final Map<String, Placement> placements = new HashMap<>();
+
+    /** Étendue de la grille occupée (en cellules). */
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+    private int minCol = Integer.MAX_VALUE;
+    private int maxCol = Integer.MIN_VALUE;
+
+    /** Plus petit cosinus de latitude des lieux (km par degré de longitude). */
+    private double minCos = 1.0;
+
+    private static final class Site {
+        final double latitude;
+        final double longitude;
+        final Map<Integer, Set<Doctor>> bySpecialty = new HashMap<>();
+
+        Site(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    /** Emplacement indexé d'un médecin (l'instance indexée peut avoir été remplacée depuis). */
+    private record Placement(Site site, int specialtyCode, Doctor doctor) {
+    }
+
+    /** Construit l'index d'un annuaire. */
+    static GeoIndex build(Collection<Doctor> doctors, Collection<City> cities) {
+        GeoIndex index = new GeoIndex();
+
+        Map<Integer, double[]> sums = new HashMap<>();
+        for (City city : cities) {
+            if (!city.hasCoordinates()) {
+                continue;
+            }
+            int wilaya = Wilaya.NAMES.code(city.wilaya());
+            long key = key(wilaya, City.NAMES.code(city.getName()));
+            if (!index.sites.containsKey(key)) {
+                index.sites.put(key, index.newSite(city.latitude(), city.longitude()));
+                double[] sum = sums.computeIfAbsent(wilaya, w -> new double[3]);
+                sum[0] += city.latitude();
+                sum[1] += city.longitude();
+                sum[2]++;
+            }
+        }
+        for (Map.Entry<Integer, double[]> sum : sums.entrySet()) {
+            double[] s = sum.getValue();
+            index.wilayaCentres.put(sum.getKey(), new double[] { s[0] / s[2], s[1] / s[2] });
+        }
+
+        for (Doctor doctor : doctors) {
+            index.putUnlocked(doctor);
+        }
+        return index;
+    }
+
+    // -------------------- Mises à jour --------------------
+
+    /** Place (ou replace) un médecin d'après sa wilaya et sa ville actuelles. */
+    void put(Doctor doctor) {
+        lock.writeLock().lock();
+        try {
+            putUnlocked(doctor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putUnlocked(Doctor doctor) {
+        Placement previous = placements.remove(doctor.getId());
+        if (previous != null) {
+            Set<Doctor> doctors = previous.site().bySpecialty.get(previous.specialtyCode());
+            if (doctors != null) {
+                doctors.remove(previous.doctor());
+            }
+        }
+
+        Site site = siteOf(doctor.getWilayaCode(), doctor.getCityCode(), true);
+        if (site == null) {
+            // Ni la ville ni la wilaya n'ont de coordonnées
+            return;
+        }
+        int specialty = doctor.getSpecialityCode();
+        site.bySpecialty.computeIfAbsent(specialty, s -> new LinkedHashSet<>()).add(doctor);
+        placements.put(doctor.getId(), new Placement(site, specialty, doctor));
+    }
+
+    private Site siteOf(int wilayaCode, int cityCode, boolean create) {
+        Site site = sites.get(key(wilayaCode, cityCode));
+        if (site != null) {
+            return site;
+        }
+        double[] centre = wilayaCentres.get(wilayaCode);
+        if (centre == null) {
+            return null;
+        }
+        long key = key(wilayaCode, NameDictionary.NONE);
+        site = sites.get(key);
+        if (site == null && create) {
+            site = newSite(centre[0], centre[1]);
+            sites.put(key, site);
+        }
+        return site != null ? site : new Site(centre[0], centre[1]);
+    }
+
+    private Site newSite(double latitude, double longitude) {
+        Site site = new Site(latitude, longitude);
+        int row = cell(latitude);
+        int col = cell(longitude);
+        grid.computeIfAbsent(cellKey(row, col), c -> new ArrayList<>(1)).add(site);
+
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minCol = Math.min(minCol, col);
+        maxCol = Math.max(maxCol, col);
+        minCos = Math.min(minCos, Math.cos(Math.toRadians(Math.abs(latitude) + CELL_DEGREES)));
+        return site;
+    }
+
+    // -------------------- Recherche --------------------
+
+    /**
+     * Coordonnées du centre d'une ville, ou de sa wilaya si la ville n'est
+     * pas connue (codes de dictionnaire).
+     *
+     * @return latitude et longitude, ou null si le lieu n'est pas situé
+     */
+    double[] locate(int wilayaCode, int cityCode) {
+        lock.readLock().lock();
+        try {
+            Site site = siteOf(wilayaCode, cityCode, false);
+            return site == null ? null : new double[] { site.latitude, site.longitude };
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Les {@code k} médecins les plus proches d'un point, du plus proche au
+     * plus éloigné.
+     *
+     * @param specialtyCode code de spécialité, ou {@link DoctorIndex#ANY}
+     */
+    List<NearbyDoctor> nearest(double latitude, double longitude, int specialtyCode, int k) {
+        lock.readLock().lock();
+        try {
+            PriorityQueue<NearbyDoctor> best = new PriorityQueue<>(Math.max(1, k), FARTHEST_FIRST);
+            if (k > 0 && !grid.isEmpty()) {
+                search(latitude, longitude, specialtyCode, k, best);
+            }
+            List<NearbyDoctor> result = new ArrayList<>(best);
+            result.sort(FARTHEST_FIRST.reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void search(double latitude, double longitude, int specialtyCode, int k,
+            PriorityQueue<NearbyDoctor> best) {
+        int row = cell(latitude);
+        int col = cell(longitude);
+
+        // Premier anneau qui touche la grille, dernier anneau qui la couvre
+        int first = Math.max(Math.max(minRow - row, row - maxRow), Math.max(minCol - col, col - maxCol));
+        int last = Math.max(Math.max(Math.abs(row - minRow), Math.abs(row - maxRow)),
+                Math.max(Math.abs(col - minCol), Math.abs(col - maxCol)));
+        double cos = Math.min(minCos, Math.cos(Math.toRadians(Math.min(90.0, Math.abs(latitude)))));
+        double kmPerRing = CELL_DEGREES * KM_PER_DEGREE * cos * RING_BOUND_MARGIN;
+
+        for (int ring = Math.max(0, first); ring <= last; ring++) {
+            // Tout lieu de cet anneau ou au-delà est à au moins (ring - 1) cellules
+            if (best.size() == k && best.peek().distanceKm() <= (ring - 1) * kmPerRing) {
+                break;
+            }
+            for (int r = Math.max(row - ring, minRow); r <= Math.min(row + ring, maxRow); r++) {
+                boolean edge = r == row - ring || r == row + ring;
+                if (edge) {
+                    for (int c = Math.max(col - ring, minCol); c <= Math.min(col + ring, maxCol); c++) {
+                        visit(r, c, latitude, longitude, specialtyCode, k, best);
+                    }
+                } else {
+                    if (col - ring >= minCol) {
+                        visit(r, col - ring, latitude, longitude, specialtyCode, k, best);
+                    }
+                    if (col + ring <= maxCol) {
+                        visit(r, col + ring, latitude, longitude, specialtyCode, k, best);
+                    }
+                }
+            }
+        }
+    }
+
+    private void visit(int row, int col, double latitude, double longitude, int specialtyCode, int k,
+            PriorityQueue<NearbyDoctor> best) {
+        List<Site> cell = grid.get(cellKey(row, col));
+        if (cell == null) {
+            return;
+        }
+        for (Site site : cell) {
+            double distance = distanceKm(latitude, longitude, site.latitude, site.longitude);
+            if (best.size() == k && distance >= best.peek().distanceKm()) {
+                continue;
+            }
+            if (specialtyCode == DoctorIndex.ANY) {
+                for (Set<Doctor> doctors : site.bySpecialty.values()) {
+                    offer(doctors, distance, k, best);
+                }
+            } else {
+                Set<Doctor> doctors = site.bySpecialty.get(specialtyCode);
+                if (doctors != null) {
+                    offer(doctors, distance, k, best);
+                }
+            }
+        }
+    }
+
+    private static void offer(Set<Doctor> doctors, double distance, int k, PriorityQueue<NearbyDoctor> best) {
+        for (Doctor doctor : doctors) {
+            if (best.size() < k) {
+                best.add(new NearbyDoctor(doctor, distance));
+            } else if (distance < best.peek().distanceKm()) {
+                best.poll();
+                best.add(new NearbyDoctor(doctor, distance));
+            } else {
+                // Tous les médecins d'un lieu sont à la même distance
+                return;
+            }
+        }
+    }
+
+    // -------------------- Utilitaires --------------------
+
+    /** Distance orthodromique (formule de haversine), en km. */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static long key(int wilayaCode, int cityCode) {
+        return ((long) wilayaCode << 32) | (cityCode & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,162 @@
+package com.carelink.demo.repository;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registre concurrent des utilisateurs (médecins ou patients), indexé par
+ * identifiant et par email (sans tenir compte de la casse).
+ *
+ * Les utilisateurs chargés depuis les fichiers et ceux inscrits à
+ * l'exécution sont dans le même registre : une recherche par identifiant ou
+ * par email est en O(1). L'inscription réserve l'email par
+ * {@code putIfAbsent}, ce qui rend la vérification d'unicité atomique.
+ *
+ * @param <T> type d'utilisateur
+ */
+public final class IdentityRegistry<T> {
+
+    private final Function<T, String> idOf;
+    private final Function<T, String> emailOf;
+
+    private final ConcurrentHashMap<String, T> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, T> byEmail = new ConcurrentHashMap<>();
+
+    /**
+     * Email sous lequel chaque identifiant est indexé : les entités étant
+     * modifiées en place, c'est le seul moyen de retrouver l'ancienne clé.
+     */
+    private final ConcurrentHashMap<String, String> indexedEmails = new ConcurrentHashMap<>();
+
+    public IdentityRegistry(Function<T, String> idOf, Function<T, String> emailOf) {
+        this.idOf = idOf;
+        this.emailOf = emailOf;
+    }
+
+    public T findById(String id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    public T findByEmail(String email) {
+        return email == null ? null : byEmail.get(emailKey(email));
+    }
+
+    /**
+     * Inscrit un utilisateur si son email et son identifiant sont libres.
+     *
+     * @return false si l'email ou l'identifiant est déjà pris (rien n'est
+     *         modifié)
+     */
+    public boolean register(T user) {
+        String id = idOf.apply(user);
+        String email = emailOf.apply(user);
+        String key = email == null ? null : emailKey(email);
+
+        if (key != null && byEmail.putIfAbsent(key, user) != null) {
+            return false;
+        }
+        if (byId.putIfAbsent(id, user) != null) {
+            if (key != null) {
+                byEmail.remove(key, user);
+            }
+            return false;
+        }
+        if (email != null) {
+            indexedEmails.put(id, email);
+        }
+        return true;
+    }
+
+    /**
+     * Ajoute ou remplace un utilisateur chargé depuis les données (le premier
+     * utilisateur d'un email en reste le titulaire).
+     */
+    public void put(T user) {
+        String id = idOf.apply(user);
+        T previous = byId.put(id, user);
+        if (previous != null && previous != user) {
+            unindexEmail(id, previous);
+        }
+
+        String email = emailOf.apply(user);
+        if (email != null) {
+            byEmail.putIfAbsent(emailKey(email), user);
+            indexedEmails.put(id, email);
+        }
+    }
+
+    /**
+     * Met à jour l'index après un changement d'email fait en place.
+     *
+     * @return false si le nouvel email appartient à un autre utilisateur
+     *         (l'index n'est pas modifié)
+     */
+    public boolean reindex(T user) {
+        String id = idOf.apply(user);
+        String previous = indexedEmails.get(id);
+        String email = emailOf.apply(user);
+        String previousKey = previous == null ? null : emailKey(previous);
+        String key = email == null ? null : emailKey(email);
+
+        if (!Objects.equals(previousKey, key)) {
+            if (key != null) {
+                T holder = byEmail.putIfAbsent(key, user);
+                if (holder != null && holder != user) {
+                    return false;
+                }
+            }
+            if (previousKey != null) {
+                byEmail.remove(previousKey, user);
+            }
+        }
+
+        if (email != null) {
+            indexedEmails.put(id, email);
+        } else {
+            indexedEmails.remove(id);
+        }
+        return true;
+    }
+
+    /** Email actuellement indexé pour un utilisateur (null s'il n'en a pas). */
+    public String indexedEmail(T user) {
+        return indexedEmails.get(idOf.apply(user));
+    }
+
+    /** Retire un utilisateur (s'il est toujours celui enregistré). */
+    public void remove(T user) {
+        String id = idOf.apply(user);
+        if (byId.remove(id, user)) {
+            unindexEmail(id, user);
+        }
+    }
+
+    /** Vue (non copiée) des utilisateurs enregistrés. */
+    public Collection<T> values() {
+        return byId.values();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void clear() {
+        byId.clear();
+        byEmail.clear();
+        indexedEmails.clear();
+    }
+
+    private void unindexEmail(String id, T user) {
+        String email = indexedEmails.remove(id);
+        if (email != null) {
+            byEmail.remove(emailKey(email), user);
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
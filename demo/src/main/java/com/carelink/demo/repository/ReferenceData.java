@@ -0,0 +1,69 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.City;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.Wilaya;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Version de l'annuaire : médecins et hiérarchie wilayas / villes.
+ *
+ * La hiérarchie n'est jamais modifiée après la construction : le repository
+ * publie une nouvelle version (échange d'une référence volatile) lorsqu'un
+ * fichier est rechargé. Un lecteur qui a obtenu une version la parcourt sans
+ * verrou et ne voit jamais un chargement partiel. Les médecins inscrits ou
+ * modifiés à l'exécution sont appliqués en place à la version courante
+ * (voir {@link DoctorDirectory}), sans la reconstruire.
+ */
+public final class ReferenceData {
+
+    /** Annuaire vide (avant chargement). */
+    static final ReferenceData EMPTY = new ReferenceData(0L, List.of(), List.of());
+
+    private final long version;
+    private final DoctorDirectory doctors;
+    private final Map<String, Wilaya> wilayas;
+    private final List<City> cities;
+
+    ReferenceData(long version, Collection<Doctor> doctors, Collection<City> cities) {
+        this.version = version;
+        this.doctors = new DoctorDirectory(doctors);
+
+        Map<String, Wilaya> wilayasByName = new LinkedHashMap<>();
+        for (City city : cities) {
+            wilayasByName.computeIfAbsent(city.wilaya(), Wilaya::new).addCity(city);
+        }
+        this.wilayas = Collections.unmodifiableMap(wilayasByName);
+        this.cities = List.copyOf(cities);
+    }
+
+    /** Numéro de version (incrémenté à chaque rechargement). */
+    public long version() {
+        return version;
+    }
+
+    /** Médecins par identifiant et dans l'ordre de chargement. */
+    DoctorDirectory doctors() {
+        return doctors;
+    }
+
+    /** Médecins dans l'ordre de chargement (liste non modifiable, partagée). */
+    public List<Doctor> doctorList() {
+        return doctors.list();
+    }
+
+    /** Wilayas par nom (non modifiable). */
+    public Map<String, Wilaya> wilayas() {
+        return wilayas;
+    }
+
+    /** Villes de toutes les wilayas (non modifiable). */
+    public List<City> cities() {
+        return cities;
+    }
+}
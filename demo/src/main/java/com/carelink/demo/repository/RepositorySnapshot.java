@@ -0,0 +1,456 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.City;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.Patient;
+import com.carelink.demo.model.Specialty;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot binaire compact de l'ensemble du repository.
+ *
+ * Format : en-tête (magic, version, position du journal, taille et CRC32 de
+ * la charge utile, empreinte de chaque fichier CSV source) suivi de :
+ * <ul>
+ * <li>un dictionnaire des wilayas, villes et spécialités (chaque nom n'est
+ * écrit qu'une fois, les enregistrements y font référence par indice) ;</li>
+ * <li>une table des identifiants référencés par les rendez-vous ;</li>
+ * <li>les spécialités, villes (avec les coordonnées de leur centre),
+ * médecins (marqués s'ils ont été inscrits à l'exécution) et patients ;</li>
+ * <li>les rendez-vous en enregistrements de taille fixe (29 octets), version
+ * comprise : un If-Match lu avant un redémarrage reste valable après.</li>
+ * </ul>
+ *
+ * À la lecture, le fichier est projeté en mémoire et son CRC vérifié avant
+ * tout décodage : un snapshot invalide est refusé (le repository repasse
+ * alors par les CSV). Les empreintes des sources se lisent seules
+ * ({@link #readSources(Path)}) : un snapshot construit à partir d'autres
+ * fichiers CSV est écarté sans décoder sa charge utile.
+ */
+public final class RepositorySnapshot {
+
+    private static final int MAGIC = 0x434C534E; // "CLSN"
+    private static final int FORMAT_VERSION = 5;
+
+    /** Partie fixe de l'en-tête (suivie des empreintes des sources). */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+
+    /** Empreinte d'un fichier source absent ou illisible. */
+    public static final long MISSING_SOURCE = -1L;
+
+    /** Taille d'un rendez-vous : id, patient, médecin, minute, état, version, notes. */
+    private static final int APPOINTMENT_RECORD_SIZE = 4 + 4 + 4 + 4 + 1 + 8 + 4;
+
+    private RepositorySnapshot() {
+    }
+
+    /**
+     * Contenu d'un snapshot.
+     *
+     * @param runtimeDoctorIds médecins inscrits à l'exécution (absents des
+     *                         fichiers CSV)
+     * @param journalPosition position du journal des rendez-vous au moment de
+     *                        la capture (le rejeu reprend à partir de là)
+     * @param sources         empreinte ({@link #fingerprint(ByteBuffer)}) de
+     *                        chaque fichier CSV dont l'état capturé est issu,
+     *                        par nom de fichier
+     */
+    public record Contents(List<Specialty> specialties, List<City> cities, List<Doctor> doctors,
+            Set<String> runtimeDoctorIds, List<Patient> patients, List<Appointment> appointments, long journalPosition,
+            Map<String, Long> sources) {
+    }
+
+    /**
+     * Empreinte du contenu d'un fichier source : taille (32 bits de poids
+     * fort) et CRC32 (32 bits de poids faible). La position du tampon n'est
+     * pas modifiée.
+     */
+    public static long fingerprint(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        return ((long) data.remaining() << 32) | crc.getValue();
+    }
+
+    // -------------------- Écriture --------------------
+
+    /**
+     * Écrit un snapshot dans un fichier temporaire puis le renomme
+     * atomiquement : un arrêt pendant l'écriture laisse l'ancien snapshot
+     * intact.
+     */
+    public static void write(Path file, Contents contents) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        long payloadLength;
+        int headerSize = header(contents, 0L, 0).remaining();
+
+        try (OutputStream raw = Files.newOutputStream(tmp)) {
+            raw.write(new byte[headerSize]); // réservé, réécrit à la fin
+
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw, 1 << 16), crc);
+            DataOutputStream out = new DataOutputStream(checked);
+            writePayload(out, contents);
+            out.flush();
+        }
+        payloadLength = Files.size(tmp) - headerSize;
+        ByteBuffer header = header(contents, payloadLength, (int) crc.getValue());
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer header(Contents contents, long payloadLength, int checksum) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(contents.journalPosition());
+        out.writeLong(payloadLength);
+        out.writeInt(checksum);
+        out.writeInt(contents.sources().size());
+        for (Map.Entry<String, Long> source : new TreeMap<>(contents.sources()).entrySet()) {
+            writeString(out, source.getKey());
+            out.writeLong(source.getValue());
+        }
+        out.flush();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void writePayload(DataOutputStream out, Contents contents) throws IOException {
+        // Dictionnaire des noms de référence
+        Dictionary names = new Dictionary();
+        for (Specialty s : contents.specialties()) {
+            names.code(s.getName());
+        }
+        for (City c : contents.cities()) {
+            names.code(c.wilaya());
+            names.code(c.getName());
+        }
+        for (Doctor d : contents.doctors()) {
+            names.code(d.getWilaya());
+            names.code(d.getCity());
+            names.code(d.getSpeciality());
+        }
+        for (Patient p : contents.patients()) {
+            names.code(p.getWilaya());
+            names.code(p.getCity());
+        }
+        names.writeTo(out);
+
+        // Identifiants et notes référencés par les rendez-vous
+        Dictionary keys = new Dictionary();
+        for (Appointment a : contents.appointments()) {
+            keys.code(a.getId());
+            keys.code(a.getPatientId());
+            keys.code(a.getDoctorId());
+            keys.code(a.getNotes());
+        }
+        keys.writeTo(out);
+
+        out.writeInt(contents.specialties().size());
+        for (Specialty s : contents.specialties()) {
+            writeString(out, s.getId());
+            out.writeInt(names.code(s.getName()));
+        }
+
+        out.writeInt(contents.cities().size());
+        for (City c : contents.cities()) {
+            out.writeInt(names.code(c.wilaya()));
+            out.writeInt(names.code(c.getName()));
+            out.writeDouble(c.latitude());
+            out.writeDouble(c.longitude());
+        }
+
+        out.writeInt(contents.doctors().size());
+        for (Doctor d : contents.doctors()) {
+            writeString(out, d.getId());
+            writeString(out, d.getFirstName());
+            writeString(out, d.getLastName());
+            out.writeInt(names.code(d.getWilaya()));
+            out.writeInt(names.code(d.getCity()));
+            writeString(out, d.getEmail());
+            writeString(out, d.getPasswordHash());
+            writeString(out, d.getPhone());
+            writeString(out, d.getSexe());
+            out.writeInt(names.code(d.getSpeciality()));
+            writeString(out, d.getLocationLink());
+            out.writeLong(d.getCalendar().getOpeningMask());
+            out.writeBoolean(contents.runtimeDoctorIds().contains(d.getId()));
+        }
+
+        out.writeInt(contents.patients().size());
+        for (Patient p : contents.patients()) {
+            writeString(out, p.getId());
+            writeString(out, p.getFirstName());
+            writeString(out, p.getLastName());
+            out.writeInt(names.code(p.getWilaya()));
+            out.writeInt(names.code(p.getCity()));
+            writeString(out, p.getEmail());
+            writeString(out, p.getPasswordHash());
+            writeString(out, p.getPhone());
+            writeString(out, p.getSexe());
+        }
+
+        out.writeInt(contents.appointments().size());
+        for (Appointment a : contents.appointments()) {
+            Appointment.State state = a.getState();
+            out.writeInt(keys.code(a.getId()));
+            out.writeInt(keys.code(a.getPatientId()));
+            out.writeInt(keys.code(a.getDoctorId()));
+            out.writeInt((int) (state.dateTime().toEpochSecond(ZoneOffset.UTC) / 60));
+            out.writeByte(state.status().ordinal());
+            out.writeLong(state.version());
+            out.writeInt(keys.code(a.getNotes()));
+        }
+    }
+
+    // -------------------- Lecture --------------------
+
+    /**
+     * Lit et valide un snapshot.
+     *
+     * @throws IOException si le fichier est absent, tronqué, d'une autre
+     *                     version ou corrompu (CRC)
+     */
+    public static Contents read(Path file) throws IOException {
+        ByteBuffer data = map(file);
+        long journalPosition = data.getLong();
+        long payloadLength = data.getLong();
+        int checksum = data.getInt();
+        Map<String, Long> sources = readSources(data, file);
+
+        if (payloadLength != data.remaining()) {
+            throw new IOException("Truncated snapshot: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+
+        try {
+            return readPayload(data, journalPosition, sources);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Lit seulement les empreintes des fichiers sources d'un snapshot.
+     *
+     * @throws IOException si le fichier est absent, tronqué ou d'une autre
+     *                     version
+     */
+    public static Map<String, Long> readSources(Path file) throws IOException {
+        ByteBuffer data = map(file);
+        data.position(data.position() + 8 + 8 + 4);
+        return readSources(data, file);
+    }
+
+    /** Projette le fichier et vérifie magic et version (position : après la version). */
+    private static ByteBuffer map(Path file) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (data.getInt() != MAGIC) {
+            throw new IOException("Not a repository snapshot: " + file);
+        }
+        int version = data.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        }
+        return data;
+    }
+
+    private static Map<String, Long> readSources(ByteBuffer in, Path file) throws IOException {
+        try {
+            int count = in.getInt();
+            Map<String, Long> sources = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                sources.put(readString(in), in.getLong());
+            }
+            return sources;
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed snapshot header: " + file, e);
+        }
+    }
+
+    private static Contents readPayload(ByteBuffer in, long journalPosition, Map<String, Long> sources) {
+        String[] names = readDictionary(in);
+        String[] keys = readDictionary(in);
+
+        int count = in.getInt();
+        List<Specialty> specialties = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            specialties.add(new Specialty(readString(in), lookup(names, in.getInt())));
+        }
+
+        count = in.getInt();
+        List<City> cities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String wilaya = lookup(names, in.getInt());
+            String name = lookup(names, in.getInt());
+            cities.add(new City(name, wilaya, in.getDouble(), in.getDouble()));
+        }
+
+        count = in.getInt();
+        List<Doctor> doctors = new ArrayList<>(count);
+        Set<String> runtimeDoctorIds = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            String id = readString(in);
+            String firstName = readString(in);
+            String lastName = readString(in);
+            String wilaya = lookup(names, in.getInt());
+            String city = lookup(names, in.getInt());
+            String email = readString(in);
+            String password = readString(in);
+            String phone = readString(in);
+            String sexe = readString(in);
+            String speciality = lookup(names, in.getInt());
+            String locationLink = readString(in);
+
+            Doctor doctor = new Doctor(id, firstName, lastName, wilaya, city, email, password, phone, sexe,
+                    speciality, locationLink);
+            doctor.getCalendar().setOpeningMask(in.getLong());
+            if (in.get() != 0) {
+                runtimeDoctorIds.add(id);
+            }
+            doctors.add(doctor);
+        }
+
+        count = in.getInt();
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = readString(in);
+            String firstName = readString(in);
+            String lastName = readString(in);
+            String wilaya = lookup(names, in.getInt());
+            String city = lookup(names, in.getInt());
+            patients.add(new Patient(id, firstName, lastName, wilaya, city,
+                    readString(in), readString(in), readString(in), readString(in)));
+        }
+
+        count = in.getInt();
+        if (in.remaining() < (long) count * APPOINTMENT_RECORD_SIZE) {
+            throw new IllegalStateException("Truncated appointment table");
+        }
+        Appointment.Status[] statuses = Appointment.Status.values();
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = lookup(keys, in.getInt());
+            String patientId = lookup(keys, in.getInt());
+            String doctorId = lookup(keys, in.getInt());
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(in.getInt() * 60L, 0, ZoneOffset.UTC);
+            Appointment.Status status = statuses[in.get() & 0xFF];
+            long version = in.getLong();
+            String notes = lookup(keys, in.getInt());
+
+            Appointment appointment = new Appointment(id, patientId, doctorId,
+                    new Appointment.State(dateTime, status, version));
+            appointment.setNotes(notes);
+            appointments.add(appointment);
+        }
+
+        return new Contents(specialties, cities, doctors, runtimeDoctorIds, patients, appointments, journalPosition, sources);
+    }
+
+    // -------------------- Chaînes et dictionnaires --------------------
+
+    /** Dictionnaire d'encodage : chaîne -> indice (null -> -1). */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer in) {
+        String[] values = new String[in.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    private static String lookup(String[] dictionary, int code) {
+        return code < 0 ? null : dictionary[code];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,219 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.Patient;
+import com.carelink.demo.model.SlotHold;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listes d'attente par médecin et par jour : un patient s'inscrit pour
+ * « n'importe quel créneau » de ce médecin sur une liste de jours.
+ *
+ * Chaque couple (médecin, jour) a sa propre file FIFO. Quand un créneau se
+ * libère (annulation, report, demande expirée, réservation temporaire
+ * abandonnée), la tête de la file de son jour le reçoit sous forme de
+ * réservation temporaire ({@link SlotHold}) et en est notifiée : la promotion
+ * est en O(1), sans parcourir les patients en attente. Si la réservation
+ * n'est pas consommée, son expiration libère de nouveau le créneau, qui
+ * passe au suivant.
+ *
+ * Une inscription promue ou retirée est désactivée ; ses entrées dans les
+ * files des autres jours sont écartées quand elles arrivent en tête. Chaque
+ * file créée planifie sa purge au lendemain de son jour, par une échéance
+ * du cycle de vie ; la purge du dernier jour d'une inscription la retire
+ * aussi. Les inscriptions ne sont pas persistées.
+ */
+final class SlotWaitlist {
+
+    private final CsvDataRepository repository;
+    private final AppointmentLifecycle lifecycle;
+
+    /** Files d'attente par (médecin, jour). */
+    private final Map<Day, ArrayDeque<Subscription>> queues = new ConcurrentHashMap<>();
+
+    /** Inscription active de chaque patient, par médecin. */
+    private final Map<Subscriber, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    private record Day(String doctorId, LocalDate date) {
+    }
+
+    private record Subscriber(String doctorId, String patientId) {
+    }
+
+    private static final class Subscription {
+        final String patientId;
+        final String doctorId;
+        /** Dernier jour demandé : l'inscription échoit avec lui. */
+        final LocalDate lastDate;
+        volatile boolean active = true;
+
+        Subscription(String patientId, String doctorId, LocalDate lastDate) {
+            this.patientId = patientId;
+            this.doctorId = doctorId;
+            this.lastDate = lastDate;
+        }
+    }
+
+    SlotWaitlist(CsvDataRepository repository, AppointmentLifecycle lifecycle) {
+        this.repository = repository;
+        this.lifecycle = lifecycle;
+    }
+
+    /**
+     * Inscrit un patient sur les jours donnés ; remplace son inscription
+     * précédente auprès du même médecin.
+     */
+    void subscribe(String doctorId, String patientId, Collection<LocalDate> dates) {
+        Set<LocalDate> days = Set.copyOf(dates);
+        if (days.isEmpty()) {
+            return;
+        }
+        Subscription subscription = new Subscription(patientId, doctorId, Collections.max(days));
+        Subscription previous = subscriptions.put(new Subscriber(doctorId, patientId), subscription);
+        if (previous != null) {
+            previous.active = false;
+        }
+
+        for (LocalDate date : days) {
+            queues.compute(new Day(doctorId, date), (k, queue) -> {
+                ArrayDeque<Subscription> q = queue != null ? queue : newQueue(k);
+                q.addLast(subscription);
+                return q;
+            });
+        }
+    }
+
+    /**
+     * Retire l'inscription d'un patient auprès d'un médecin.
+     *
+     * @return false si le patient n'était pas inscrit
+     */
+    boolean unsubscribe(String doctorId, String patientId) {
+        Subscription subscription = subscriptions.remove(new Subscriber(doctorId, patientId));
+        if (subscription == null) {
+            return false;
+        }
+        subscription.active = false;
+        return true;
+    }
+
+    /**
+     * Propose un créneau libéré au premier patient en attente pour ce jour :
+     * le créneau lui est réservé temporairement et il est notifié.
+     */
+    void offer(Doctor doctor, LocalDateTime dateTime) {
+        if (doctor == null || !dateTime.isAfter(LocalDateTime.now())) {
+            return;
+        }
+        Day key = new Day(doctor.getId(), dateTime.toLocalDate());
+        List<Subscription> atLimit = new ArrayList<>();
+        try {
+            Subscription head;
+            while ((head = poll(key)) != null) {
+                if (!subscriptions.remove(new Subscriber(head.doctorId, head.patientId), head)) {
+                    continue; // retirée ou remplacée entre-temps
+                }
+                head.active = false;
+
+                SlotHold hold;
+                try {
+                    hold = lifecycle.hold(doctor, head.patientId, dateTime);
+                } catch (IllegalStateException e) {
+                    // Plafond de réservations atteint : le créneau passe au suivant
+                    atLimit.add(head);
+                    continue;
+                }
+                if (hold == null) {
+                    // Créneau repris avant la promotion : le patient garde sa place
+                    requeue(key, head);
+                    return;
+                }
+
+                Patient patient = repository.getPatientById(head.patientId);
+                if (patient != null) {
+                    patient.update("A slot opened with Dr. " + doctor.getFullName() + " on "
+                            + dateTime.toLocalDate() + " at " + dateTime.toLocalTime()
+                            + ". It is held for you until " + hold.expiresAt().toLocalTime().withNano(0)
+                            + " (hold " + hold.id() + ").");
+                }
+                return;
+            }
+        } finally {
+            // Les patients écartés gardent leur place, dans leur ordre
+            for (int i = atLimit.size() - 1; i >= 0; i--) {
+                requeue(key, atLimit.get(i));
+            }
+        }
+    }
+
+    /** Remet une inscription en tête de la file, sauf si le patient s'est réinscrit entre-temps. */
+    private void requeue(Day key, Subscription waiting) {
+        if (subscriptions.putIfAbsent(new Subscriber(waiting.doctorId, waiting.patientId), waiting) != null) {
+            return;
+        }
+        waiting.active = true;
+        queues.compute(key, (k, queue) -> {
+            ArrayDeque<Subscription> q = queue != null ? queue : newQueue(k);
+            q.addFirst(waiting);
+            return q;
+        });
+    }
+
+    /** Nouvelle file d'un jour, dont la purge est planifiée au lendemain. */
+    private ArrayDeque<Subscription> newQueue(Day key) {
+        lifecycle.schedule(toMillis(key.date().plusDays(1).atStartOfDay()), () -> purge(key));
+        return new ArrayDeque<>();
+    }
+
+    /**
+     * Supprime la file d'un jour écoulé et les inscriptions dont c'était le
+     * dernier jour.
+     */
+    private void purge(Day key) {
+        ArrayDeque<Subscription> queue = queues.remove(key);
+        if (queue == null) {
+            return;
+        }
+        // La file n'est plus partagée : plus aucun accès concurrent
+        for (Subscription subscription : queue) {
+            Subscriber subscriber = new Subscriber(subscription.doctorId, subscription.patientId);
+            if (subscription.lastDate.equals(key.date()) && subscriptions.remove(subscriber, subscription)) {
+                subscription.active = false;
+            }
+        }
+    }
+
+    /** Retire la première inscription active de la file (les inactives sont écartées). */
+    private Subscription poll(Day key) {
+        Subscription[] head = new Subscription[1];
+        queues.computeIfPresent(key, (k, queue) -> {
+            Subscription s;
+            while ((s = queue.pollFirst()) != null && !s.active) {
+                // inscription retirée ou déjà promue
+            }
+            head[0] = s;
+            return queue.isEmpty() ? null : queue;
+        });
+        return head[0];
+    }
+
+    /** Nombre de patients inscrits (tous médecins confondus). */
+    int size() {
+        return subscriptions.size();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
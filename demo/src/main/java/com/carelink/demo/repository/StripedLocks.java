@@ -0,0 +1,60 @@
+package com.carelink.demo.repository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ensemble fixe de verrous répartis par hachage d'une clé (lock striping).
+ *
+ * Deux clés identiques obtiennent toujours le même verrou : les opérations
+ * sur un même médecin sont sérialisées, tandis que celles de médecins
+ * différents progressent en parallèle (sauf collision de bande).
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes nombre de verrous (arrondi à la puissance de deux
+     *                supérieure)
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /** Retourne le verrou associé à une clé. */
+    public ReentrantLock lockFor(String key) {
+        return locks[stripe(key)];
+    }
+
+    /**
+     * Verrous distincts associés à plusieurs clés, dans l'ordre des bandes :
+     * les prendre dans cet ordre évite tout interblocage entre deux appelants.
+     */
+    public List<ReentrantLock> locksFor(Collection<String> keys) {
+        BitSet stripes = new BitSet(locks.length);
+        for (String key : keys) {
+            stripes.set(stripe(key));
+        }
+        List<ReentrantLock> ordered = new ArrayList<>(stripes.cardinality());
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            ordered.add(locks[i]);
+        }
+        return ordered;
+    }
+
+    private int stripe(String key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+}
@@ -0,0 +1,237 @@
+package com.carelink.demo.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordonnanceur d'échéances à roues hiérarchiques (hierarchical timing wheel).
+ *
+ * {@value #LEVELS} roues de {@value #WHEEL_SIZE} cases : une case de la roue
+ * k couvre 64^k ticks. Une échéance est rangée dans la roue la plus basse
+ * dont le tour courant la contient ; quand le temps atteint sa case, elle
+ * redescend d'une roue (cascade), jusqu'à la roue 0 où elle est déclenchée.
+ * Chaque case est une liste doublement chaînée : ajout et annulation en
+ * O(1), quel que soit le nombre d'échéances suivies. Un tick ne traite que
+ * la case courante, jamais l'ensemble des échéances.
+ *
+ * Un thread dédié avance l'horloge de {@link #start()} à {@link #stop()} ; les tâches
+ * échues s'exécutent sur ce thread (elles doivent être courtes) et leurs
+ * exceptions sont journalisées. Après les tâches d'un tick, une action de
+ * fin de tick peut traiter en un lot ce qu'elles ont accumulé. Avant le démarrage, les échéances sont
+ * planifiées sans être déclenchées.
+ */
+final class TimingWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int LEVELS = 6;
+
+    /** Échéance la plus lointaine représentable (en ticks depuis le démarrage). */
+    private static final long MAX_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Thread ticker;
+    private final Runnable afterTick;
+
+    /** Têtes des listes : {@code buckets[roue][case]} (sentinelles). */
+    private final Timeout[][] buckets = new Timeout[LEVELS][WHEEL_SIZE];
+
+    /** Dernier tick traité (protégé par {@code this}). */
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * Échéance planifiée, annulable en O(1).
+     */
+    final class Timeout {
+        private final Runnable task;
+        private final long deadlineMillis;
+        private long tick;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineMillis) {
+            this.task = task;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        /** Instant prévu (epoch millis). */
+        long deadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Annule l'échéance.
+         *
+         * @return false si elle a déjà été déclenchée ou annulée
+         */
+        boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (previous == null) {
+                    return false;
+                }
+                unlink(this);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param tickMillis résolution de l'horloge
+     * @param name       nom du thread de l'horloge
+     * @param afterTick  exécutée après les tâches de chaque tick qui en a
+     *                   déclenché, ou null
+     */
+    TimingWheel(long tickMillis, String name, Runnable afterTick) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.afterTick = afterTick;
+        this.startMillis = System.currentTimeMillis();
+        for (Timeout[] wheel : buckets) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                Timeout head = new Timeout(null, 0);
+                head.previous = head;
+                head.next = head;
+                wheel[i] = head;
+            }
+        }
+
+        ticker = new Thread(this::run, name);
+        ticker.setDaemon(true);
+    }
+
+    /**
+     * Démarre l'horloge ; à appeler une fois le propriétaire entièrement
+     * construit, les tâches échues pouvant s'exécuter aussitôt.
+     */
+    void start() {
+        ticker.start();
+    }
+
+    /** Arrête l'horloge : les échéances en attente ne sont plus déclenchées. */
+    void stop() {
+        ticker.interrupt();
+    }
+
+    /**
+     * Planifie une tâche (une échéance passée est déclenchée au prochain
+     * tick).
+     *
+     * @param deadlineMillis instant prévu (epoch millis)
+     */
+    Timeout schedule(long deadlineMillis, Runnable task) {
+        Timeout timeout = new Timeout(task, deadlineMillis);
+        long ticks = Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis);
+        synchronized (this) {
+            timeout.tick = Math.min(Math.max(ticks, currentTick + 1), currentTick + MAX_TICKS);
+            insert(timeout);
+            size++;
+        }
+        return timeout;
+    }
+
+    /** Nombre d'échéances en attente. */
+    synchronized int size() {
+        return size;
+    }
+
+    // -------------------- Roues --------------------
+
+    /** Range une échéance dans la roue la plus basse dont le tour courant la contient. */
+    private void insert(Timeout timeout) {
+        int level = 0;
+        while (level < LEVELS - 1
+                && (timeout.tick >>> (WHEEL_BITS * (level + 1))) != (currentTick >>> (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) (timeout.tick >>> (WHEEL_BITS * level)) & (WHEEL_SIZE - 1);
+        Timeout head = buckets[level][index];
+        timeout.previous = head.previous;
+        timeout.next = head;
+        head.previous.next = timeout;
+        head.previous = timeout;
+    }
+
+    private static void unlink(Timeout timeout) {
+        timeout.previous.next = timeout.next;
+        timeout.next.previous = timeout.previous;
+        timeout.previous = null;
+        timeout.next = null;
+    }
+
+    /**
+     * Avance d'un tick : fait redescendre les cases des roues supérieures
+     * dont le tour commence, puis retire les échéances de la case courante.
+     */
+    private synchronized List<Timeout> advance() {
+        currentTick++;
+        for (int level = LEVELS - 1; level > 0; level--) {
+            long mask = (1L << (WHEEL_BITS * level)) - 1;
+            if ((currentTick & mask) == 0) {
+                int index = (int) (currentTick >>> (WHEEL_BITS * level)) & (WHEEL_SIZE - 1);
+                for (Timeout t : drain(buckets[level][index])) {
+                    insert(t);
+                }
+            }
+        }
+
+        List<Timeout> expired = drain(buckets[0][(int) currentTick & (WHEEL_SIZE - 1)]);
+        size -= expired.size();
+        return expired;
+    }
+
+    /** Vide une case (les échéances sont détachées de la liste). */
+    private static List<Timeout> drain(Timeout head) {
+        if (head.next == head) {
+            return List.of();
+        }
+        List<Timeout> timeouts = new ArrayList<>();
+        for (Timeout t = head.next; t != head;) {
+            Timeout following = t.next;
+            unlink(t);
+            timeouts.add(t);
+            t = following;
+        }
+        return timeouts;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long nextTickAt;
+            synchronized (this) {
+                nextTickAt = startMillis + (currentTick + 1) * tickMillis;
+            }
+            long wait = nextTickAt - System.currentTimeMillis();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            List<Timeout> expired = advance();
+            for (Timeout timeout : expired) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Scheduled task failed", e);
+                }
+            }
+            if (afterTick != null && !expired.isEmpty()) {
+                try {
+                    afterTick.run();
+                } catch (RuntimeException e) {
+                    log.warn("End-of-tick task failed", e);
+                }
+            }
+        }
+    }
+}
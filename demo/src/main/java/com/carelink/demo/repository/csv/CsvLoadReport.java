@@ -0,0 +1,63 @@
+package com.carelink.demo.repository.csv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rapport de chargement d'un fichier CSV : lignes acceptées et lignes
+ * rejetées (avec numéro de ligne et motif).
+ */
+public class CsvLoadReport {
+
+    /** Nombre maximal de rejets détaillés conservés. */
+    public static final int MAX_DETAILED_REJECTIONS = 100;
+
+    /**
+     * Ligne rejetée.
+     *
+     * @param line   numéro de ligne (1-based, en-tête compris)
+     * @param reason motif du rejet
+     * @param raw    contenu brut de la ligne
+     */
+    public record Rejection(long line, String reason, String raw) {
+    }
+
+    private final String source;
+    private final long accepted;
+    private final long rejectedCount;
+    private final List<Rejection> rejections;
+
+    public CsvLoadReport(String source, long accepted, long rejectedCount, List<Rejection> rejections) {
+        this.source = source;
+        this.accepted = accepted;
+        this.rejectedCount = rejectedCount;
+        this.rejections = Collections.unmodifiableList(new ArrayList<>(rejections));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /** Premiers rejets (au plus {@link #MAX_DETAILED_REJECTIONS}), triés par ligne. */
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+
+    public boolean hasRejections() {
+        return rejectedCount > 0;
+    }
+
+    @Override
+    public String toString() {
+        return source + ": " + accepted + " accepted, " + rejectedCount + " rejected";
+    }
+}
@@ -0,0 +1,131 @@
+package com.carelink.demo.repository.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Vue (réutilisable) sur un enregistrement CSV en cours d'analyse.
+ *
+ * Les champs ne sont pas découpés dans un tableau de chaînes : la ligne garde
+ * seulement les positions de début/fin de chaque champ dans le tampon, et la
+ * chaîne n'est décodée (UTF-8) qu'à la demande via {@link #get(int)}.
+ */
+public final class CsvRow {
+
+    private final ByteBuffer buffer;
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private int size;
+
+    private int recordStart;
+    private int recordEnd;
+
+    /** Tampon de décodage réutilisé d'un champ à l'autre. */
+    private byte[] scratch = new byte[128];
+
+    CsvRow(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    void reset(int recordStart) {
+        this.size = 0;
+        this.recordStart = recordStart;
+        this.recordEnd = recordStart;
+    }
+
+    void addField(int start, int end, boolean hasEscapedQuotes) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        escaped[size] = hasEscapedQuotes;
+        size++;
+    }
+
+    void end(int recordEnd) {
+        this.recordEnd = recordEnd;
+    }
+
+    /** Nombre de champs de l'enregistrement. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne le champ {@code index}, sans espaces de début/fin.
+     *
+     * @throws IndexOutOfBoundsException si le champ n'existe pas
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Missing column " + (index + 1) + " (found " + size + ")");
+        }
+
+        int start = starts[index];
+        int end = ends[index];
+        while (start < end && isSpace(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isSpace(buffer.get(end - 1))) {
+            end--;
+        }
+        return decode(start, end, escaped[index]);
+    }
+
+    /** Retourne le champ {@code index}, ou {@code defaultValue} s'il est absent. */
+    public String get(int index, String defaultValue) {
+        return index < size ? get(index) : defaultValue;
+    }
+
+    /**
+     * Vérifie que l'enregistrement contient au moins {@code expected} colonnes.
+     *
+     * @throws IllegalArgumentException sinon
+     */
+    public void requireColumns(int expected) {
+        if (size < expected) {
+            throw new IllegalArgumentException("Expected " + expected + " columns, found " + size);
+        }
+    }
+
+    /** Texte brut de l'enregistrement (pour les rapports d'erreurs). */
+    public String raw() {
+        int end = recordEnd;
+        while (end > recordStart && (buffer.get(end - 1) == '\n' || buffer.get(end - 1) == '\r')) {
+            end--;
+        }
+        return decode(recordStart, end, false);
+    }
+
+    private String decode(int start, int end, boolean unescape) {
+        int length = end - start;
+        if (length <= 0) {
+            return "";
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        int out = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            scratch[out++] = b;
+            // "" à l'intérieur d'un champ entre guillemets représente un seul "
+            if (unescape && b == '"' && i + 1 < end && buffer.get(i + 1) == '"') {
+                i++;
+            }
+        }
+        return new String(scratch, 0, out, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
@@ -0,0 +1,20 @@
+package com.carelink.demo.repository.csv;
+
+/**
+ * Transforme un enregistrement CSV en objet du modèle.
+ *
+ * @param <T> type produit
+ */
+@FunctionalInterface
+public interface CsvRowMapper<T> {
+
+    /**
+     * Construit l'objet correspondant à la ligne.
+     * Toute exception rejette la ligne ; son message sert de motif dans le
+     * {@link CsvLoadReport}.
+     *
+     * @param row enregistrement courant (valide uniquement pendant l'appel)
+     * @return objet construit
+     */
+    T map(CsvRow row) throws Exception;
+}
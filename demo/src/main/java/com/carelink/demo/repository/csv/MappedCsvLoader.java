@@ -0,0 +1,303 @@
+package com.carelink.demo.repository.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Chargeur CSV (RFC 4180) parallèle.
+ *
+ * Le fichier est projeté en mémoire, découpé en blocs alignés sur des fins
+ * d'enregistrement, puis chaque bloc est analysé en parallèle directement en
+ * objets du modèle. Les guillemets sont gérés (virgules, guillemets doublés et
+ * retours à la ligne à l'intérieur d'un champ) y compris à la frontière des
+ * blocs : la parité des guillemets est calculée par bloc puis cumulée, ce qui
+ * permet de placer chaque frontière hors d'un champ entre guillemets.
+ *
+ * La première ligne (en-tête) est ignorée. Les lignes rejetées sont
+ * remontées dans un {@link CsvLoadReport} avec leur numéro de ligne.
+ */
+public final class MappedCsvLoader {
+
+    /** Taille minimale d'un bloc : en dessous, le parallélisme ne paie pas. */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    private MappedCsvLoader() {
+    }
+
+    /**
+     * Résultat d'un chargement : objets construits (dans l'ordre du fichier)
+     * et rapport.
+     */
+    public record Result<T>(List<T> records, CsvLoadReport report) {
+    }
+
+    /**
+     * Projette un fichier en mémoire (lecture seule).
+     *
+     * @throws IOException si le fichier ne peut pas être lu ou dépasse 2 Go
+     */
+    public static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to map: " + file + " (" + size + " bytes)");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Charge un fichier CSV déjà en mémoire.
+     *
+     * @param source nom utilisé dans le rapport
+     * @param data   contenu du fichier
+     * @param mapper construction des objets
+     */
+    public static <T> Result<T> load(String source, ByteBuffer data, CsvRowMapper<T> mapper) {
+        int limit = data.limit();
+        int dataStart = skipRecord(data, skipBom(data), limit);
+
+        int[] bounds = chunkBoundaries(data, dataStart, limit);
+        int chunkCount = bounds.length - 1;
+
+        List<Chunk<T>> chunks = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(i -> parseChunk(data, bounds[i], bounds[i + 1], mapper))
+                .collect(Collectors.toList());
+
+        // Numérotation absolue : l'en-tête occupe la ligne 1
+        List<T> records = new ArrayList<>();
+        List<CsvLoadReport.Rejection> rejections = new ArrayList<>();
+        long rejectedCount = 0;
+        long firstLine = 1 + countNewlines(data, 0, dataStart);
+
+        for (Chunk<T> chunk : chunks) {
+            records.addAll(chunk.records);
+            rejectedCount += chunk.rejectedCount;
+            for (CsvLoadReport.Rejection r : chunk.rejections) {
+                if (rejections.size() < CsvLoadReport.MAX_DETAILED_REJECTIONS) {
+                    rejections.add(new CsvLoadReport.Rejection(firstLine + r.line(), r.reason(), r.raw()));
+                }
+            }
+            firstLine += chunk.newlines;
+        }
+        rejections.sort(Comparator.comparingLong(CsvLoadReport.Rejection::line));
+
+        return new Result<>(records, new CsvLoadReport(source, records.size(), rejectedCount, rejections));
+    }
+
+    // -------------------- Découpage en blocs --------------------
+
+    /**
+     * Calcule les frontières des blocs : chaque frontière suit un saut de ligne
+     * situé hors d'un champ entre guillemets.
+     */
+    private static int[] chunkBoundaries(ByteBuffer data, int start, int end) {
+        int length = end - start;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int chunkCount = (int) Math.max(1, Math.min((long) parallelism * 4, length / MIN_CHUNK_SIZE));
+        if (chunkCount == 1) {
+            return new int[] { start, end };
+        }
+
+        int[] raw = new int[chunkCount + 1];
+        for (int i = 0; i <= chunkCount; i++) {
+            raw[i] = start + (int) ((long) length * i / chunkCount);
+        }
+
+        // Parité des guillemets par segment brut (en parallèle), puis cumul
+        boolean[] oddQuotes = new boolean[chunkCount];
+        IntStream.range(0, chunkCount).parallel()
+                .forEach(i -> oddQuotes[i] = (countQuotes(data, raw[i], raw[i + 1]) & 1) == 1);
+
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = start;
+        bounds[chunkCount] = end;
+        boolean inQuotesAtRaw = false;
+
+        for (int i = 1; i < chunkCount; i++) {
+            inQuotesAtRaw ^= oddQuotes[i - 1];
+            if (bounds[i - 1] >= raw[i]) {
+                // Le bloc précédent a déjà dépassé ce point : bloc vide
+                bounds[i] = bounds[i - 1];
+            } else {
+                bounds[i] = nextRecordStart(data, raw[i], end, inQuotesAtRaw);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Avance jusqu'au début de l'enregistrement suivant, en partant de
+     * {@code from} avec l'état de guillemets {@code inQuotes}.
+     */
+    private static int nextRecordStart(ByteBuffer data, int from, int end, boolean inQuotes) {
+        for (int i = from; i < end; i++) {
+            byte b = data.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static int skipBom(ByteBuffer data) {
+        if (data.limit() >= 3 && (data.get(0) & 0xFF) == 0xEF && (data.get(1) & 0xFF) == 0xBB
+                && (data.get(2) & 0xFF) == 0xBF) {
+            return 3;
+        }
+        return 0;
+    }
+
+    private static int skipRecord(ByteBuffer data, int from, int end) {
+        return nextRecordStart(data, from, end, false);
+    }
+
+    private static int countQuotes(ByteBuffer data, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long countNewlines(ByteBuffer data, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // -------------------- Analyse d'un bloc --------------------
+
+    /** Résultat partiel d'un bloc (numéros de ligne relatifs au bloc). */
+    private static final class Chunk<T> {
+        final List<T> records = new ArrayList<>();
+        final List<CsvLoadReport.Rejection> rejections = new ArrayList<>();
+        long rejectedCount;
+        long newlines;
+    }
+
+    private static <T> Chunk<T> parseChunk(ByteBuffer data, int start, int end, CsvRowMapper<T> mapper) {
+        Chunk<T> chunk = new Chunk<>();
+        CsvRow row = new CsvRow(data);
+
+        int pos = start;
+        while (pos < end) {
+            int recordStart = pos;
+            long recordLine = chunk.newlines;
+            row.reset(recordStart);
+            String error = null;
+
+            // Lecture des champs jusqu'à la fin de l'enregistrement
+            while (true) {
+                if (pos < end && data.get(pos) == '"') {
+                    int fieldStart = ++pos;
+                    boolean escapedQuotes = false;
+                    int fieldEnd = -1;
+
+                    while (pos < end) {
+                        byte b = data.get(pos);
+                        if (b == '"') {
+                            if (pos + 1 < end && data.get(pos + 1) == '"') {
+                                escapedQuotes = true;
+                                pos += 2;
+                                continue;
+                            }
+                            fieldEnd = pos++;
+                            break;
+                        }
+                        if (b == '\n') {
+                            chunk.newlines++;
+                        }
+                        pos++;
+                    }
+
+                    if (fieldEnd < 0) {
+                        error = "Unterminated quoted field";
+                        break;
+                    }
+                    row.addField(fieldStart, fieldEnd, escapedQuotes);
+
+                    // Espaces tolérés entre le guillemet fermant et le séparateur
+                    while (pos < end && (data.get(pos) == ' ' || data.get(pos) == '\t' || data.get(pos) == '\r')) {
+                        pos++;
+                    }
+                    if (pos < end && data.get(pos) != ',' && data.get(pos) != '\n') {
+                        error = "Unexpected character after closing quote";
+                        while (pos < end && data.get(pos) != '\n') {
+                            pos++;
+                        }
+                        if (pos < end) {
+                            pos++;
+                            chunk.newlines++;
+                        }
+                        break;
+                    }
+                } else {
+                    int fieldStart = pos;
+                    while (pos < end && data.get(pos) != ',' && data.get(pos) != '\n') {
+                        pos++;
+                    }
+                    int fieldEnd = pos;
+                    if (fieldEnd > fieldStart && data.get(fieldEnd - 1) == '\r') {
+                        fieldEnd--;
+                    }
+                    row.addField(fieldStart, fieldEnd, false);
+                }
+
+                if (pos >= end) {
+                    break;
+                }
+                if (data.get(pos) == ',') {
+                    pos++;
+                    continue;
+                }
+                // Saut de ligne : fin de l'enregistrement
+                pos++;
+                chunk.newlines++;
+                break;
+            }
+
+            row.end(pos);
+
+            if (error == null && row.size() == 1 && row.get(0).isEmpty()) {
+                continue; // ligne vide
+            }
+
+            if (error == null) {
+                try {
+                    T record = mapper.map(row);
+                    if (record != null) {
+                        chunk.records.add(record);
+                        continue;
+                    }
+                    error = "Row ignored by mapper";
+                } catch (Exception e) {
+                    error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                }
+            }
+
+            chunk.rejectedCount++;
+            if (chunk.rejections.size() < CsvLoadReport.MAX_DETAILED_REJECTIONS) {
+                chunk.rejections.add(new CsvLoadReport.Rejection(recordLine, error, row.raw()));
+            }
+        }
+        return chunk;
+    }
+}
@@ -1,11 +1,20 @@
 package com.carelink.demo.service;
 
 import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.AvailableSlot;
 import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.DoctorPage;
+import com.carelink.demo.model.FacetCounts;
+import com.carelink.demo.model.NearbyDoctor;
+import com.carelink.demo.model.OperationResult;
 import com.carelink.demo.model.Patient;
+import com.carelink.demo.model.RankedDoctor;
+import com.carelink.demo.model.SlotHold;
+import com.carelink.demo.model.Suggestion;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface du service principal de l'application CareLink.
@@ -16,7 +25,7 @@ public interface CareLinkService {
 
     // -------------------- Médecins --------------------
 
-    /** Retourne la liste complète des médecins. */
+    /** Retourne la liste complète des médecins (non modifiable). */
     List<Doctor> getAllDoctors();
 
     /** Retourne un médecin par son identifiant. */
@@ -25,6 +34,40 @@ public interface CareLinkService {
     /** Retourne un médecin via son email. */
     Doctor getDoctorByEmail(String email);
 
+    /**
+     * Suggestions d'autocomplétion (noms de médecins, spécialités, villes),
+     * tolérantes aux fautes de frappe.
+     */
+    List<Suggestion> autocomplete(String query, int limit);
+
+    /**
+     * Les {@code k} médecins les plus proches, du plus proche au plus
+     * éloigné : autour d'un point (latitude/longitude) si fourni, sinon
+     * autour du centre de la ville (ou de la wilaya). Spécialité facultative.
+     */
+    List<NearbyDoctor> findNearestDoctors(Double latitude, Double longitude, String wilaya, String city,
+            String specialty, int k);
+
+    /**
+     * Premiers créneaux libres (médecin, date/heure) dans les {@code days}
+     * prochains jours, pour une spécialité et/ou une localisation
+     * (filtres optionnels).
+     */
+    List<AvailableSlot> findFirstAvailableSlots(String wilaya, String city, String specialty, int days, int limit);
+
+    /**
+     * Les {@code k} médecins les mieux classés (créneau libre le plus proche,
+     * charge, proximité de la ville demandée), du meilleur au moins bon.
+     * Spécialité et wilaya filtrent ; la ville est une préférence.
+     */
+    List<RankedDoctor> rankDoctors(String wilaya, String city, String specialty, int k);
+
+    /**
+     * Nombre de médecins par wilaya, ville et spécialité, chaque facette
+     * étant filtrée par les autres critères sélectionnés (optionnels).
+     */
+    FacetCounts getFacetCounts(String wilaya, String city, String specialty);
+
     /** Recherche de médecins par localisation (wilaya/ville). */
     List<Doctor> findDoctorsByLocation(String wilaya, String city);
 
@@ -34,12 +77,21 @@ public interface CareLinkService {
     /** Recherche multi-critères (wilaya, ville, spécialité). */
     List<Doctor> searchDoctors(String wilaya, String city, String specialty);
 
+    /** Recherche multi-critères paginée par curseur (voir {@link DoctorPage}). */
+    DoctorPage searchDoctors(String wilaya, String city, String specialty, String cursor, int limit);
+
     /**
      * Recherche via le pattern Strategy (ex: "specialty", "location",
-     * "availability").
+     * "availability", ou "query" pour une requête composée).
      */
     List<Doctor> searchDoctorsByStrategy(String searchType, String criteria);
 
+    /** Statistiques du cache des résultats de recherche (hits, misses, évictions...). */
+    Map<String, Long> getSearchCacheStats();
+
+    /** Recherche par stratégie paginée par curseur (voir {@link DoctorPage}). */
+    DoctorPage searchDoctorsByStrategy(String searchType, String criteria, String cursor, int limit);
+
     // -------------------- Patients --------------------
 
     /** Retourne la liste complète des patients. */
@@ -87,6 +139,47 @@ public interface CareLinkService {
     /** Crée un rendez-vous (statut initial généralement PENDING). */
     Appointment bookAppointment(String patientId, String doctorId, String date, String time);
 
+    /**
+     * Réservation asynchrone : le résultat est complété quand le rendez-vous
+     * est créé et persisté (ou en échec si la demande est invalide ou le
+     * créneau déjà pris).
+     */
+    CompletableFuture<Appointment> bookAppointmentAsync(String patientId, String doctorId, String date, String time);
+
+    /**
+     * Réservation asynchrone d'un créneau retenu au préalable par
+     * {@link #holdSlot} (holdId null : réservation directe).
+     */
+    CompletableFuture<Appointment> bookAppointmentAsync(String patientId, String doctorId, String date, String time,
+            String holdId);
+
+    /**
+     * Retient un créneau pendant quelques minutes, le temps de finaliser la
+     * réservation.
+     *
+     * @throws IllegalArgumentException si le créneau est passé ou n'est pas
+     *                                  proposé par le médecin
+     * @throws IllegalStateException    si le créneau n'est pas libre ou si le
+     *                                  patient a atteint son nombre maximal
+     *                                  de réservations temporaires
+     */
+    SlotHold holdSlot(String patientId, String doctorId, String date, String time);
+
+    /** Abandonne une réservation temporaire du patient. */
+    boolean releaseSlotHold(String holdId, String patientId);
+
+    /**
+     * Inscrit le patient sur la liste d'attente d'un médecin pour des jours
+     * ("yyyy-MM-dd") : le premier créneau libéré l'un de ces jours lui est
+     * retenu temporairement et il en est notifié.
+     *
+     * @throws IllegalArgumentException si un jour est invalide ou passé
+     */
+    void joinWaitlist(String patientId, String doctorId, List<String> dates);
+
+    /** Retire le patient de la liste d'attente d'un médecin. */
+    boolean leaveWaitlist(String patientId, String doctorId);
+
     /** Reprogramme un rendez-vous existant. */
     boolean rescheduleAppointment(String appointmentId, String newDate, String newTime);
 
@@ -99,6 +192,32 @@ public interface CareLinkService {
     /** Marque un rendez-vous comme terminé. */
     boolean completeAppointment(String appointmentId);
 
+    /*
+     * Variantes conditionnelles : la modification n'est appliquée que si le
+     * rendez-vous est toujours à la version lue par le client (null : pas de
+     * vérification). Une version périmée lève ConcurrentModificationException ;
+     * un journal indisponible lève UncheckedIOException.
+     */
+
+    boolean rescheduleAppointment(String appointmentId, String newDate, String newTime, Long expectedVersion);
+
+    boolean cancelAppointment(String appointmentId, Long expectedVersion);
+
+    boolean confirmAppointment(String appointmentId, Long expectedVersion);
+
+    boolean completeAppointment(String appointmentId, Long expectedVersion);
+
+    /**
+     * Lot d'opérations d'un médecin sur ses rendez-vous. Chaque élément
+     * contient "id", "action" (confirm, complete, cancel, reschedule),
+     * "newDate"/"newTime" pour un report et "version" (facultatif).
+     *
+     * @return un résultat par élément, dans l'ordre (voir
+     *         {@link OperationResult#durabilityUnconfirmed()} si le fsync du
+     *         journal a échoué)
+     */
+    List<OperationResult> applyAppointmentOperations(String doctorId, List<Map<String, String>> operations);
+
     // -------------------- Authentification / Inscription --------------------
 
     /** Authentifie un médecin avec email et mot de passe. */
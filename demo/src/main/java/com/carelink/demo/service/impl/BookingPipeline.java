@@ -0,0 +1,162 @@
+package com.carelink.demo.service.impl;
+
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.repository.CsvDataRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Chaîne de réservation à écrivain unique par shard.
+ *
+ * Les demandes sont réparties sur un nombre fixe de shards d'après
+ * l'identifiant du médecin ; chaque shard a sa file et un seul thread qui
+ * la vide par lots. Pour un lot, le thread réserve les créneaux, crée les
+ * rendez-vous puis attend une seule fois leur écriture dans le journal,
+ * avant de compléter les {@link CompletableFuture} des demandes.
+ *
+ * Toutes les réservations d'un médecin passent par le même thread : elles
+ * sont traitées dans l'ordre d'arrivée, sans contention sur son calendrier.
+ * Les threads des requêtes HTTP ne font que déposer la demande.
+ */
+final class BookingPipeline {
+
+    /** Nombre maximal de demandes traitées par lot. */
+    private static final int MAX_BATCH = 256;
+
+    private final CsvDataRepository repository;
+
+    /** Appelé après chaque créneau réservé ou rendu (invalidation du cache de recherche). */
+    private final Consumer<Doctor> slotChanged;
+
+    private final List<BlockingQueue<Request>> shards;
+
+    /** Demande de réservation (patient et médecin déjà vérifiés ; holdId facultatif). */
+    private record Request(String patientId, Doctor doctor, LocalDateTime dateTime, String holdId,
+            CompletableFuture<Appointment> result) {
+    }
+
+    BookingPipeline(CsvDataRepository repository, Consumer<Doctor> slotChanged, int shardCount) {
+        this.repository = repository;
+        this.slotChanged = slotChanged;
+        int count = Math.max(1, shardCount);
+        this.shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+            shards.add(queue);
+            Thread writer = new Thread(() -> run(queue), "booking-shard-" + i);
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Dépose une demande sur le shard du médecin.
+     *
+     * @param holdId réservation temporaire du créneau à consommer, ou null
+     * @return rendez-vous créé (PENDING), ou échec avec
+     *         {@link IllegalStateException} si le créneau n'est pas libre,
+     *         {@link java.io.UncheckedIOException} si le journal n'a pas pu
+     *         être écrit
+     */
+    CompletableFuture<Appointment> submit(String patientId, Doctor doctor, LocalDateTime dateTime, String holdId) {
+        CompletableFuture<Appointment> result = new CompletableFuture<>();
+        shardOf(doctor.getId()).add(new Request(patientId, doctor, dateTime, holdId, result));
+        return result;
+    }
+
+    private BlockingQueue<Request> shardOf(String doctorId) {
+        int h = doctorId.hashCode();
+        h ^= (h >>> 16);
+        return shards.get(Math.floorMod(h, shards.size()));
+    }
+
+    private void run(BlockingQueue<Request> queue) {
+        List<Request> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                // Le shard continue : les demandes encore en attente échouent
+                // (les créneaux sont rendus par process)
+                for (Request request : batch) {
+                    request.result().completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /** Réserve les créneaux du lot, crée les rendez-vous et les rend durables ensemble. */
+    private void process(List<Request> batch) {
+        List<Request> accepted = new ArrayList<>(batch.size());
+        List<Appointment> appointments = new ArrayList<>(batch.size());
+
+        for (Request request : batch) {
+            Doctor doctor = request.doctor();
+            boolean booked = false;
+            try {
+                // Créneau déjà retenu par le patient, sinon réservation directe
+                booked = request.holdId() != null && repository.claimHold(request.holdId(),
+                        request.patientId(), doctor.getId(), request.dateTime());
+                booked = booked || doctor.bookSlot(request.dateTime().toLocalDate(), request.dateTime().toLocalTime());
+                if (!booked) {
+                    request.result().completeExceptionally(
+                            new IllegalStateException("Selected time slot is not available"));
+                    continue;
+                }
+                slotChanged.accept(doctor);
+            } catch (RuntimeException e) {
+                // Échec propre à cette demande : son créneau est rendu, le lot continue
+                if (booked)
+                    doctor.releaseSlot(request.dateTime().toLocalDate(), request.dateTime().toLocalTime());
+                request.result().completeExceptionally(e);
+                continue;
+            }
+
+            // Version 0, comme le rendez-vous rejoué depuis le journal
+            Appointment appointment = new Appointment(null, request.patientId(), doctor.getId(),
+                    request.dateTime(), Appointment.Status.PENDING);
+            appointment.setNotes("Waiting for doctor response");
+            accepted.add(request);
+            appointments.add(appointment);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            repository.createAppointments(appointments);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < accepted.size(); i++) {
+                Request request = accepted.get(i);
+                Appointment appointment = appointments.get(i);
+                // Rendez-vous écrit mais pas encore synchronisé : il existe,
+                // son créneau reste pris ; sinon le créneau est rendu
+                if (appointment.getId() == null || repository.getAppointmentById(appointment.getId()) != appointment) {
+                    Doctor doctor = request.doctor();
+                    doctor.releaseSlot(request.dateTime().toLocalDate(), request.dateTime().toLocalTime());
+                    slotChanged.accept(doctor);
+                }
+                request.result().completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).result().complete(appointments.get(i));
+        }
+    }
+}
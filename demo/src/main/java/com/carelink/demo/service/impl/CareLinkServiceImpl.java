@@ -5,15 +5,20 @@ import com.carelink.demo.model.strategy.DoctorSearchContext;
 import com.carelink.demo.model.strategy.SearchByAvailability;
 import com.carelink.demo.model.strategy.SearchByLocation;
 import com.carelink.demo.model.strategy.SearchBySpecialty;
+import com.carelink.demo.model.strategy.SearchStrategy;
 import com.carelink.demo.repository.CsvDataRepository;
 import com.carelink.demo.service.CareLinkService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -26,37 +31,87 @@ public class CareLinkServiceImpl implements CareLinkService {
 
     /** Repository CSV (source principale des données). */
     private final CsvDataRepository csvDataRepository = CsvDataRepository.getInstance();
+    private final SearchQueryPlanner queryPlanner = new SearchQueryPlanner(csvDataRepository);
+
+    /** Cache des résultats de recherche. */
+    private final SearchResultCache searchCache;
+
+    /** Réservations : shards à écrivain unique. */
+    private final BookingPipeline bookingPipeline;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** Nombre maximal de jours par inscription en liste d'attente. */
+    private static final int MAX_WAITLIST_DAYS = 31;
 
     /**
-     * Données créées à l'exécution (inscriptions depuis l'application).
-     * Elles complètent les données CSV.
+     * @param searchCacheSize nombre de recherches en cache
+     *                        (carelink.searchCache.size)
+     * @param bookingShards   nombre de shards de réservation, 0 : un par
+     *                        processeur (carelink.booking.shards)
      */
-    private final List<Patient> registeredPatients = new ArrayList<>();
-    private final List<Doctor> registeredDoctors = new ArrayList<>();
+    public CareLinkServiceImpl(@Value("${carelink.searchCache.size:256}") int searchCacheSize,
+            @Value("${carelink.booking.shards:0}") int bookingShards) {
+        searchCache = new SearchResultCache(searchCacheSize);
+        bookingPipeline = new BookingPipeline(csvDataRepository, searchCache::slotChanged,
+                bookingShards > 0 ? bookingShards : Runtime.getRuntime().availableProcessors());
+        csvDataRepository.addReloadListener(searchCache::clear);
+        csvDataRepository.addSlotListener(searchCache::slotChanged);
+    }
 
     // -------------------- Médecins --------------------
 
+    /** Tous les médecins (fichiers et inscriptions), liste non modifiable. */
     @Override
     public List<Doctor> getAllDoctors() {
-        List<Doctor> allDoctors = new ArrayList<>(csvDataRepository.getAllDoctors());
-        allDoctors.addAll(registeredDoctors);
-        return allDoctors;
+        return csvDataRepository.getAllDoctors();
     }
 
     @Override
     public Doctor getDoctorById(String id) {
-        return registeredDoctors.stream()
-                .filter(d -> d.getId().equals(id))
-                .findFirst()
-                .orElse(csvDataRepository.getDoctorById(id));
+        return csvDataRepository.getDoctorById(id);
     }
 
     @Override
     public Doctor getDoctorByEmail(String email) {
-        return registeredDoctors.stream()
-                .filter(d -> d.getEmail().equalsIgnoreCase(email))
-                .findFirst()
-                .orElse(csvDataRepository.getDoctorByEmail(email));
+        return csvDataRepository.getDoctorByEmail(email);
+    }
+
+    @Override
+    public List<Suggestion> autocomplete(String query, int limit) {
+        return csvDataRepository.suggest(query, limit);
+    }
+
+    /** Première disponibilité à partir de maintenant (créneaux déjà commencés exclus). */
+    @Override
+    public List<AvailableSlot> findFirstAvailableSlots(String wilaya, String city, String specialty, int days,
+            int limit) {
+        return csvDataRepository.findFirstAvailableSlots(wilaya, city, specialty, LocalDateTime.now(), days, limit);
+    }
+
+    @Override
+    public List<RankedDoctor> rankDoctors(String wilaya, String city, String specialty, int k) {
+        return csvDataRepository.rankDoctors(wilaya, city, specialty, LocalDateTime.now(), k);
+    }
+
+    /**
+     * Recherche de proximité : un point explicite prime sur la ville et la
+     * wilaya.
+     */
+    @Override
+    public List<NearbyDoctor> findNearestDoctors(Double latitude, Double longitude, String wilaya, String city,
+            String specialty, int k) {
+        if (latitude != null && longitude != null) {
+            if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                throw new IllegalArgumentException("Invalid coordinates");
+            }
+            return csvDataRepository.findNearestDoctors(latitude, longitude, specialty, k);
+        }
+        if (wilaya == null || wilaya.isBlank()) {
+            throw new IllegalArgumentException("Latitude/longitude or wilaya is required");
+        }
+        return csvDataRepository.findNearestDoctors(wilaya.trim(), city == null ? null : city.trim(), specialty, k);
     }
 
     /**
@@ -64,11 +119,7 @@ public class CareLinkServiceImpl implements CareLinkService {
      */
     @Override
     public List<Doctor> findDoctorsByLocation(String wilaya, String city) {
-        List<Doctor> allDoctors = getAllDoctors();
-        return allDoctors.stream()
-                .filter(d -> (wilaya == null || d.getWilaya().equalsIgnoreCase(wilaya)) &&
-                        (city == null || d.getCity().equalsIgnoreCase(city)))
-                .collect(Collectors.toList());
+        return csvDataRepository.findDoctors(wilaya, city, null);
     }
 
     /**
@@ -76,63 +127,69 @@ public class CareLinkServiceImpl implements CareLinkService {
      */
     @Override
     public List<Doctor> findDoctorsBySpecialty(String specialty) {
-        List<Doctor> allDoctors = getAllDoctors();
-        return allDoctors.stream()
-                .filter(d -> d.getSpeciality().equalsIgnoreCase(specialty))
-                .collect(Collectors.toList());
+        return csvDataRepository.findDoctors(null, null, specialty);
     }
 
     /**
-     * Recherche multi-critères (wilaya, ville, spécialité).
+     * Recherche multi-critères (wilaya, ville, spécialité) par l'index
+     * inversé du repository, à travers le cache des résultats.
      */
     @Override
     public List<Doctor> searchDoctors(String wilaya, String city, String specialty) {
-        List<Doctor> filteredDoctors = getAllDoctors();
+        String w = normalizeCriterion(wilaya);
+        String c = normalizeCriterion(city);
+        String s = normalizeCriterion(specialty);
+        return searchCache.get("search|" + w + "|" + c + "|" + s,
+                d -> matchesCriterion(w, d.getWilaya()) && matchesCriterion(c, d.getCity())
+                        && matchesCriterion(s, d.getSpeciality()),
+                false,
+                () -> csvDataRepository.findDoctors(wilaya, city, specialty));
+    }
 
-        if (wilaya != null && !wilaya.isEmpty()) {
-            filteredDoctors = filteredDoctors.stream()
-                    .filter(d -> d.getWilaya().equalsIgnoreCase(wilaya))
-                    .collect(Collectors.toList());
-        }
+    @Override
+    public FacetCounts getFacetCounts(String wilaya, String city, String specialty) {
+        return csvDataRepository.getFacetCounts(wilaya, city, specialty);
+    }
 
-        if (city != null && !city.isEmpty()) {
-            filteredDoctors = filteredDoctors.stream()
-                    .filter(d -> d.getCity().equalsIgnoreCase(city))
-                    .collect(Collectors.toList());
-        }
+    /** Statistiques du cache des résultats de recherche. */
+    @Override
+    public Map<String, Long> getSearchCacheStats() {
+        return searchCache.stats();
+    }
 
-        if (specialty != null && !specialty.isEmpty()) {
-            filteredDoctors = filteredDoctors.stream()
-                    .filter(d -> d.getSpeciality().equalsIgnoreCase(specialty))
-                    .collect(Collectors.toList());
-        }
+    /** Critère normalisé pour les clés du cache ("" : pas de filtre). */
+    private static String normalizeCriterion(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean matchesCriterion(String criterion, String value) {
+        return criterion.isEmpty() || criterion.equalsIgnoreCase(value);
+    }
 
-        return filteredDoctors;
+    /**
+     * Page de la recherche multi-critères, lue par curseur dans l'annuaire
+     * trié par identifiant (hors cache : seule la page est lue).
+     */
+    @Override
+    public DoctorPage searchDoctors(String wilaya, String city, String specialty, String cursor, int limit) {
+        return csvDataRepository.findDoctorPage(wilaya, city, specialty, cursor, limit);
     }
 
     // -------------------- Patients --------------------
 
     @Override
     public List<Patient> getAllPatients() {
-        List<Patient> allPatients = new ArrayList<>(csvDataRepository.getAllPatients());
-        allPatients.addAll(registeredPatients);
-        return allPatients;
+        return csvDataRepository.getAllPatients();
     }
 
     @Override
     public Patient getPatientById(String id) {
-        return registeredPatients.stream()
-                .filter(p -> p.getId().equals(id))
-                .findFirst()
-                .orElse(csvDataRepository.getPatientById(id));
+        return csvDataRepository.getPatientById(id);
     }
 
     @Override
     public Patient getPatientByEmail(String email) {
-        return registeredPatients.stream()
-                .filter(p -> p.getEmail().equalsIgnoreCase(email))
-                .findFirst()
-                .orElse(csvDataRepository.getPatientByEmail(email));
+        return csvDataRepository.getPatientByEmail(email);
     }
 
     // -------------------- Géographie / Spécialités --------------------
@@ -189,40 +246,106 @@ public class CareLinkServiceImpl implements CareLinkService {
      */
     @Override
     public Appointment bookAppointment(String patientId, String doctorId, String date, String time) {
-        if (patientId == null || doctorId == null || date == null || time == null) {
-            throw new IllegalArgumentException("Missing required appointment details");
+        try {
+            return bookAppointmentAsync(patientId, doctorId, date, time).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
+
+    /**
+     * Vérifie la demande sur le thread appelant puis la confie au shard du
+     * médecin, qui réserve le créneau et crée le rendez-vous.
+     */
+    @Override
+    public CompletableFuture<Appointment> bookAppointmentAsync(String patientId, String doctorId, String date,
+            String time) {
+        return bookAppointmentAsync(patientId, doctorId, date, time, null);
+    }
+
+    @Override
+    public CompletableFuture<Appointment> bookAppointmentAsync(String patientId, String doctorId, String date,
+            String time, String holdId) {
+        try {
+            if (patientId == null || doctorId == null || date == null || time == null) {
+                throw new IllegalArgumentException("Missing required appointment details");
+            }
 
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+            LocalDateTime dateTime = LocalDateTime.of(LocalDate.parse(date, DATE_FORMAT),
+                    LocalTime.parse(time, TIME_FORMAT));
 
-        LocalDate appointmentDate = LocalDate.parse(date, dateFormatter);
-        LocalTime appointmentTime = LocalTime.parse(time, timeFormatter);
-        LocalDateTime dateTime = LocalDateTime.of(appointmentDate, appointmentTime);
+            if (getPatientById(patientId) == null)
+                throw new IllegalArgumentException("Patient not found");
 
-        if (!isTimeSlotAvailable(doctorId, date, time)) {
-            throw new IllegalStateException("Selected time slot is not available");
+            Doctor doctor = getDoctorById(doctorId);
+            if (doctor == null)
+                throw new IllegalArgumentException("Doctor not found");
+
+            return bookingPipeline.submit(patientId, doctor, dateTime, holdId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
+    }
 
-        Patient patient = getPatientById(patientId);
-        if (patient == null)
+    @Override
+    public SlotHold holdSlot(String patientId, String doctorId, String date, String time) {
+        if (patientId == null || doctorId == null || date == null || time == null) {
+            throw new IllegalArgumentException("Missing required appointment details");
+        }
+        if (getPatientById(patientId) == null)
             throw new IllegalArgumentException("Patient not found");
 
         Doctor doctor = getDoctorById(doctorId);
         if (doctor == null)
             throw new IllegalArgumentException("Doctor not found");
 
-        Appointment appointment = new Appointment();
-        appointment.setPatientId(patientId);
-        appointment.setDoctorId(doctorId);
-        appointment.setDateTime(dateTime);
-        appointment.setStatus(Appointment.Status.PENDING);
-        appointment.setNotes("Waiting for doctor response");
+        LocalDateTime dateTime = LocalDateTime.of(LocalDate.parse(date, DATE_FORMAT),
+                LocalTime.parse(time, TIME_FORMAT));
+        if (!dateTime.isAfter(LocalDateTime.now()))
+            throw new IllegalArgumentException("Cannot hold a slot in the past");
+        if (!doctor.getCalendar().isOpen(SlotCalendar.slotIndex(dateTime.toLocalTime())))
+            throw new IllegalArgumentException("The doctor does not offer this time slot");
+
+        SlotHold hold = csvDataRepository.holdSlot(doctorId, patientId, dateTime);
+        if (hold == null) {
+            throw new IllegalStateException("Selected time slot is not available");
+        }
+        searchCache.slotChanged(doctor);
+        return hold;
+    }
+
+    @Override
+    public boolean releaseSlotHold(String holdId, String patientId) {
+        return csvDataRepository.releaseHold(holdId, patientId);
+    }
+
+    @Override
+    public void joinWaitlist(String patientId, String doctorId, List<String> dates) {
+        if (patientId == null || doctorId == null || dates == null || dates.isEmpty()) {
+            throw new IllegalArgumentException("Missing waitlist details");
+        }
+        if (dates.size() > MAX_WAITLIST_DAYS)
+            throw new IllegalArgumentException("At most " + MAX_WAITLIST_DAYS + " days per waitlist");
+        if (getPatientById(patientId) == null)
+            throw new IllegalArgumentException("Patient not found");
 
-        // Réserve le créneau dans la disponibilité du médecin
-        doctor.bookSlot(time);
+        LocalDate today = LocalDate.now();
+        List<LocalDate> days = new ArrayList<>(dates.size());
+        for (String date : dates) {
+            LocalDate day = LocalDate.parse(date, DATE_FORMAT);
+            if (day.isBefore(today))
+                throw new IllegalArgumentException("Date is in the past: " + date);
+            days.add(day);
+        }
+        csvDataRepository.joinWaitlist(doctorId, patientId, days);
+    }
 
-        return csvDataRepository.createAppointment(appointment);
+    @Override
+    public boolean leaveWaitlist(String patientId, String doctorId) {
+        return csvDataRepository.leaveWaitlist(doctorId, patientId);
     }
 
     /**
@@ -230,22 +353,28 @@ public class CareLinkServiceImpl implements CareLinkService {
      */
     @Override
     public boolean rescheduleAppointment(String appointmentId, String newDate, String newTime) {
+        return rescheduleAppointment(appointmentId, newDate, newTime, null);
+    }
+
+    @Override
+    public boolean rescheduleAppointment(String appointmentId, String newDate, String newTime, Long expectedVersion) {
         try {
             Appointment appointment = csvDataRepository.getAppointmentById(appointmentId);
             if (appointment == null)
                 return false;
 
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-
-            LocalDate appointmentDate = LocalDate.parse(newDate, dateFormatter);
-            LocalTime appointmentTime = LocalTime.parse(newTime, timeFormatter);
+            LocalDate appointmentDate = LocalDate.parse(newDate, DATE_FORMAT);
+            LocalTime appointmentTime = LocalTime.parse(newTime, TIME_FORMAT);
             LocalDateTime newDateTime = LocalDateTime.of(appointmentDate, appointmentTime);
 
             if (!isTimeSlotAvailable(appointment.getDoctorId(), newDate, newTime))
                 return false;
 
-            return csvDataRepository.rescheduleAppointment(appointmentId, newDateTime);
+            // Le cache est invalidé par l'observateur des créneaux libérés
+            return csvDataRepository.rescheduleAppointment(appointmentId, newDateTime, expectedVersion);
+        } catch (ConcurrentModificationException | UncheckedIOException e) {
+            // Version périmée ou journal indisponible : ce n'est pas un créneau refusé
+            throw e;
         } catch (Exception e) {
             return false;
         }
@@ -253,168 +382,168 @@ public class CareLinkServiceImpl implements CareLinkService {
 
     @Override
     public boolean cancelAppointment(String appointmentId) {
-        return csvDataRepository.cancelAppointment(appointmentId);
+        return cancelAppointment(appointmentId, null);
+    }
+
+    @Override
+    public boolean cancelAppointment(String appointmentId, Long expectedVersion) {
+        // Le cache est invalidé par l'observateur des créneaux libérés
+        return csvDataRepository.cancelAppointment(appointmentId, expectedVersion);
     }
 
     @Override
     public boolean confirmAppointment(String appointmentId) {
-        return csvDataRepository.confirmAppointment(appointmentId);
+        return confirmAppointment(appointmentId, null);
+    }
+
+    @Override
+    public boolean confirmAppointment(String appointmentId, Long expectedVersion) {
+        return csvDataRepository.confirmAppointment(appointmentId, expectedVersion);
     }
 
     @Override
     public boolean completeAppointment(String appointmentId) {
-        return csvDataRepository.completeAppointment(appointmentId);
+        return completeAppointment(appointmentId, null);
+    }
+
+    @Override
+    public boolean completeAppointment(String appointmentId, Long expectedVersion) {
+        return csvDataRepository.completeAppointment(appointmentId, expectedVersion);
+    }
+
+    /**
+     * Les éléments mal formés ou portant sur les rendez-vous d'un autre
+     * médecin échouent seuls ; les autres sont appliqués ensemble par le
+     * repository (un seul fsync du journal).
+     */
+    @Override
+    public List<OperationResult> applyAppointmentOperations(String doctorId, List<Map<String, String>> operations) {
+        OperationResult[] results = new OperationResult[operations.size()];
+        List<AppointmentOperation> accepted = new ArrayList<>(operations.size());
+        List<Integer> positions = new ArrayList<>(operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            Map<String, String> item = operations.get(i);
+            String id = item == null ? null : item.get("id");
+            try {
+                AppointmentOperation operation = toOperation(item);
+                Appointment appointment = csvDataRepository.getAppointmentById(id);
+                if (appointment == null) {
+                    results[i] = OperationResult.failed(id, "Appointment not found");
+                } else if (!doctorId.equals(appointment.getDoctorId())) {
+                    results[i] = OperationResult.failed(id, "Forbidden");
+                } else {
+                    accepted.add(operation);
+                    positions.add(i);
+                }
+            } catch (RuntimeException e) {
+                results[i] = OperationResult.failed(id, "Invalid operation: " + e.getMessage());
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            List<OperationResult> applied = csvDataRepository.applyTransitions(accepted);
+            // Reports et annulations invalident le cache par l'observateur des créneaux libérés
+            for (int j = 0; j < applied.size(); j++) {
+                results[positions.get(j)] = applied.get(j);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static AppointmentOperation toOperation(Map<String, String> item) {
+        if (item == null || item.get("id") == null || item.get("action") == null) {
+            throw new IllegalArgumentException("id and action are required");
+        }
+
+        String version = item.get("version");
+        Long expectedVersion = version == null || version.isBlank() ? null : Long.valueOf(version.trim());
+
+        switch (item.get("action").trim().toLowerCase(Locale.ROOT)) {
+            case "confirm":
+                return new AppointmentOperation(item.get("id"), Appointment.Status.CONFIRMED, null, expectedVersion);
+            case "complete":
+                return new AppointmentOperation(item.get("id"), Appointment.Status.COMPLETED, null, expectedVersion);
+            case "cancel":
+                return new AppointmentOperation(item.get("id"), Appointment.Status.CANCELLED, null, expectedVersion);
+            case "reschedule":
+                if (item.get("newDate") == null || item.get("newTime") == null) {
+                    throw new IllegalArgumentException("newDate and newTime are required");
+                }
+                LocalDateTime newDateTime = LocalDateTime.of(LocalDate.parse(item.get("newDate"), DATE_FORMAT),
+                        LocalTime.parse(item.get("newTime"), TIME_FORMAT));
+                return new AppointmentOperation(item.get("id"), Appointment.Status.RESCHEDULED, newDateTime,
+                        expectedVersion);
+            default:
+                throw new IllegalArgumentException("unknown action " + item.get("action"));
+        }
     }
 
     // -------------------- Authentification / Inscription --------------------
 
+    /** Authentification d'un médecin : recherche par email en O(1). */
     @Override
     public Doctor authenticateDoctor(String email, String password) {
-        Optional<Doctor> registeredDoctor = registeredDoctors.stream()
-                .filter(d -> d.getEmail().equalsIgnoreCase(email) && d.getPasswordHash().equals(password))
-                .findFirst();
-        if (registeredDoctor.isPresent())
-            return registeredDoctor.get();
-
-        return csvDataRepository.validateDoctorCredentials(email, password)
-                ? csvDataRepository.getDoctorByEmail(email)
+        Doctor doctor = csvDataRepository.getDoctorByEmail(email);
+        return doctor != null && doctor.getPasswordHash() != null && doctor.getPasswordHash().equals(password)
+                ? doctor
                 : null;
     }
 
+    /** Authentification d'un patient : recherche par email en O(1). */
     @Override
     public Patient authenticatePatient(String email, String password) {
-        Optional<Patient> registeredPatient = registeredPatients.stream()
-                .filter(p -> p.getEmail().equalsIgnoreCase(email) && p.getPasswordHash().equals(password))
-                .findFirst();
-        if (registeredPatient.isPresent())
-            return registeredPatient.get();
-
-        return csvDataRepository.validatePatientCredentials(email, password)
-                ? csvDataRepository.getPatientByEmail(email)
+        Patient patient = csvDataRepository.getPatientByEmail(email);
+        return patient != null && patient.getPasswordHash() != null && patient.getPasswordHash().equals(password)
+                ? patient
                 : null;
     }
 
     /**
-     * Inscrit un médecin en vérifiant l'unicité de l'email.
+     * Inscrit un médecin ; l'unicité de l'email est garantie par le registre
+     * du repository (réservation atomique).
      */
     @Override
     public Doctor registerDoctor(Doctor doctor) {
-        boolean emailExists = registeredDoctors.stream()
-                .anyMatch(d -> d.getEmail().equalsIgnoreCase(doctor.getEmail()));
-        if (!emailExists)
-            emailExists = csvDataRepository.getDoctorByEmail(doctor.getEmail()) != null;
-        if (emailExists)
-            throw new IllegalArgumentException("Email already registered");
-
-        int nextId = csvDataRepository.getAllDoctors().size() + registeredDoctors.size() + 1;
-        String newId = "D" + String.format("%03d", nextId);
-        doctor.setId(newId);
-
-        registeredDoctors.add(doctor);
-        return doctor;
+        Doctor registered = csvDataRepository.registerDoctor(doctor);
+        searchCache.doctorChanged(registered);
+        return registered;
     }
 
     /**
-     * Inscrit un patient en vérifiant l'unicité de l'email.
+     * Inscrit un patient ; l'unicité de l'email est garantie par le registre
+     * du repository (réservation atomique).
      */
     @Override
     public Patient registerPatient(Patient patient) {
-        boolean emailExists = registeredPatients.stream()
-                .anyMatch(p -> p.getEmail().equalsIgnoreCase(patient.getEmail()));
-        if (!emailExists)
-            emailExists = csvDataRepository.getPatientByEmail(patient.getEmail()) != null;
-        if (emailExists)
-            throw new IllegalArgumentException("Email already registered");
-
-        int nextId = csvDataRepository.getAllPatients().size() + registeredPatients.size() + 1;
-        String newId = "P" + String.format("%03d", nextId);
-        patient.setId(newId);
-
-        registeredPatients.add(patient);
-        return patient;
+        return csvDataRepository.registerPatient(patient);
     }
 
     // -------------------- Mise à jour de profil --------------------
 
     @Override
     public boolean updateDoctorProfile(Doctor doctor) {
-        Optional<Doctor> existingRegisteredDoctor = registeredDoctors.stream()
-                .filter(d -> d.getId().equals(doctor.getId()))
-                .findFirst();
-
-        if (existingRegisteredDoctor.isPresent()) {
-            Doctor foundDoctor = existingRegisteredDoctor.get();
-            foundDoctor.setFirstName(doctor.getFirstName());
-            foundDoctor.setLastName(doctor.getLastName());
-            foundDoctor.setEmail(doctor.getEmail());
-            foundDoctor.setPhone(doctor.getPhone());
-            foundDoctor.setSexe(doctor.getSexe());
-            foundDoctor.setWilaya(doctor.getWilaya());
-            foundDoctor.setCity(doctor.getCity());
-            foundDoctor.setSpeciality(doctor.getSpeciality());
-            foundDoctor.setLocationLink(doctor.getLocationLink());
-
-            if (doctor.getPasswordHash() != null && !doctor.getPasswordHash().isEmpty()) {
-                foundDoctor.setPasswordHash(doctor.getPasswordHash());
-            }
-            return true;
-        }
-
-        Doctor existingCsvDoctor = csvDataRepository.getDoctorById(doctor.getId());
-        if (existingCsvDoctor != null) {
-            registeredDoctors.add(doctor);
-            return true;
+        boolean updated = csvDataRepository.updateDoctorProfile(doctor);
+        if (updated) {
+            searchCache.doctorChanged(getDoctorById(doctor.getId()));
         }
-        return false;
+        return updated;
     }
 
     @Override
     public boolean updatePatientProfile(Patient patient) {
-        Optional<Patient> existingRegisteredPatient = registeredPatients.stream()
-                .filter(p -> p.getId().equals(patient.getId()))
-                .findFirst();
-
-        if (existingRegisteredPatient.isPresent()) {
-            Patient foundPatient = existingRegisteredPatient.get();
-            foundPatient.setFirstName(patient.getFirstName());
-            foundPatient.setLastName(patient.getLastName());
-            foundPatient.setEmail(patient.getEmail());
-            foundPatient.setPhone(patient.getPhone());
-            foundPatient.setSexe(patient.getSexe());
-            foundPatient.setWilaya(patient.getWilaya());
-            foundPatient.setCity(patient.getCity());
-
-            if (patient.getPasswordHash() != null && !patient.getPasswordHash().isEmpty()) {
-                foundPatient.setPasswordHash(patient.getPasswordHash());
-            }
-            return true;
-        }
-
-        Patient existingCsvPatient = csvDataRepository.getPatientById(patient.getId());
-        if (existingCsvPatient != null) {
-            registeredPatients.add(patient);
-            return true;
-        }
-        return false;
+        return csvDataRepository.updatePatientProfile(patient);
     }
 
     // -------------------- Disponibilités --------------------
 
     @Override
     public boolean validateDoctorCredentials(String email, String password) {
-        boolean inRegistered = registeredDoctors.stream()
-                .anyMatch(d -> d.getEmail().equalsIgnoreCase(email) && d.getPasswordHash().equals(password));
-        if (inRegistered)
-            return true;
         return csvDataRepository.validateDoctorCredentials(email, password);
     }
 
     @Override
     public boolean validatePatientCredentials(String email, String password) {
-        boolean inRegistered = registeredPatients.stream()
-                .anyMatch(p -> p.getEmail().equalsIgnoreCase(email) && p.getPasswordHash().equals(password));
-        if (inRegistered)
-            return true;
         return csvDataRepository.validatePatientCredentials(email, password);
     }
 
@@ -424,14 +553,11 @@ public class CareLinkServiceImpl implements CareLinkService {
     @Override
     public boolean isTimeSlotAvailable(String doctorId, String date, String time) {
         try {
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-
-            LocalDate appointmentDate = LocalDate.parse(date, dateFormatter);
-            LocalTime appointmentTime = LocalTime.parse(time, timeFormatter);
-            LocalDateTime dateTime = LocalDateTime.of(appointmentDate, appointmentTime);
+            LocalDate appointmentDate = LocalDate.parse(date, DATE_FORMAT);
+            LocalTime appointmentTime = LocalTime.parse(time, TIME_FORMAT);
 
-            return csvDataRepository.isDoctorAvailable(doctorId, dateTime);
+            Doctor doctor = getDoctorById(doctorId);
+            return doctor != null && doctor.isSlotAvailable(appointmentDate, appointmentTime);
         } catch (Exception e) {
             return false;
         }
@@ -496,25 +622,24 @@ public class CareLinkServiceImpl implements CareLinkService {
 
     @Override
     public List<Appointment> getTodayAppointmentsForDoctor(String doctorId) {
-        LocalDate today = LocalDate.now();
-        return getDoctorAppointments(doctorId).stream()
-                .filter(a -> a.getDateTime().toLocalDate().equals(today))
+        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+        return csvDataRepository.getAppointmentsByDoctorIdBetween(doctorId, startOfDay, startOfDay.plusDays(1))
+                .stream()
                 .filter(a -> a.getStatus() == Appointment.Status.CONFIRMED
                         || a.getStatus() == Appointment.Status.RESCHEDULED
                         || a.getStatus() == Appointment.Status.PENDING)
-                .sorted(Comparator.comparing(Appointment::getDateTime))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Appointment> getUpcomingAppointmentsForPatient(String patientId) {
         LocalDateTime now = LocalDateTime.now();
-        return getPatientAppointments(patientId).stream()
+        return csvDataRepository.getAppointmentsByPatientIdBetween(patientId, now, LocalDateTime.MAX)
+                .stream()
                 .filter(a -> a.getDateTime().isAfter(now))
                 .filter(a -> a.getStatus() == Appointment.Status.PENDING
                         || a.getStatus() == Appointment.Status.CONFIRMED
                         || a.getStatus() == Appointment.Status.RESCHEDULED)
-                .sorted(Comparator.comparing(Appointment::getDateTime))
                 .collect(Collectors.toList());
     }
 
@@ -522,7 +647,9 @@ public class CareLinkServiceImpl implements CareLinkService {
 
     /**
      * Recherche de médecins selon une stratégie (spécialité, localisation,
-     * disponibilité).
+     * disponibilité), ou selon une requête composée (type "query", ex:
+     * "specialty:Cardiology AND wilaya:Oran AND available:10:30"). Les
+     * résultats passent par le cache.
      */
     @Override
     public List<Doctor> searchDoctorsByStrategy(String searchType, String criteria) {
@@ -534,22 +661,43 @@ public class CareLinkServiceImpl implements CareLinkService {
             throw new IllegalArgumentException("Search type is required");
         }
 
-        DoctorSearchContext context = new DoctorSearchContext();
+        String type = searchType.toLowerCase(Locale.ROOT);
+        String key = "strategy|" + type + "|" + criteria.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+
+        if ("query".equals(type)) {
+            return searchCache.get(key, queryPlanner.matcher(criteria), queryPlanner.dependsOnBookings(criteria),
+                    () -> {
+                        SearchQueryPlanner.PreparedSearch search = queryPlanner.prepare(criteria);
+                        DoctorSearchContext context = new DoctorSearchContext();
+                        context.setSearchStrategy(search.strategy());
+                        return context.executeSearch(search.candidates(), criteria);
+                    });
+        }
 
-        switch (searchType.toLowerCase()) {
+        SearchStrategy strategy = strategyFor(type);
+        boolean bookings = "availability".equals(type) && SearchQueryPlanner.isDatedSlot(criteria);
+        return searchCache.get(key, d -> !strategy.search(List.of(d), criteria).isEmpty(), bookings, () -> {
+            DoctorSearchContext context = new DoctorSearchContext();
+            context.setSearchStrategy(strategy);
+            return context.executeSearch(getAllDoctors(), criteria);
+        });
+    }
+
+    private static SearchStrategy strategyFor(String searchType) {
+        switch (searchType) {
             case "specialty":
-                context.setSearchStrategy(new SearchBySpecialty());
-                break;
+                return new SearchBySpecialty();
             case "location":
-                context.setSearchStrategy(new SearchByLocation());
-                break;
+                return new SearchByLocation();
             case "availability":
-                context.setSearchStrategy(new SearchByAvailability());
-                break;
+                return new SearchByAvailability();
             default:
                 throw new IllegalArgumentException("Unknown search type: " + searchType);
         }
+    }
 
-        return context.executeSearch(getAllDoctors(), criteria);
+    @Override
+    public DoctorPage searchDoctorsByStrategy(String searchType, String criteria, String cursor, int limit) {
+        return DoctorPage.of(searchDoctorsByStrategy(searchType, criteria), cursor, limit);
     }
 }
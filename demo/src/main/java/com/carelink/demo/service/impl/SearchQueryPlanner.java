@@ -0,0 +1,295 @@
+package com.carelink.demo.service.impl;
+
+import com.carelink.demo.model.City;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.NameDictionary;
+import com.carelink.demo.model.Specialty;
+import com.carelink.demo.model.Wilaya;
+import com.carelink.demo.model.strategy.CompositeSearch;
+import com.carelink.demo.model.strategy.SearchByAvailability;
+import com.carelink.demo.model.strategy.SearchByLocation;
+import com.carelink.demo.model.strategy.SearchStrategy;
+import com.carelink.demo.repository.CsvDataRepository;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Planificateur des recherches composées, exprimées dans un petit langage :
+ *
+ * <pre>
+ * specialty:Cardiology AND wilaya:Oran AND available:10:30
+ * </pre>
+ *
+ * Champs : specialty, wilaya, city (indexés), location (wilaya ou ville) et
+ * available ("HH:mm" ou "yyyy-MM-ddTHH:mm"). Les valeurs peuvent être entre
+ * guillemets (un "AND" entre guillemets fait partie de la valeur) ; la casse
+ * des champs et de "AND" est libre.
+ *
+ * Plan d'exécution : les critères indexés sont résolus ensemble par
+ * l'index inversé du repository (intersection de bitmaps), puis les autres
+ * critères sont appliqués par une {@link CompositeSearch}, du plus sélectif
+ * au moins sélectif d'après les cardinalités courantes de l'index.
+ *
+ * Les plans compilés sont mis en cache par requête normalisée (champs en
+ * minuscules, clauses triées).
+ */
+final class SearchQueryPlanner {
+
+    /** Taille maximale du cache de plans (vidé lorsqu'elle est atteinte). */
+    private static final int MAX_CACHED_PLANS = 512;
+
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+
+    private final CsvDataRepository repository;
+    private final Map<String, Plan> plans = new ConcurrentHashMap<>();
+
+    SearchQueryPlanner(CsvDataRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Recherche préparée : médecins issus de l'index et stratégie à leur
+     * appliquer.
+     */
+    record PreparedSearch(List<Doctor> candidates, SearchStrategy strategy) {
+    }
+
+    /**
+     * Compile (ou reprend du cache) puis prépare l'exécution d'une requête.
+     *
+     * @throws IllegalArgumentException si la requête est mal formée
+     */
+    PreparedSearch prepare(String query) {
+        Plan plan = compile(query);
+
+        List<Doctor> candidates = plan.contradictory()
+                ? new ArrayList<>()
+                : repository.findDoctors(plan.wilaya(), plan.city(), plan.specialty());
+
+        // Filtres restants, du plus sélectif au moins sélectif
+        List<Residual> residuals = new ArrayList<>(plan.residuals());
+        residuals.sort(Comparator.comparingDouble(this::estimate));
+
+        List<CompositeSearch.Step> steps = new ArrayList<>(residuals.size());
+        for (Residual residual : residuals) {
+            steps.add(new CompositeSearch.Step(residual.strategy(), residual.value()));
+        }
+        return new PreparedSearch(candidates, new CompositeSearch(steps));
+    }
+
+    /**
+     * Prédicat de la requête évalué sur un seul médecin (invalidation du
+     * cache des résultats).
+     */
+    Predicate<Doctor> matcher(String query) {
+        Plan plan = compile(query);
+        if (plan.contradictory()) {
+            return doctor -> false;
+        }
+        List<CompositeSearch.Step> steps = new ArrayList<>(plan.residuals().size());
+        for (Residual residual : plan.residuals()) {
+            steps.add(new CompositeSearch.Step(residual.strategy(), residual.value()));
+        }
+        CompositeSearch residuals = new CompositeSearch(steps);
+        // Mêmes codes de dictionnaire que l'index (findDoctors)
+        int wilaya = Wilaya.NAMES.find(plan.wilaya());
+        int city = City.NAMES.find(plan.city());
+        int specialty = Specialty.NAMES.find(plan.specialty());
+        return doctor -> matches(Wilaya.NAMES, plan.wilaya(), wilaya, doctor.getWilayaCode())
+                && matches(City.NAMES, plan.city(), city, doctor.getCityCode())
+                && matches(Specialty.NAMES, plan.specialty(), specialty, doctor.getSpecialityCode())
+                && !residuals.search(List.of(doctor), null).isEmpty();
+    }
+
+    /** Indique si le résultat de la requête dépend des réservations (créneau daté). */
+    boolean dependsOnBookings(String query) {
+        for (Residual residual : compile(query).residuals()) {
+            if ("available".equals(residual.field()) && isDatedSlot(residual.value())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Critère de disponibilité "yyyy-MM-ddTHH:mm" (et non "HH:mm"). */
+    static boolean isDatedSlot(String criterion) {
+        return criterion != null && criterion.trim().length() > 5;
+    }
+
+    /**
+     * Compare les codes ; un nom encore inconnu à la construction du
+     * prédicat est recherché de nouveau (médecin inscrit depuis sous ce nom).
+     */
+    private static boolean matches(NameDictionary names, String expected, int code, int actual) {
+        if (expected == null) {
+            return true;
+        }
+        return (code != NameDictionary.UNKNOWN ? code : names.find(expected)) == actual;
+    }
+
+    // -------------------- Compilation --------------------
+
+    /** Clause non indexée : stratégie appliquée sur les candidats. */
+    private record Residual(String field, String value, SearchStrategy strategy) {
+    }
+
+    /**
+     * Plan compilé (immuable, partagé entre les requêtes).
+     *
+     * @param contradictory deux valeurs différentes pour un même champ indexé
+     */
+    private record Plan(String wilaya, String city, String specialty, List<Residual> residuals,
+            boolean contradictory) {
+    }
+
+    private Plan compile(String query) {
+        Map<String, List<String>> clauses = parse(query);
+        String key = normalize(clauses);
+
+        Plan plan = plans.get(key);
+        if (plan != null) {
+            return plan;
+        }
+
+        boolean contradictory = false;
+        String[] indexed = new String[3];
+        List<Residual> residuals = new ArrayList<>();
+
+        for (Map.Entry<String, List<String>> clause : clauses.entrySet()) {
+            String field = clause.getKey();
+            for (String value : clause.getValue()) {
+                switch (field) {
+                    case "wilaya":
+                    case "city":
+                    case "specialty": {
+                        int slot = "wilaya".equals(field) ? 0 : "city".equals(field) ? 1 : 2;
+                        if (indexed[slot] != null && !indexed[slot].equalsIgnoreCase(value)) {
+                            contradictory = true;
+                        }
+                        indexed[slot] = value;
+                        break;
+                    }
+                    case "location":
+                        residuals.add(new Residual(field, value, new SearchByLocation()));
+                        break;
+                    case "available":
+                        residuals.add(new Residual(field, value, new SearchByAvailability()));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown search field: " + field);
+                }
+            }
+        }
+
+        plan = new Plan(indexed[0], indexed[1], indexed[2], List.copyOf(residuals), contradictory);
+        if (plans.size() >= MAX_CACHED_PLANS) {
+            plans.clear();
+        }
+        plans.put(key, plan);
+        return plan;
+    }
+
+    /**
+     * Découpe la requête en clauses "champ:valeur" reliées par AND.
+     *
+     * @return valeurs par champ (champs en minuscules, triés)
+     */
+    private static Map<String, List<String>> parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is empty");
+        }
+
+        Map<String, List<String>> clauses = new TreeMap<>();
+        for (String clause : split(query.trim())) {
+            int colon = clause.indexOf(':');
+            if (colon <= 0 || colon == clause.length() - 1) {
+                throw new IllegalArgumentException("Invalid search clause: " + clause.trim());
+            }
+            String field = clause.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = unquote(clause.substring(colon + 1).trim());
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Invalid search clause: " + clause.trim());
+            }
+            clauses.computeIfAbsent(field, f -> new ArrayList<>()).add(value);
+        }
+        return clauses;
+    }
+
+    /** Découpe sur "AND" entouré d'espaces, hors des guillemets. */
+    private static List<String> split(String query) {
+        List<String> clauses = new ArrayList<>();
+        Matcher and = AND.matcher(query);
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && Character.isWhitespace(c) && and.region(i, query.length()).lookingAt()) {
+                clauses.add(query.substring(start, i));
+                start = and.end();
+                i = start - 1;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote in search query");
+        }
+        clauses.add(query.substring(start));
+        return clauses;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+
+    /** Forme canonique : "champ:valeur" en minuscules, clauses triées. */
+    private static String normalize(Map<String, List<String>> clauses) {
+        List<String> parts = new ArrayList<>();
+        for (Map.Entry<String, List<String>> clause : clauses.entrySet()) {
+            for (String value : clause.getValue()) {
+                parts.add(clause.getKey() + ":" + value.toLowerCase(Locale.ROOT));
+            }
+        }
+        parts.sort(null);
+        return String.join(" AND ", parts);
+    }
+
+    // -------------------- Estimation --------------------
+
+    /**
+     * Nombre estimé de médecins satisfaisant une clause non indexée.
+     *
+     * Pour "available", c'est le nombre de médecins dont les horaires
+     * comprennent ce créneau (compteurs de l'index) : pour un créneau daté,
+     * les réservations du jour ne sont pas déduites et l'estimation est une
+     * borne haute. Un créneau illisible ne retient personne.
+     */
+    private double estimate(Residual residual) {
+        if ("location".equals(residual.field())) {
+            return repository.countDoctors(residual.value(), null, null)
+                    + repository.countDoctors(null, residual.value(), null);
+        }
+        String slot = residual.value().trim().replace(' ', 'T');
+        try {
+            LocalTime time = isDatedSlot(slot) ? LocalDateTime.parse(slot).toLocalTime() : LocalTime.parse(slot);
+            return repository.countDoctorsOpenAt(time);
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.carelink.demo.service.impl;
+
+import com.carelink.demo.model.Doctor;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache borné des résultats de recherche de médecins, indexé par critères
+ * normalisés.
+ *
+ * Éviction sensible à la fréquence (principe TinyLFU) : un petit sketch
+ * compte les accès de chaque clé (compteurs de 4 bits, divisés par deux
+ * périodiquement pour oublier l'historique ancien). Quand le cache est
+ * plein, la victime est la clé la moins fréquente d'un échantillon tiré au
+ * hasard parmi les clés résidentes (coût constant, quelle que soit la
+ * capacité), et un nouveau résultat n'est admis que s'il est plus demandé
+ * qu'elle : une recherche isolée ne chasse pas les combinaisons populaires.
+ *
+ * Invalidation précise : chaque entrée connaît le prédicat de sa recherche
+ * et les identifiants de son résultat. Quand un médecin change
+ * (inscription, profil, réservation), seules les entrées qui le
+ * contenaient ou qui le contiendraient désormais sont retirées. Les
+ * réservations ne concernent que les recherches par créneau daté.
+ *
+ * Les invalidations ne prennent pas de verrou. Chaque recherche en cours de
+ * calcul reçoit les changements survenus pendant son exécution ; à
+ * l'admission, son résultat n'est écarté (ou retiré, si le changement est
+ * arrivé pendant l'insertion) que si l'un d'eux le concerne, selon la même
+ * règle que les entrées résidentes.
+ */
+final class SearchResultCache {
+
+    /** Nombre de lignes et taille (puissance de 2) de chaque ligne du sketch. */
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int MAX_COUNT = 15;
+
+    /** Nombre de clés résidentes comparées pour choisir une victime. */
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final int capacity;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Case occupée par chaque clé admise (protégés par le moniteur) : les
+     * victimes sont tirées parmi les cases, et la case d'une clé invalidée
+     * est réutilisée.
+     */
+    private final String[] slots;
+    private final Map<String, Integer> slotOf = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int usedSlots;
+
+    /** Clés retirées par une invalidation, dont la case n'est pas encore libérée. */
+    private final Queue<String> released = new ConcurrentLinkedQueue<>();
+
+    private final int[][] sketch = new int[SKETCH_DEPTH][SKETCH_WIDTH];
+    private int sketchAdditions;
+    private final int sketchResetAt;
+
+    /** Recherches en cours de calcul, informées de chaque invalidation. */
+    private final Set<Computation> computations = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Changement d'un médecin ; {@code doctor} null : tout le cache est
+     * périmé (rechargement).
+     */
+    private record Change(Doctor doctor, boolean slotsOnly) {
+    }
+
+    /** Recherche en cours de calcul et changements survenus depuis son début. */
+    private static final class Computation {
+        final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    }
+
+    private static final class Entry {
+        final List<Doctor> doctors;
+        final Set<String> ids;
+        final Predicate<Doctor> matches;
+        final boolean slotDependent;
+
+        Entry(List<Doctor> doctors, Predicate<Doctor> matches, boolean slotDependent) {
+            this.doctors = doctors;
+            this.ids = new HashSet<>(Math.max(16, doctors.size() * 4 / 3));
+            for (Doctor doctor : doctors) {
+                ids.add(doctor.getId());
+            }
+            this.matches = matches;
+            this.slotDependent = slotDependent;
+        }
+
+        /** Le résultat peut être périmé par ce changement. */
+        boolean affectedBy(Change change) {
+            Doctor doctor = change.doctor();
+            return doctor == null || ((!change.slotsOnly() || slotDependent) && concerns(doctor));
+        }
+
+        /** Le médecin fait (ou ferait désormais) partie du résultat. */
+        boolean concerns(Doctor doctor) {
+            return ids.contains(doctor.getId()) || matches.test(doctor);
+        }
+
+        /** Un des changements survenus pendant le calcul concerne le résultat. */
+        boolean outdatedBy(Computation computation) {
+            for (Change change : computation.changes) {
+                if (affectedBy(change)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    SearchResultCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.sketchResetAt = 10 * this.capacity;
+        this.slots = new String[this.capacity];
+    }
+
+    /**
+     * Résultat d'une recherche, depuis le cache ou calculé par {@code search}.
+     *
+     * @param key           critères normalisés
+     * @param matches       indique si un médecin satisfait la recherche
+     * @param slotDependent le résultat dépend des réservations
+     * @return liste non modifiable (partagée entre les appelants)
+     */
+    List<Doctor> get(String key, Predicate<Doctor> matches, boolean slotDependent, Supplier<List<Doctor>> search) {
+        recordAccess(key);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.doctors;
+        }
+        misses.incrementAndGet();
+
+        Computation computation = new Computation();
+        computations.add(computation);
+        try {
+            List<Doctor> doctors = List.copyOf(search.get());
+            admit(key, new Entry(doctors, matches, slotDependent), computation);
+            return doctors;
+        } finally {
+            computations.remove(computation);
+        }
+    }
+
+    private synchronized void admit(String key, Entry entry, Computation computation) {
+        if (entry.outdatedBy(computation)) {
+            // Un médecin du résultat a changé pendant le calcul
+            return;
+        }
+        releaseInvalidated();
+
+        Integer slot = slotOf.get(key);
+        if (slot == null) {
+            slot = freeSlots.poll();
+        }
+        if (slot == null && usedSlots < capacity) {
+            slot = usedSlots++;
+        }
+        if (slot == null) {
+            slot = sampleVictim();
+            String victim = slots[slot];
+            if (entries.containsKey(victim)) {
+                if (frequency(key) <= frequency(victim)) {
+                    rejections.incrementAndGet();
+                    return;
+                }
+                entries.remove(victim);
+                evictions.incrementAndGet();
+            }
+            slotOf.remove(victim);
+        }
+        slots[slot] = key;
+        slotOf.put(key, slot);
+
+        entries.put(key, entry);
+        if (entry.outdatedBy(computation)) {
+            // Invalidation commencée pendant l'insertion : elle a pu ne pas voir l'entrée
+            if (entries.remove(key, entry)) {
+                released.add(key);
+            }
+        }
+    }
+
+    /**
+     * Case de la clé la moins fréquente d'un échantillon (cache plein). Une
+     * clé invalidée depuis {@link #releaseInvalidated()} est prise d'office.
+     */
+    private int sampleVictim() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int victim = -1;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < EVICTION_SAMPLE; i++) {
+            int candidate = random.nextInt(capacity);
+            String resident = slots[candidate];
+            if (resident == null || !entries.containsKey(resident)) {
+                return candidate;
+            }
+            int frequency = frequency(resident);
+            if (frequency < victimFrequency) {
+                victim = candidate;
+                victimFrequency = frequency;
+            }
+        }
+        return victim;
+    }
+
+    /** Libère les cases des clés invalidées qui n'ont pas été réadmises depuis. */
+    private void releaseInvalidated() {
+        String key;
+        while ((key = released.poll()) != null) {
+            Integer slot = slotOf.get(key);
+            if (slot != null && !entries.containsKey(key)) {
+                slotOf.remove(key);
+                slots[slot] = null;
+                freeSlots.push(slot);
+            }
+        }
+    }
+
+    // -------------------- Invalidation --------------------
+
+    /** Inscription ou modification de profil (wilaya, ville, spécialité, horaires). */
+    void doctorChanged(Doctor doctor) {
+        invalidate(doctor, false);
+    }
+
+    /** Réservation, annulation ou report d'un créneau du médecin. */
+    void slotChanged(Doctor doctor) {
+        invalidate(doctor, true);
+    }
+
+    /**
+     * Signale le changement aux calculs en cours, puis retire les entrées
+     * concernées (dans cet ordre : une admission qui n'a pas vu le
+     * changement a déjà inséré son entrée).
+     */
+    private void invalidate(Doctor doctor, boolean slotsOnly) {
+        if (doctor == null) {
+            return;
+        }
+        Change change = new Change(doctor, slotsOnly);
+        for (Computation computation : computations) {
+            computation.changes.add(change);
+        }
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.affectedBy(change) && entries.remove(e.getKey(), entry)) {
+                invalidations.incrementAndGet();
+                released.add(e.getKey());
+            }
+        }
+    }
+
+    /** Vide le cache (rechargement de l'annuaire). */
+    synchronized void clear() {
+        Change everything = new Change(null, false);
+        for (Computation computation : computations) {
+            computation.changes.add(everything);
+        }
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+        released.clear();
+        slotOf.clear();
+        freeSlots.clear();
+        Arrays.fill(slots, null);
+        usedSlots = 0;
+    }
+
+    /** Compteurs : hits, misses, évictions, refus d'admission, invalidations, taille. */
+    Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("rejections", rejections.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("size", (long) entries.size());
+        stats.put("capacity", (long) capacity);
+        return stats;
+    }
+
+    // -------------------- Sketch de fréquence --------------------
+
+    /**
+     * Compte un accès. Les compteurs sont lus et écrits sans verrou : une
+     * mise à jour perdue ne fausse qu'à la marge une estimation.
+     */
+    private void recordAccess(String key) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (sketch[row][index] < MAX_COUNT) {
+                sketch[row][index]++;
+            }
+        }
+        if (++sketchAdditions >= sketchResetAt) {
+            age();
+        }
+    }
+
+    /** Divise tous les compteurs par deux (vieillissement). */
+    private synchronized void age() {
+        if (sketchAdditions < sketchResetAt) {
+            return;
+        }
+        for (int[] row : sketch) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        sketchAdditions = 0;
+    }
+
+    /** Estimation (count-min) du nombre d'accès récents à une clé. */
+    private int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            min = Math.min(min, sketch[row][indexOf(hash, row)]);
+        }
+        return min;
+    }
+
+    private static int indexOf(int hash, int row) {
+        int h = hash * (0x9E3779B9 + 2 * row + 1);
+        return (h ^ (h >>> 16)) & (SKETCH_WIDTH - 1);
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+}
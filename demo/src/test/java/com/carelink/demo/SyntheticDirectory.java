@@ -0,0 +1,187 @@
+package com.carelink.demo;
+
+import com.carelink.demo.model.City;
+import com.carelink.demo.model.Doctor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Annuaire synthétique pour les mesures de performance : médecins, patients
+ * et rendez-vous générés à partir des wilayas, villes et spécialités
+ * fournies avec l'application, de façon déterministe (graine fixe).
+ */
+public final class SyntheticDirectory {
+
+    /** Wilaya, ville, latitude et longitude de chaque ligne de data/cities.csv. */
+    private static final List<String[]> PLACES = new ArrayList<>();
+    private static final List<String> SPECIALTIES = new ArrayList<>();
+
+    static {
+        for (String[] row : readBundled("cities.csv")) {
+            PLACES.add(row);
+        }
+        for (String[] row : readBundled("specialties.csv")) {
+            SPECIALTIES.add(row[1]);
+        }
+    }
+
+    private SyntheticDirectory() {
+    }
+
+    public static List<String> specialties() {
+        return List.copyOf(SPECIALTIES);
+    }
+
+    /** Wilaya et ville d'une ligne de data/cities.csv. */
+    public static String[] place(int index) {
+        String[] row = PLACES.get(Math.floorMod(index, PLACES.size()));
+        return new String[] {row[0], row[1]};
+    }
+
+    /** Villes de data/cities.csv, avec leur centre. */
+    public static List<City> cities() {
+        List<City> cities = new ArrayList<>(PLACES.size());
+        for (String[] row : PLACES) {
+            cities.add(new City(row[1], row[0], Double.parseDouble(row[2]), Double.parseDouble(row[3])));
+        }
+        return cities;
+    }
+
+    /** Médecins "S000001"... répartis au hasard sur les villes et spécialités. */
+    public static List<Doctor> doctors(int count) {
+        Random random = new Random(42);
+        List<Doctor> doctors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            doctors.add(doctor(i, random));
+        }
+        return doctors;
+    }
+
+    /**
+     * Écrit les cinq fichiers CSV d'un annuaire complet dans {@code dir}
+     * (format des fichiers de data/).
+     */
+    public static void writeCsvFiles(Path dir, int doctorCount, int patientCount, int appointmentCount)
+            throws IOException {
+        Files.createDirectories(dir);
+        copyBundled(dir, "specialties.csv");
+        copyBundled(dir, "cities.csv");
+
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("doctors.csv"))) {
+            out.write("ID,First_Name,Last_Name,Wilaya,City,Email,Password,Phone Number,Sexe,Speciality,Location_Link\n");
+            for (int i = 0; i < doctorCount; i++) {
+                Doctor d = doctor(i, random);
+                out.write(String.join(",", d.getId(), d.getFirstName(), d.getLastName(), d.getWilaya(),
+                        d.getCity(), d.getEmail(), d.getPasswordHash(), d.getPhone(), d.getSexe(),
+                        d.getSpeciality(), ""));
+                out.write('\n');
+            }
+        }
+
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("patients.csv"))) {
+            out.write("ID,First Name,Last Name,Wilaya,City,Email,Password,Phone Number,Sexe\n");
+            for (int i = 0; i < patientCount; i++) {
+                String[] place = place(random.nextInt(PLACES.size()));
+                out.write(String.join(",", patientId(i), "Patient" + i, "Synthetic", place[0], place[1],
+                        "patient" + i + "@carelink.test", "secret", "0555000000", i % 2 == 0 ? "M" : "F"));
+                out.write('\n');
+            }
+        }
+
+        // Chaque médecin reçoit ses rendez-vous sur des créneaux successifs (08:00-15:30)
+        LocalDate first = LocalDate.of(2030, 1, 1);
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve("appointments.csv"))) {
+            out.write("id,patientId,doctorId,dateTime,status\n");
+            for (int i = 0; i < appointmentCount; i++) {
+                int doctor = i % doctorCount;
+                int rank = i / doctorCount;
+                LocalDate date = first.plusDays(rank / 16);
+                int minutes = 8 * 60 + (rank % 16) * 30;
+                out.write("A" + i + "," + patientId(random.nextInt(patientCount)) + "," + doctorId(doctor) + ","
+                        + date + "T" + String.format("%02d:%02d", minutes / 60, minutes % 60) + ",CONFIRMED\n");
+            }
+        }
+    }
+
+    /**
+     * Écrit un annuaire de {@code doctorCount} médecins (sans rendez-vous)
+     * dans un répertoire temporaire et le désigne comme "carelink.data.dir".
+     * Le journal et le snapshot y sont placés aussi, sauf s'ils sont déjà
+     * redirigés. À appeler avant la création du repository.
+     */
+    public static Path installDataDir(int doctorCount) {
+        try {
+            Path dir = Files.createTempDirectory("carelink-directory");
+            writeCsvFiles(dir, doctorCount, 1, 0);
+            System.setProperty("carelink.data.dir", dir.toString());
+            if (System.getProperty("carelink.journal.path") == null) {
+                System.setProperty("carelink.journal.path", dir.resolve("appointments.journal").toString());
+            }
+            if (System.getProperty("carelink.snapshot.path") == null) {
+                System.setProperty("carelink.snapshot.path", dir.resolve("repository.snapshot").toString());
+                System.setProperty("carelink.snapshot.intervalSeconds", "0");
+            }
+            return dir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Doctor doctor(int i, Random random) {
+        String[] place = place(random.nextInt(PLACES.size()));
+        String specialty = SPECIALTIES.get(random.nextInt(SPECIALTIES.size()));
+        return new Doctor(doctorId(i), "First" + i, "Last" + i, place[0], place[1], "doctor" + i + "@carelink.test",
+                "secret", "0555000000", i % 2 == 0 ? "M" : "F", specialty, null);
+    }
+
+    private static String doctorId(int i) {
+        return "S" + String.format("%07d", i);
+    }
+
+    private static String patientId(int i) {
+        return "Q" + String.format("%07d", i);
+    }
+
+    private static void copyBundled(Path dir, String fileName) throws IOException {
+        try (InputStream in = open(fileName)) {
+            Files.write(dir.resolve(fileName), in.readAllBytes());
+        }
+    }
+
+    private static List<String[]> readBundled(String fileName) {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(fileName), StandardCharsets.UTF_8))) {
+            reader.readLine(); // en-tête
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    rows.add(line.split(",", -1));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private static InputStream open(String fileName) throws IOException {
+        InputStream in = SyntheticDirectory.class.getResourceAsStream("/data/" + fileName);
+        if (in == null) {
+            throw new IOException("Missing bundled data file " + fileName);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,66 @@
+package com.carelink.demo.model;
+
+import com.carelink.demo.SyntheticDirectory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mémoire occupée par un annuaire de médecins dont la wilaya, la ville et
+ * la spécialité sont des codes du dictionnaire, comparée à l'ancienne
+ * disposition où chaque médecin gardait sa propre copie des trois chaînes
+ * (une par ligne CSV lue).
+ *
+ * L'ancienne disposition est reconstituée en ajoutant à l'annuaire les
+ * copies distinctes des trois noms de chaque médecin ; les champs
+ * référence qu'elles remplaçaient avaient la taille des champs int
+ * actuels. Mesure à la demande :
+ * {@code mvn test -Dtest=DoctorFootprintBenchmarkTest -Dcarelink.benchmarks=true}
+ * (taille : carelink.benchmarks.doctors).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class DoctorFootprintBenchmarkTest {
+
+    private static final int DOCTORS = Integer.getInteger("carelink.benchmarks.doctors", 1_000_000);
+
+    @Test
+    void heapWithDictionaryCodesVersusStringCopies() {
+        long empty = usedHeap();
+        List<Doctor> doctors = SyntheticDirectory.doctors(DOCTORS);
+        long coded = usedHeap() - empty;
+
+        // Ancienne disposition : trois chaînes propres à chaque médecin
+        String[] copies = new String[DOCTORS * 3];
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor doctor = doctors.get(i);
+            copies[3 * i] = copy(doctor.getWilaya());
+            copies[3 * i + 1] = copy(doctor.getCity());
+            copies[3 * i + 2] = copy(doctor.getSpeciality());
+        }
+        long referenceArray = 16L + 4L * copies.length; // références compressées
+        long strings = usedHeap() - empty - coded - referenceArray;
+
+        System.out.printf("heap for %,d doctors%n  dictionary codes: %,d MB%n  string copies:    %,d MB"
+                + " (+%,d MB of wilaya/city/specialty strings)%n",
+                doctors.size(), coded >> 20, (coded + strings) >> 20, strings >> 20);
+
+        assertThat(strings).isPositive();
+        assertThat(copies[copies.length - 1]).isNotNull();
+    }
+
+    /** Chaîne égale mais distincte (son tableau d'octets compris), comme à la lecture d'un CSV. */
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
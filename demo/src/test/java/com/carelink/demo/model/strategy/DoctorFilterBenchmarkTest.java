@@ -0,0 +1,80 @@
+package com.carelink.demo.model.strategy;
+
+import com.carelink.demo.SyntheticDirectory;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.Specialty;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Point de bascule entre le filtrage séquentiel et le filtrage parallèle de
+ * {@link DoctorFilter}, pour le prédicat de {@link SearchBySpecialty}
+ * (comparaison de codes) sur des listes de tailles croissantes.
+ *
+ * La taille à partir de laquelle le parallèle l'emporte à chaque mesure est
+ * la valeur à donner à carelink.search.parallelThreshold sur la machine
+ * mesurée. Mesure à la
+ * demande :
+ * {@code mvn test -Dtest=DoctorFilterBenchmarkTest -Dcarelink.benchmarks=true}
+ * (taille maximale : carelink.benchmarks.doctors).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class DoctorFilterBenchmarkTest {
+
+    private static final int DOCTORS = Integer.getInteger("carelink.benchmarks.doctors", 1_000_000);
+
+    /** Médecins examinés par mesure (répétitions = budget / taille). */
+    private static final long BUDGET = 200_000_000L;
+
+    @Test
+    void sequentialVersusParallelCrossover() {
+        List<Doctor> all = SyntheticDirectory.doctors(DOCTORS);
+        int code = Specialty.NAMES.find(SyntheticDirectory.specialties().get(0));
+        Predicate<Doctor> matches = d -> d.getSpecialityCode() == code;
+
+        System.out.printf("filter crossover, %d processors, common pool parallelism %d%n",
+                Runtime.getRuntime().availableProcessors(), ForkJoinPool.getCommonPoolParallelism());
+        Integer crossover = null;
+        for (int size = Math.min(1_000, DOCTORS); ; size = Math.min(size * 4, DOCTORS)) {
+            List<Doctor> doctors = all.subList(0, size);
+            assertThat(DoctorFilter.parallel(doctors, matches)).isEqualTo(DoctorFilter.sequential(doctors, matches));
+
+            long sequential = nanosPerCall(() -> DoctorFilter.sequential(doctors, matches), size);
+            long parallel = nanosPerCall(() -> DoctorFilter.parallel(doctors, matches), size);
+            System.out.printf("  %,9d doctors: sequential %,8d us, parallel %,8d us%n",
+                    size, sequential / 1_000, parallel / 1_000);
+            if (parallel >= sequential) {
+                crossover = null;
+            } else if (crossover == null) {
+                crossover = size;
+            }
+            if (size == DOCTORS) {
+                break;
+            }
+        }
+        System.out.println("  parallel wins from: " + (crossover != null ? crossover : "never (up to " + DOCTORS + ")"));
+    }
+
+    /** Durée moyenne d'un filtrage, après un échauffement de même durée. */
+    private static long nanosPerCall(Supplier<List<Doctor>> call, int size) {
+        int rounds = (int) Math.max(5, BUDGET / size);
+        long sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += call.get().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += call.get().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isNotNegative();
+        return elapsed / rounds;
+    }
+}
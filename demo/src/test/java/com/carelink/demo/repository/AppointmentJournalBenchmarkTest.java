@@ -0,0 +1,74 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Réservations journalisées par seconde selon la politique de fsync : chaque
+ * thread écrit un enregistrement CREATE et attend sa durabilité, comme
+ * {@link CsvDataRepository#createAppointment(Appointment)}.
+ *
+ * Mesure à la demande : {@code mvn test -Dtest=AppointmentJournalBenchmarkTest
+ * -Dcarelink.benchmarks=true} (threads et durée :
+ * carelink.benchmarks.threads, carelink.benchmarks.millis ; fenêtre du group
+ * commit : carelink.journal.groupCommitMillis, comme le repository).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class AppointmentJournalBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("carelink.benchmarks.threads", 8);
+    private static final long MILLIS = Long.getLong("carelink.benchmarks.millis", 3000L);
+    private static final long GROUP_COMMIT_MILLIS = Long.getLong("carelink.journal.groupCommitMillis", 0L);
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(AppointmentJournal.FsyncPolicy.class)
+    void bookingsPerSecond(AppointmentJournal.FsyncPolicy policy) throws Exception {
+        try (AppointmentJournal journal = new AppointmentJournal(dir.resolve(policy + ".journal"), policy,
+                GROUP_COMMIT_MILLIS)) {
+            run(journal, MILLIS / 5); // préchauffage
+            long bookings = run(journal, MILLIS);
+            System.out.printf("journal %-6s %2d threads: %,10.0f bookings/s%n", policy, THREADS,
+                    bookings * 1000.0 / MILLIS);
+            assertThat(bookings).isPositive();
+        }
+    }
+
+    private static long run(AppointmentJournal journal, long millis) throws InterruptedException {
+        AtomicLong bookings = new AtomicLong();
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String doctorId = "ID" + String.format("%03d", t + 1);
+            Thread thread = new Thread(() -> {
+                LocalDateTime dateTime = LocalDateTime.of(2030, 1, 7, 8, 0);
+                long n = 0;
+                while (System.nanoTime() < deadline) {
+                    journal.append(new AppointmentJournal.Entry(AppointmentJournal.Type.CREATE,
+                            "APP" + doctorId + "-" + n++, "ID01", doctorId, dateTime,
+                            Appointment.Status.PENDING, null));
+                    bookings.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return bookings.get();
+    }
+}
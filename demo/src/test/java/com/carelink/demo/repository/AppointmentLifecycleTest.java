@@ -0,0 +1,70 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Échéances du cycle de vie : expiration des demandes sans réponse et
+ * clôture des rendez-vous passés, rattrapées au démarrage sauf pour
+ * l'historique ancien et les rendez-vous terminés.
+ */
+class AppointmentLifecycleTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    private AppointmentLifecycle lifecycle;
+
+    @AfterEach
+    void stopLifecycle() {
+        if (lifecycle != null) {
+            lifecycle.stop();
+        }
+    }
+
+    @Test
+    void pastDueDeadlinesAreAppliedOnTheFirstTick() throws InterruptedException {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        LocalDate recent = LocalDate.now().minusDays(3);
+        Appointment pending = book(repository, recent.atTime(8, 0), Appointment.Status.PENDING);
+        Appointment confirmed = book(repository, recent.atTime(8, 30), Appointment.Status.CONFIRMED);
+        Appointment old = book(repository, LocalDate.now().minusDays(60).atTime(8, 0), Appointment.Status.PENDING);
+        Appointment cancelled = book(repository, recent.atTime(9, 0), Appointment.Status.CANCELLED);
+
+        lifecycle = new AppointmentLifecycle(repository, (doctor, dateTime) -> { }, TICK_MILLIS);
+        lifecycle.trackAll(List.of(pending, confirmed, old, cancelled));
+        // Ni l'historique ancien ni le rendez-vous annulé ne sont suivis
+        assertThat(lifecycle.pendingDeadlines()).isEqualTo(2);
+
+        lifecycle.start();
+        awaitTicks(() -> pending.getStatus() == Appointment.Status.CANCELLED
+                && confirmed.getStatus() == Appointment.Status.COMPLETED);
+
+        assertThat(pending.getStatus()).isEqualTo(Appointment.Status.CANCELLED);
+        assertThat(confirmed.getStatus()).isEqualTo(Appointment.Status.COMPLETED);
+        assertThat(old.getStatus()).isEqualTo(Appointment.Status.PENDING);
+        assertThat(repository.getDoctorById("ID004").isSlotAvailable(recent, pending.getDateTime().toLocalTime()))
+                .isTrue();
+    }
+
+    /** Attend au plus une centaine de ticks que la condition soit remplie. */
+    private static void awaitTicks(BooleanSupplier done) throws InterruptedException {
+        for (int i = 0; i < 100 && !done.getAsBoolean(); i++) {
+            Thread.sleep(TICK_MILLIS);
+        }
+    }
+
+    private static Appointment book(CsvDataRepository repository, LocalDateTime dateTime, Appointment.Status status) {
+        if (status != Appointment.Status.CANCELLED) {
+            repository.getDoctorById("ID004").getCalendar().markBooked(dateTime.toLocalDate(), dateTime.toLocalTime());
+        }
+        return repository.createAppointment(new Appointment(null, "ID01", "ID004", dateTime, status));
+    }
+}
@@ -0,0 +1,75 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.OperationResult;
+import com.carelink.demo.service.impl.CareLinkServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lot d'opérations du guichet : résultat propre à chaque élément et
+ * journal limité aux opérations appliquées.
+ */
+class CsvDataRepositoryBatchTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusYears(4);
+
+    @Test
+    void mixedBatchReportsEachItemAndJournalsOnlyAppliedOperations() throws Exception {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        CareLinkServiceImpl service = new CareLinkServiceImpl(16, 1);
+        Appointment own = book(repository, "ID001", DAY.atTime(9, 0));
+        Appointment stale = book(repository, "ID001", DAY.atTime(9, 30));
+        Appointment foreign = book(repository, "ID002", DAY.atTime(9, 0));
+
+        List<OperationResult> results = service.applyAppointmentOperations("ID001", List.of(
+                Map.of("id", own.getId(), "action", "confirm"),
+                Map.of("id", foreign.getId(), "action", "cancel"),
+                Map.of("id", stale.getId(), "action", "cancel", "version", "7"),
+                Map.of("id", own.getId(), "action", "reschedule",
+                        "newDate", DAY.toString(), "newTime", "11:00")));
+
+        assertThat(results).extracting(OperationResult::success).containsExactly(true, false, false, true);
+        assertThat(results.get(0).status()).isEqualTo(Appointment.Status.CONFIRMED);
+        assertThat(results.get(0).version()).isEqualTo(1L);
+        assertThat(results.get(1).message()).isEqualTo("Forbidden");
+        assertThat(results.get(2).message()).contains("expected 7");
+        assertThat(results.get(3).status()).isEqualTo(Appointment.Status.RESCHEDULED);
+        assertThat(results.get(3).version()).isEqualTo(2L);
+
+        assertThat(own.getDateTime()).isEqualTo(DAY.atTime(11, 0));
+        assertThat(stale.getStatus()).isEqualTo(Appointment.Status.PENDING);
+        assertThat(foreign.getStatus()).isEqualTo(Appointment.Status.PENDING);
+        Doctor doctor = repository.getDoctorById("ID001");
+        assertThat(doctor.isSlotAvailable(DAY, LocalTime.of(9, 0))).isTrue();
+        assertThat(doctor.isSlotAvailable(DAY, LocalTime.of(11, 0))).isFalse();
+
+        Map<String, List<AppointmentJournal.Type>> journaled = new HashMap<>();
+        try (AppointmentJournal journal = new AppointmentJournal(RepositoryTestSupport.journalPath(),
+                AppointmentJournal.FsyncPolicy.NONE, 1)) {
+            journal.replay(entry -> journaled.computeIfAbsent(entry.appointmentId(), id -> new ArrayList<>())
+                    .add(entry.type()));
+        }
+        assertThat(journaled.get(own.getId())).containsExactly(AppointmentJournal.Type.CREATE,
+                AppointmentJournal.Type.STATUS, AppointmentJournal.Type.RESCHEDULE);
+        assertThat(journaled.get(stale.getId())).containsExactly(AppointmentJournal.Type.CREATE);
+        assertThat(journaled.get(foreign.getId())).containsExactly(AppointmentJournal.Type.CREATE);
+    }
+
+    private static Appointment book(CsvDataRepository repository, String doctorId, LocalDateTime dateTime) {
+        assertThat(repository.getDoctorById(doctorId).bookSlot(dateTime.toLocalDate(), dateTime.toLocalTime()))
+                .isTrue();
+        return repository.createAppointment(new Appointment(null, "ID01", doctorId, dateTime,
+                Appointment.Status.PENDING));
+    }
+}
@@ -0,0 +1,126 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Réservations, annulations et reports concurrents sur un même médecin :
+ * aucun créneau ne doit être attribué deux fois, le calendrier doit refléter
+ * les rendez-vous actifs et le journal doit reproduire l'état en mémoire.
+ */
+class CsvDataRepositoryConcurrencyTest {
+
+    private static final String DOCTOR_ID = "ID001";
+    private static final String[] PATIENT_IDS = {"ID01", "ID02", "ID03"};
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 300;
+
+    /** Peu de créneaux pour beaucoup d'opérations : la contention est forte. */
+    private static final int SLOTS = 6;
+
+    @Test
+    void concurrentBookCancelRescheduleKeepSlotsExclusiveAndJournalConsistent() throws Exception {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        Doctor doctor = repository.getDoctorById(DOCTOR_ID);
+        assertThat(doctor).isNotNull();
+
+        // Jour sans rendez-vous existant pour ce médecin
+        LocalDate day = LocalDate.now().plusYears(2);
+        List<LocalDateTime> slots = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(day.atTime(LocalTime.of(8, 0).plusMinutes(30L * i)));
+        }
+        assertThat(repository.getAppointmentsByDoctorIdBetween(DOCTOR_ID, day.atStartOfDay(),
+                day.plusDays(1).atStartOfDay())).isEmpty();
+
+        List<Appointment> created = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    LocalDateTime slot = slots.get(random.nextInt(SLOTS));
+                    int choice = random.nextInt(3);
+                    if (choice == 0 || created.isEmpty()) {
+                        // Même enchaînement que le pipeline de réservation
+                        if (doctor.bookSlot(slot.toLocalDate(), slot.toLocalTime())) {
+                            Appointment appointment = new Appointment(null,
+                                    PATIENT_IDS[random.nextInt(PATIENT_IDS.length)], DOCTOR_ID, slot,
+                                    Appointment.Status.PENDING);
+                            created.add(repository.createAppointment(appointment));
+                        }
+                    } else {
+                        Appointment target = created.get(random.nextInt(created.size()));
+                        if (choice == 1) {
+                            repository.cancelAppointment(target.getId());
+                        } else {
+                            repository.rescheduleAppointment(target.getId(), slot);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertThat(created).isNotEmpty();
+
+        // Au plus un rendez-vous actif par créneau, et le calendrier le sait
+        Map<LocalDateTime, Integer> active = new HashMap<>();
+        for (Appointment appointment : created) {
+            Appointment.State state = appointment.getState();
+            if (state.status() != Appointment.Status.CANCELLED) {
+                active.merge(state.dateTime(), 1, Integer::sum);
+            }
+        }
+        for (LocalDateTime slot : slots) {
+            assertThat(active.getOrDefault(slot, 0)).as("appointments at %s", slot).isLessThanOrEqualTo(1);
+            assertThat(doctor.isSlotAvailable(slot.toLocalDate(), slot.toLocalTime()))
+                    .as("calendar at %s", slot).isEqualTo(!active.containsKey(slot));
+        }
+
+        // Le rejeu du journal reproduit date, état et version de chaque rendez-vous
+        Map<String, Appointment.State> replayed = new HashMap<>();
+        try (AppointmentJournal journal = new AppointmentJournal(RepositoryTestSupport.journalPath(),
+                AppointmentJournal.FsyncPolicy.NONE, 1)) {
+            journal.replay(entry -> {
+                switch (entry.type()) {
+                    case CREATE -> replayed.put(entry.appointmentId(),
+                            new Appointment.State(entry.dateTime(), entry.status(), 0));
+                    case STATUS -> replayed.computeIfPresent(entry.appointmentId(),
+                            (id, state) -> state.next(state.dateTime(), entry.status()));
+                    case RESCHEDULE -> replayed.computeIfPresent(entry.appointmentId(),
+                            (id, state) -> state.next(entry.dateTime(), entry.status()));
+                }
+            });
+        }
+        for (Appointment appointment : created) {
+            assertThat(replayed.get(appointment.getId())).as("journal state of %s", appointment.getId())
+                    .isEqualTo(appointment.getState());
+        }
+    }
+}
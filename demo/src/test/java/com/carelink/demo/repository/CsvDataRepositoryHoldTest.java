@@ -0,0 +1,57 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.SlotHold;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Réservations temporaires : créneaux refusés avant toute réservation et
+ * plafond par patient.
+ */
+class CsvDataRepositoryHoldTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusYears(3);
+
+    @Test
+    void pastAndClosedSlotsAreNotHeld() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+
+        assertThat(repository.holdSlot("ID001", "P-HOLD-1", LocalDateTime.now().minusDays(1)
+                .withHour(10).withMinute(0).withSecond(0).withNano(0))).isNull();
+        assertThat(repository.holdSlot("ID001", "P-HOLD-1", DAY.atTime(3, 0))).isNull();
+        assertThat(repository.holdSlot("ID001", "P-HOLD-1", DAY.atTime(10, 15))).isNull();
+        assertThat(repository.getDoctorById("ID001").isSlotAvailable(DAY, LocalTime.of(10, 0))).isTrue();
+    }
+
+    @Test
+    void patientCannotHoldMoreThanTheLimit() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        List<SlotHold> holds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            holds.add(repository.holdSlot("ID002", "P-HOLD-2", DAY.atTime(9 + i, 0)));
+        }
+        assertThat(holds).doesNotContainNull();
+
+        assertThatThrownBy(() -> repository.holdSlot("ID002", "P-HOLD-2", DAY.atTime(13, 0)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(repository.getDoctorById("ID002").isSlotAvailable(DAY, LocalTime.of(13, 0))).isTrue();
+
+        // Une réservation rendue libère une place
+        assertThat(repository.releaseHold(holds.remove(0).id(), "P-HOLD-2")).isTrue();
+        SlotHold next = repository.holdSlot("ID002", "P-HOLD-2", DAY.atTime(13, 0));
+        assertThat(next).isNotNull();
+        holds.add(next);
+
+        for (SlotHold hold : holds) {
+            repository.releaseHold(hold.id(), "P-HOLD-2");
+        }
+    }
+}
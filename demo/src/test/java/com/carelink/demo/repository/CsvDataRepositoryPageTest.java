@@ -0,0 +1,52 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.DoctorPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pagination par curseur : les pages enchaînées redonnent exactement les
+ * résultats de la recherche, par identifiant croissant, que la page soit
+ * lue dans l'annuaire trié ou prise parmi les résultats de l'index.
+ */
+class CsvDataRepositoryPageTest {
+
+    @Test
+    void chainedPagesListEveryMatchOnceInIdOrder() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        Doctor doctor = repository.getDoctorById("ID001");
+
+        // Sans critère (lecture de l'annuaire trié), puis critères sélectifs
+        assertPagesMatch(repository, null, null, null, 7);
+        assertPagesMatch(repository, doctor.getWilaya(), null, null, 3);
+        assertPagesMatch(repository, doctor.getWilaya(), doctor.getCity(), doctor.getSpeciality(), 1);
+        assertPagesMatch(repository, "Nowhere", null, null, 5);
+    }
+
+    private static void assertPagesMatch(CsvDataRepository repository, String wilaya, String city,
+            String specialty, int limit) {
+        List<String> expected = new ArrayList<>();
+        for (Doctor doctor : repository.findDoctors(wilaya, city, specialty)) {
+            expected.add(doctor.getId());
+        }
+        expected.sort(null);
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            DoctorPage page = repository.findDoctorPage(wilaya, city, specialty, cursor, limit);
+            assertThat(page.doctors().size()).isLessThanOrEqualTo(limit);
+            for (Doctor doctor : page.doctors()) {
+                paged.add(doctor.getId());
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(paged).isEqualTo(expected);
+    }
+}
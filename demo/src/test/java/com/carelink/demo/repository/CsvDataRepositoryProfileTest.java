@@ -0,0 +1,81 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mise à jour du profil d'un médecin : tout ou rien, sans modifier en place
+ * le médecin publié ; inscription ajoutée à l'annuaire courant.
+ */
+class CsvDataRepositoryProfileTest {
+
+    @Test
+    void emailConflictLeavesPublishedDoctorAndIndexesUntouched() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        Doctor published = repository.getDoctorById("ID002");
+        String taken = repository.getDoctorById("ID003").getEmail();
+
+        Doctor change = published.copy();
+        change.setSpeciality("Cardiology");
+        change.setEmail(taken);
+
+        assertThat(repository.updateDoctorProfile(change)).isFalse();
+        assertThat(repository.getDoctorById("ID002")).isSameAs(published);
+        assertThat(published.getSpeciality()).isEqualTo("Gastroenterology");
+        assertThat(repository.findDoctorsBySpecialty("Cardiology")).extracting(Doctor::getId)
+                .doesNotContain("ID002");
+        assertThat(repository.getDoctorByEmail(taken).getId()).isEqualTo("ID003");
+    }
+
+    @Test
+    void successfulUpdateReplacesDoctorAndKeepsCalendar() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        Doctor published = repository.getDoctorById("ID004");
+        String previousEmail = published.getEmail();
+
+        Doctor change = published.copy();
+        change.setSpeciality("Dermatology");
+        change.setEmail("amira.chouiter@carelink.test");
+        change.setPasswordHash("");
+
+        int position = repository.getAllDoctors().indexOf(published);
+        assertThat(repository.updateDoctorProfile(change)).isTrue();
+        Doctor updated = repository.getDoctorById("ID004");
+        assertThat(repository.getAllDoctors().get(position)).isSameAs(updated);
+        assertThat(updated).isNotSameAs(published).isNotSameAs(change);
+        assertThat(updated.getCalendar()).isSameAs(published.getCalendar());
+        assertThat(updated.getPasswordHash()).isEqualTo(published.getPasswordHash());
+        assertThat(published.getSpeciality()).isEqualTo("Cardiology");
+
+        assertThat(repository.getDoctorByEmail("amira.chouiter@carelink.test")).isSameAs(updated);
+        assertThat(repository.getDoctorByEmail(previousEmail)).isNull();
+        assertThat(repository.findDoctorsBySpecialty("Dermatology")).contains(updated);
+        assertThat(repository.findDoctorsBySpecialty("Cardiology")).extracting(Doctor::getId)
+                .doesNotContain("ID004");
+        assertThat(repository.findNearestDoctors(published.getWilaya(), published.getCity(), "Dermatology", 200))
+                .extracting(nearby -> nearby.doctor()).contains(updated).doesNotContain(published);
+        assertThat(repository.findNearestDoctors(published.getWilaya(), published.getCity(), "Cardiology", 200))
+                .extracting(nearby -> nearby.doctor()).doesNotContain(published);
+    }
+
+    @Test
+    void registeredDoctorIsAppendedToTheCurrentDirectory() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        List<Doctor> before = repository.getAllDoctors();
+        long version = repository.getDataVersion();
+
+        Doctor doctor = repository.getDoctorById("ID005").copy();
+        doctor.setEmail("new.doctor@carelink.test");
+        Doctor registered = repository.registerDoctor(doctor);
+
+        assertThat(repository.getDoctorById(registered.getId())).isSameAs(registered);
+        assertThat(repository.getAllDoctors()).hasSize(before.size() + 1).endsWith(registered);
+        assertThat(before).doesNotContain(registered);
+        assertThat(repository.getDataVersion()).isEqualTo(version);
+        assertThat(repository.findDoctorsBySpecialty(registered.getSpeciality())).contains(registered);
+    }
+}
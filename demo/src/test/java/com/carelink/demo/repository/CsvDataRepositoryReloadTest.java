@@ -0,0 +1,56 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Doctor;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rechargement à chaud de doctors.csv : une ligne ne peut pas reprendre
+ * l'identifiant d'un médecin inscrit à l'exécution.
+ */
+class CsvDataRepositoryReloadTest {
+
+    @Test
+    void csvRowWithARegisteredDoctorIdIsIgnored() throws Exception {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        Doctor doctor = repository.getDoctorById("ID006").copy();
+        doctor.setEmail("registered.before.reload@carelink.test");
+        Doctor registered = repository.registerDoctor(doctor);
+
+        Path dataDir = Files.createTempDirectory("carelink-reload");
+        String csv;
+        try (InputStream in = new ClassPathResource("data/doctors.csv").getInputStream()) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (!csv.endsWith("\n")) {
+            csv += "\n";
+        }
+        csv += registered.getId() + ",Intrus,Fichier,Alger,Alger Centre,intrus@carelink.test,secret,"
+                + "05 00 00 00 00,M,Neurology,\n";
+        Files.writeString(dataDir.resolve("doctors.csv"), csv);
+
+        String previous = System.setProperty("carelink.data.dir", dataDir.toString());
+        try {
+            repository.reloadReferenceData(Set.of("doctors.csv"));
+        } finally {
+            if (previous == null) {
+                System.clearProperty("carelink.data.dir");
+            } else {
+                System.setProperty("carelink.data.dir", previous);
+            }
+        }
+
+        assertThat(repository.getDoctorById(registered.getId())).isSameAs(registered);
+        assertThat(repository.getDoctorByEmail("registered.before.reload@carelink.test")).isSameAs(registered);
+        assertThat(repository.getDoctorByEmail("intrus@carelink.test")).isNull();
+        assertThat(repository.getDoctorById("ID006")).isNotNull();
+    }
+}
@@ -0,0 +1,99 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.SyntheticDirectory;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.strategy.DoctorSearchContext;
+import com.carelink.demo.model.strategy.SearchBySpecialty;
+import com.carelink.demo.service.impl.CareLinkServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Octets alloués par appel de recherche sur l'annuaire, avec les vues
+ * partagées actuelles et avec les deux copies défensives d'avant
+ * (repository puis service), reproduites ici comme référence.
+ *
+ * Mesure à la demande, de préférence seule dans sa JVM (le repository est
+ * un singleton : l'annuaire synthétique n'est chargé que si aucun test ne
+ * l'a créé avant) :
+ * {@code mvn test -Dtest=DirectoryAllocationBenchmarkTest -Dcarelink.benchmarks=true}
+ * (taille : carelink.benchmarks.doctors).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class DirectoryAllocationBenchmarkTest {
+
+    private static final int DOCTORS = Integer.getInteger("carelink.benchmarks.doctors", 100_000);
+    private static final int CALLS = 200;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static {
+        try {
+            Path data = Files.createTempDirectory("carelink-directory");
+            SyntheticDirectory.writeCsvFiles(data, DOCTORS, 1, 0);
+            System.setProperty("carelink.data.dir", data.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void bytesAllocatedPerSearchCall() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        CareLinkServiceImpl service = new CareLinkServiceImpl(256, 1);
+        String specialty = SyntheticDirectory.specialties().get(0);
+        int size = service.getAllDoctors().size();
+
+        long view = allocatedPerCall(service::getAllDoctors);
+        long copies = allocatedPerCall(() -> copiedDirectory(repository));
+        long searchView = allocatedPerCall(() -> bySpecialty(service.getAllDoctors(), specialty));
+        long searchCopies = allocatedPerCall(() -> bySpecialty(copiedDirectory(repository), specialty));
+
+        System.out.printf("allocation per call, %,d doctors%n"
+                + "  getAllDoctors:      view %,d B, copies %,d B%n"
+                + "  specialty search:   view %,d B, copies %,d B%n",
+                size, view, copies, searchView, searchCopies);
+
+        assertThat(view).isLessThan(copies);
+    }
+
+    /** Ancien chemin : copie du repository, puis copie du service. */
+    private static List<Doctor> copiedDirectory(CsvDataRepository repository) {
+        List<Doctor> fromRepository = new ArrayList<>(repository.getAllDoctors());
+        return new ArrayList<>(fromRepository);
+    }
+
+    private static List<Doctor> bySpecialty(List<Doctor> doctors, String specialty) {
+        DoctorSearchContext context = new DoctorSearchContext();
+        context.setSearchStrategy(new SearchBySpecialty());
+        return context.executeSearch(doctors, specialty);
+    }
+
+    /** Moyenne des octets alloués par le thread courant, après échauffement. */
+    private static long allocatedPerCall(Supplier<List<Doctor>> call) {
+        long sink = 0;
+        for (int i = 0; i < CALLS; i++) {
+            sink += call.get().size();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < CALLS; i++) {
+            sink += call.get().size();
+        }
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - before;
+        assertThat(sink).isNotNegative();
+        return allocated / CALLS;
+    }
+}
@@ -0,0 +1,61 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.SyntheticDirectory;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.NearbyDoctor;
+import com.carelink.demo.model.Specialty;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latence des requêtes des k plus proches médecins sur la grille de
+ * {@link GeoIndex} : points tirés au hasard sur le territoire, spécialité
+ * au hasard.
+ *
+ * Les médecins synthétiques sont placés aux centres des villes de
+ * data/cities.csv, comme ceux de l'application. Mesure à la demande :
+ * {@code mvn test -Dtest=GeoIndexBenchmarkTest -Dcarelink.benchmarks=true}
+ * (taille : carelink.benchmarks.doctors).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class GeoIndexBenchmarkTest {
+
+    private static final int DOCTORS = Integer.getInteger("carelink.benchmarks.doctors", 1_000_000);
+    private static final int QUERIES = 20_000;
+    private static final int K = 10;
+
+    @Test
+    void nearestDoctorsLatency() {
+        List<Doctor> doctors = SyntheticDirectory.doctors(DOCTORS);
+        long buildStart = System.nanoTime();
+        GeoIndex index = GeoIndex.build(doctors, SyntheticDirectory.cities());
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        List<String> specialties = SyntheticDirectory.specialties();
+        Random random = new Random(7);
+        long[] nanos = new long[QUERIES];
+        for (int round = 0; round < 2; round++) { // le premier tour sert d'échauffement
+            for (int i = 0; i < QUERIES; i++) {
+                double latitude = 19.0 + random.nextDouble() * 18.0;
+                double longitude = -8.5 + random.nextDouble() * 20.5;
+                int specialty = Specialty.NAMES.find(specialties.get(random.nextInt(specialties.size())));
+
+                long start = System.nanoTime();
+                List<NearbyDoctor> nearest = index.nearest(latitude, longitude, specialty, K);
+                nanos[i] = System.nanoTime() - start;
+                assertThat(nearest).hasSize(K);
+            }
+        }
+
+        Arrays.sort(nanos);
+        System.out.printf("k-NN (k=%d) over %,d doctors, index built in %,d ms%n"
+                + "  p50 %,d us  p99 %,d us  max %,d us%n", K, doctors.size(), buildMillis,
+                nanos[QUERIES / 2] / 1_000, nanos[QUERIES * 99 / 100] / 1_000, nanos[QUERIES - 1] / 1_000);
+    }
+}
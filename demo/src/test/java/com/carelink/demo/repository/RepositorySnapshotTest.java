@@ -0,0 +1,92 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.Doctor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Informations du snapshot nécessaires pour reprendre exactement l'état
+ * écrit : empreintes des fichiers sources, médecins inscrits à l'exécution,
+ * versions des rendez-vous.
+ */
+class RepositorySnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sourcesAreReadBackFromHeaderAndPayload() throws Exception {
+        Map<String, Long> sources = Map.of(
+                "doctors.csv", RepositorySnapshot.fingerprint(bytes("ID001,Farid\n")),
+                "patients.csv", RepositorySnapshot.MISSING_SOURCE);
+        Path file = dir.resolve("repository.snapshot");
+        RepositorySnapshot.write(file, new RepositorySnapshot.Contents(List.of(), List.of(), List.of(), Set.of(),
+                List.of(), List.of(), 42L, sources));
+
+        assertThat(RepositorySnapshot.readSources(file)).isEqualTo(sources);
+        RepositorySnapshot.Contents contents = RepositorySnapshot.read(file);
+        assertThat(contents.sources()).isEqualTo(sources);
+        assertThat(contents.journalPosition()).isEqualTo(42L);
+    }
+
+    @Test
+    void runtimeRegisteredDoctorsAreFlagged() throws Exception {
+        Doctor fromCsv = doctor("ID001", "zoubirfarid@gmail.com");
+        Doctor registered = doctor("D077", "new.doctor@gmail.com");
+        Path file = dir.resolve("repository.snapshot");
+        RepositorySnapshot.write(file, new RepositorySnapshot.Contents(List.of(), List.of(),
+                List.of(fromCsv, registered), Set.of("D077"), List.of(), List.of(), 0L, Map.of()));
+
+        RepositorySnapshot.Contents contents = RepositorySnapshot.read(file);
+        assertThat(contents.doctors()).extracting(Doctor::getId).containsExactly("ID001", "D077");
+        assertThat(contents.runtimeDoctorIds()).containsExactly("D077");
+    }
+
+    @Test
+    void appointmentVersionSurvivesTheSnapshot() throws Exception {
+        Appointment appointment = new Appointment("APP1", "P001", "ID001", LocalDateTime.of(2030, 1, 7, 9, 0),
+                Appointment.Status.PENDING);
+        Appointment.State pending = appointment.getState();
+        appointment.compareAndSet(pending, pending.next(LocalDateTime.of(2030, 1, 8, 10, 30),
+                Appointment.Status.RESCHEDULED));
+        appointment.setStatus(Appointment.Status.CONFIRMED);
+        Path file = dir.resolve("repository.snapshot");
+        RepositorySnapshot.write(file, new RepositorySnapshot.Contents(List.of(), List.of(), List.of(), Set.of(),
+                List.of(), List.of(appointment), 0L, Map.of()));
+
+        List<Appointment> restored = RepositorySnapshot.read(file).appointments();
+        assertThat(restored).hasSize(1);
+        assertThat(restored.get(0).getState()).isEqualTo(appointment.getState());
+        assertThat(restored.get(0).getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void fingerprintChangesWithContentOfSameSize() {
+        ByteBuffer original = bytes("ID001,Farid\n");
+        ByteBuffer edited = bytes("ID001,Fared\n");
+
+        assertThat(RepositorySnapshot.fingerprint(original)).isNotEqualTo(RepositorySnapshot.fingerprint(edited));
+        assertThat(RepositorySnapshot.fingerprint(original)).isEqualTo(RepositorySnapshot.fingerprint(original));
+        assertThat(original.position()).isZero();
+    }
+
+    private static Doctor doctor(String id, String email) {
+        return new Doctor(id, "First", "Last", "Algiers", "Algiers", email, "secret", "0555000000", "M",
+                "Cardiology", null);
+    }
+
+    private static ByteBuffer bytes(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.SyntheticDirectory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Temps de démarrage du repository depuis les CSV puis depuis le snapshot
+ * binaire, sur un annuaire synthétique.
+ *
+ * Chaque démarrage a lieu dans une JVM neuve (le repository est un
+ * singleton) ; seul le temps de {@link CsvDataRepository#getInstance()} est
+ * compté, pas celui du lancement de la JVM. Mesure à la demande :
+ * {@code mvn test -Dtest=RepositoryStartupBenchmarkTest -Dcarelink.benchmarks=true}
+ * (taille : carelink.benchmarks.doctors, carelink.benchmarks.appointments ;
+ * mémoire de la JVM mesurée : carelink.benchmarks.heap).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class RepositoryStartupBenchmarkTest {
+
+    private static final int DOCTORS = Integer.getInteger("carelink.benchmarks.doctors", 100_000);
+    private static final int APPOINTMENTS = Integer.getInteger("carelink.benchmarks.appointments", 1_000_000);
+    private static final int PATIENTS = Math.max(1, DOCTORS / 2);
+    private static final String HEAP = System.getProperty("carelink.benchmarks.heap", "3g");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvVersusSnapshotStartup() throws Exception {
+        Path data = dir.resolve("csv");
+        SyntheticDirectory.writeCsvFiles(data, DOCTORS, PATIENTS, APPOINTMENTS);
+
+        String fromCsv = start(data);
+        String fromSnapshot = start(data);
+        System.out.printf("startup %,d doctors / %,d appointments (snapshot %,d bytes)%n  CSV:      %s%n"
+                + "  snapshot: %s%n", DOCTORS, APPOINTMENTS, Files.size(dir.resolve("repository.snapshot")),
+                fromCsv, fromSnapshot);
+
+        assertThat(fromCsv).contains("source=csv");
+        assertThat(fromSnapshot).contains("source=snapshot");
+    }
+
+    /** Démarre le repository dans une JVM neuve et retourne sa ligne de mesure. */
+    private String start(Path data) throws IOException, InterruptedException {
+        Path output = Files.createTempFile(dir, "startup", ".out");
+        Process process = new ProcessBuilder(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + HEAP,
+                "-cp", System.getProperty("java.class.path"),
+                "-Dcarelink.data.dir=" + data,
+                "-Dcarelink.journal.path=" + dir.resolve("appointments.journal"),
+                "-Dcarelink.snapshot.path=" + dir.resolve("repository.snapshot"),
+                "-Dcarelink.snapshot.intervalSeconds=0",
+                Startup.class.getName()))
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+        assertThat(process.waitFor(30, TimeUnit.MINUTES)).isTrue();
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertThat(process.exitValue()).as("%s", lines).isZero();
+        return lines.stream().filter(line -> line.startsWith("startup ")).findFirst().orElseThrow()
+                .substring("startup ".length());
+    }
+
+    /** Point d'entrée de la JVM mesurée. */
+    static final class Startup {
+
+        public static void main(String[] args) throws IOException {
+            Path snapshot = Path.of(System.getProperty("carelink.snapshot.path"));
+            boolean hadSnapshot = Files.isRegularFile(snapshot);
+
+            long start = System.nanoTime();
+            CsvDataRepository repository = CsvDataRepository.getInstance();
+            long loaded = System.nanoTime();
+
+            String line = String.format("startup source=%s load=%,d ms doctors=%,d appointments=%,d",
+                    hadSnapshot ? "snapshot" : "csv", (loaded - start) / 1_000_000,
+                    repository.getAllDoctors().size(), repository.getAllAppointments().size());
+            if (!hadSnapshot) {
+                long writeStart = System.nanoTime();
+                repository.writeSnapshot();
+                line += String.format(" snapshotWrite=%,d ms", (System.nanoTime() - writeStart) / 1_000_000);
+            }
+            System.out.println(line);
+            System.out.flush();
+            Runtime.getRuntime().halt(0); // pas de second snapshot à l'arrêt
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.carelink.demo.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Dépôt partagé par les tests d'une même JVM.
+ *
+ * Le dépôt est un singleton : son journal et son snapshot sont redirigés une
+ * fois pour toutes vers un répertoire temporaire, avant sa création, pour ne
+ * jamais rejouer ni modifier les données de l'application.
+ */
+final class RepositoryTestSupport {
+
+    private static final Path DATA_DIR;
+
+    static {
+        try {
+            DATA_DIR = Files.createTempDirectory("carelink-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.setProperty("carelink.journal.path", journalPath().toString());
+        System.setProperty("carelink.snapshot.path", DATA_DIR.resolve("repository.snapshot").toString());
+        System.setProperty("carelink.snapshot.intervalSeconds", "0");
+    }
+
+    private RepositoryTestSupport() {
+    }
+
+    static CsvDataRepository repository() {
+        return CsvDataRepository.getInstance();
+    }
+
+    static Path journalPath() {
+        return DATA_DIR.resolve("appointments.journal");
+    }
+}
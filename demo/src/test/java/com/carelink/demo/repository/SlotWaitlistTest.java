@@ -0,0 +1,114 @@
+package com.carelink.demo.repository;
+
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.Doctor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listes d'attente : promotion de la tête de file quand un créneau se
+ * libère, plafond des réservations temporaires et purge des jours écoulés.
+ */
+class SlotWaitlistTest {
+
+    private static final long TICK_MILLIS = 10;
+    private static final LocalDate DAY = LocalDate.now().plusYears(5);
+
+    private AppointmentLifecycle lifecycle;
+
+    @AfterEach
+    void stopLifecycle() {
+        if (lifecycle != null) {
+            lifecycle.stop();
+        }
+    }
+
+    @Test
+    void freedSlotIsHeldForTheHeadOfTheQueue() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        Doctor doctor = repository.getDoctorById("ID001");
+        Appointment cancelled = book(repository, DAY.atTime(9, 0));
+        Appointment moved = book(repository, DAY.atTime(9, 30));
+
+        repository.joinWaitlist("ID001", "P-WAIT-1", List.of(DAY));
+        repository.joinWaitlist("ID001", "P-WAIT-2", List.of(DAY));
+
+        // Annulation : le créneau est retenu pour le premier inscrit
+        assertThat(repository.cancelAppointment(cancelled.getId())).isTrue();
+        assertThat(doctor.isSlotAvailable(DAY, LocalTime.of(9, 0))).isFalse();
+        assertThat(repository.leaveWaitlist("ID001", "P-WAIT-1")).isFalse();
+
+        // Report : l'ancien créneau passe au suivant
+        assertThat(repository.rescheduleAppointment(moved.getId(), DAY.atTime(14, 0))).isTrue();
+        assertThat(doctor.isSlotAvailable(DAY, LocalTime.of(9, 30))).isFalse();
+        assertThat(repository.leaveWaitlist("ID001", "P-WAIT-2")).isFalse();
+    }
+
+    @Test
+    void patientAtTheHoldLimitKeepsTheHeadOfTheQueue() {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        LocalDate day = DAY.plusDays(1);
+        Appointment first = book(repository, day.atTime(10, 0));
+        Appointment second = book(repository, day.atTime(10, 30));
+
+        // Plafond (3 par défaut) atteint sur un autre jour
+        String heldId = null;
+        for (int i = 0; i < 3; i++) {
+            heldId = repository.holdSlot("ID001", "P-WAIT-3", day.plusDays(1).atTime(8, 0).plusMinutes(30L * i)).id();
+        }
+        repository.joinWaitlist("ID001", "P-WAIT-3", List.of(day));
+        repository.joinWaitlist("ID001", "P-WAIT-4", List.of(day));
+        repository.joinWaitlist("ID001", "P-WAIT-5", List.of(day));
+
+        // Le patient au plafond est écarté mais garde sa place
+        assertThat(repository.cancelAppointment(first.getId())).isTrue();
+        assertThat(repository.leaveWaitlist("ID001", "P-WAIT-4")).isFalse();
+
+        // Sous le plafond, il reçoit le créneau suivant avant P-WAIT-5
+        assertThat(repository.releaseHold(heldId, "P-WAIT-3")).isTrue();
+        assertThat(repository.cancelAppointment(second.getId())).isTrue();
+        assertThat(repository.leaveWaitlist("ID001", "P-WAIT-3")).isFalse();
+        assertThat(repository.leaveWaitlist("ID001", "P-WAIT-5")).isTrue();
+    }
+
+    @Test
+    void subscriptionIsDroppedWhenItsLastDayIsPurged() throws InterruptedException {
+        CsvDataRepository repository = RepositoryTestSupport.repository();
+        lifecycle = new AppointmentLifecycle(repository, (doctor, dateTime) -> { }, TICK_MILLIS);
+        SlotWaitlist waitlist = new SlotWaitlist(repository, lifecycle);
+        lifecycle.start();
+
+        LocalDate today = LocalDate.now();
+        waitlist.subscribe("ID001", "P-WAIT-1", List.of(today.minusDays(2), today.minusDays(1)));
+        waitlist.subscribe("ID001", "P-WAIT-2", List.of(today.minusDays(1), today.plusDays(30)));
+        assertThat(waitlist.size()).isEqualTo(2);
+
+        // Les purges échues partent au tick suivant
+        awaitTicks(() -> waitlist.size() == 1);
+        assertThat(waitlist.size()).isEqualTo(1);
+        assertThat(waitlist.unsubscribe("ID001", "P-WAIT-1")).isFalse();
+        assertThat(waitlist.unsubscribe("ID001", "P-WAIT-2")).isTrue();
+    }
+
+    /** Attend au plus une centaine de ticks que la condition soit remplie. */
+    private static void awaitTicks(BooleanSupplier done) throws InterruptedException {
+        for (int i = 0; i < 100 && !done.getAsBoolean(); i++) {
+            Thread.sleep(TICK_MILLIS);
+        }
+    }
+
+    private static Appointment book(CsvDataRepository repository, LocalDateTime dateTime) {
+        assertThat(repository.getDoctorById("ID001").bookSlot(dateTime.toLocalDate(), dateTime.toLocalTime()))
+                .isTrue();
+        return repository.createAppointment(new Appointment(null, "ID01", "ID001", dateTime,
+                Appointment.Status.PENDING));
+    }
+}
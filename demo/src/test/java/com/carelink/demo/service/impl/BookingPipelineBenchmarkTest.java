@@ -0,0 +1,123 @@
+package com.carelink.demo.service.impl;
+
+import com.carelink.demo.SyntheticDirectory;
+import com.carelink.demo.model.Appointment;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.repository.CsvDataRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Débit et latence des réservations par les shards de {@link BookingPipeline},
+ * comparés au chemin direct d'avant : créneau réservé puis rendez-vous créé
+ * et synchronisé sur le thread de la requête.
+ *
+ * Chaque réservation vise un créneau libre distinct (médecins et jours pris
+ * à tour de rôle) ; le journal suit la politique de fsync par défaut.
+ * Mesure à la demande, seule dans sa JVM (le repository est un singleton) :
+ * {@code mvn test -Dtest=BookingPipelineBenchmarkTest -Dcarelink.benchmarks=true}
+ * (threads et durée : carelink.benchmarks.threads, carelink.benchmarks.millis ;
+ * shards : carelink.booking.shards, 0 : un par processeur).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class BookingPipelineBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("carelink.benchmarks.threads", 8);
+    private static final long MILLIS = Long.getLong("carelink.benchmarks.millis", 3000L);
+    private static final int SHARDS = Integer.getInteger("carelink.booking.shards", 0);
+    private static final int DOCTORS = 1_000;
+    private static final int MAX_SAMPLES = 4_000_000;
+
+    static {
+        SyntheticDirectory.installDataDir(DOCTORS);
+    }
+
+    /** Créneaux déjà attribués (les deux chemins se partagent le calendrier). */
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    private CsvDataRepository repository;
+    private List<Doctor> doctors;
+    private List<LocalTime> times;
+
+    @Test
+    void pipelineVersusDirectBooking() throws InterruptedException {
+        repository = CsvDataRepository.getInstance();
+        doctors = repository.getAllDoctors();
+        times = doctors.get(0).getCalendar().getOpeningTimes().stream().map(LocalTime::parse).toList();
+        BookingPipeline pipeline = new BookingPipeline(repository, doctor -> { },
+                SHARDS > 0 ? SHARDS : Runtime.getRuntime().availableProcessors());
+        String patientId = repository.getAllPatients().get(0).getId();
+
+        Booking direct = (doctor, dateTime) -> {
+            if (!doctor.bookSlot(dateTime.toLocalDate(), dateTime.toLocalTime())) {
+                throw new IllegalStateException("Selected time slot is not available");
+            }
+            Appointment appointment = new Appointment(null, patientId, doctor.getId(), dateTime,
+                    Appointment.Status.PENDING);
+            repository.createAppointment(appointment);
+        };
+        Booking sharded = (doctor, dateTime) -> pipeline.submit(patientId, doctor, dateTime, null).join();
+
+        run(direct, MILLIS / 5); // préchauffage
+        run(sharded, MILLIS / 5);
+        String directResult = run(direct, MILLIS);
+        String shardedResult = run(sharded, MILLIS);
+        System.out.printf("booking, %d threads, %d processors, %,d doctors%n  direct:   %s%n  pipeline: %s%n",
+                THREADS, Runtime.getRuntime().availableProcessors(), doctors.size(), directResult, shardedResult);
+    }
+
+    private interface Booking {
+        void book(Doctor doctor, LocalDateTime dateTime);
+    }
+
+    /** Réserve pendant {@code millis} ms sur {@link #THREADS} threads ; retourne débit et latences. */
+    private String run(Booking booking, long millis) throws InterruptedException {
+        long[] samples = new long[MAX_SAMPLES];
+        AtomicInteger count = new AtomicInteger();
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    long slot = nextSlot.getAndIncrement();
+                    Doctor doctor = doctors.get((int) (slot % doctors.size()));
+                    long rank = slot / doctors.size();
+                    LocalDateTime dateTime = LocalDateTime.of(
+                            LocalDate.of(2031, 1, 1).plusDays(rank / times.size()),
+                            times.get((int) (rank % times.size())));
+
+                    long start = System.nanoTime();
+                    booking.book(doctor, dateTime);
+                    long elapsed = System.nanoTime() - start;
+                    int i = count.getAndIncrement();
+                    if (i < samples.length) {
+                        samples[i] = elapsed;
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int n = Math.min(count.get(), samples.length);
+        assertThat(n).isPositive();
+        long[] sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+        return String.format("%,8.0f bookings/s  p50 %,6d us  p99 %,6d us", count.get() * 1000.0 / millis,
+                sorted[n / 2] / 1_000, sorted[(int) (n * 0.99)] / 1_000);
+    }
+}
@@ -0,0 +1,83 @@
+package com.carelink.demo.service.impl;
+
+import com.carelink.demo.SyntheticDirectory;
+import com.carelink.demo.model.Doctor;
+import com.carelink.demo.model.strategy.CompositeSearch;
+import com.carelink.demo.model.strategy.DoctorSearchContext;
+import com.carelink.demo.model.strategy.SearchByAvailability;
+import com.carelink.demo.model.strategy.SearchByLocation;
+import com.carelink.demo.model.strategy.SearchBySpecialty;
+import com.carelink.demo.repository.CsvDataRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Temps d'une requête composée exécutée par son plan (critères indexés
+ * résolus par l'index inversé, filtres restants triés par sélectivité),
+ * comparé au filtrage naïf : les stratégies appliquées dans l'ordre écrit
+ * sur tout l'annuaire.
+ *
+ * Mesure à la demande, seule dans sa JVM (le repository est un singleton) :
+ * {@code mvn test -Dtest=SearchQueryPlannerBenchmarkTest -Dcarelink.benchmarks=true}
+ * (taille : carelink.benchmarks.doctors).
+ */
+@EnabledIfSystemProperty(named = "carelink.benchmarks", matches = "true")
+class SearchQueryPlannerBenchmarkTest {
+
+    private static final int DOCTORS = Integer.getInteger("carelink.benchmarks.doctors", 100_000);
+    private static final int ROUNDS = 200;
+
+    static {
+        SyntheticDirectory.installDataDir(DOCTORS);
+    }
+
+    @Test
+    void plannedVersusNaiveCompositeQuery() {
+        CsvDataRepository repository = CsvDataRepository.getInstance();
+        SearchQueryPlanner planner = new SearchQueryPlanner(repository);
+        String wilaya = SyntheticDirectory.place(0)[0];
+        String specialty = SyntheticDirectory.specialties().get(0);
+        String query = "available:10:30 AND wilaya:\"" + wilaya + "\" AND specialty:\"" + specialty + "\"";
+
+        CompositeSearch naive = new CompositeSearch(List.of(
+                new CompositeSearch.Step(new SearchByAvailability(), "10:30"),
+                new CompositeSearch.Step(new SearchByLocation(), wilaya),
+                new CompositeSearch.Step(new SearchBySpecialty(), specialty)));
+
+        Supplier<List<Doctor>> planned = () -> {
+            SearchQueryPlanner.PreparedSearch search = planner.prepare(query);
+            DoctorSearchContext context = new DoctorSearchContext();
+            context.setSearchStrategy(search.strategy());
+            return context.executeSearch(search.candidates(), query);
+        };
+        Supplier<List<Doctor>> filtered = () -> naive.search(repository.getAllDoctors(), null);
+
+        assertThat(planned.get()).containsExactlyInAnyOrderElementsOf(filtered.get());
+        long plannedNanos = nanosPerQuery(planned);
+        long naiveNanos = nanosPerQuery(filtered);
+
+        System.out.printf("query over %,d doctors (%,d results): %s%n  planned: %,d us%n  naive:   %,d us%n",
+                repository.getAllDoctors().size(), planned.get().size(), query,
+                plannedNanos / 1_000, naiveNanos / 1_000);
+    }
+
+    /** Durée moyenne d'une requête, après échauffement. */
+    private static long nanosPerQuery(Supplier<List<Doctor>> query) {
+        long sink = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += query.get().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += query.get().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isNotNegative();
+        return elapsed / ROUNDS;
+    }
+}
@@ -0,0 +1,42 @@
+package com.carelink.demo.service.impl;
+
+import com.carelink.demo.model.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Analyse des requêtes et prédicat d'invalidation du planificateur (sans
+ * repository : le prédicat ne consulte pas l'index).
+ */
+class SearchQueryPlannerTest {
+
+    private static final Doctor DOCTOR = new Doctor("ID001", "Farid", "Zoubir", "Alger", "Alger Centre",
+            "zoubirfarid@gmail.com", "secret", "0551024837", "M", "Neurology", null);
+
+    private final SearchQueryPlanner planner = new SearchQueryPlanner(null);
+
+    @Test
+    void andInsideQuotesBelongsToTheValue() {
+        assertThat(planner.matcher("specialty:Neurology AND city:\"Alger Centre\"").test(DOCTOR)).isTrue();
+        assertThat(planner.matcher("city:\"Alger Centre AND wilaya:Alger\"").test(DOCTOR)).isFalse();
+        assertThatThrownBy(() -> planner.matcher("city:\"Alger Centre AND wilaya:Alger"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void matcherComparesDictionaryCodes() {
+        assertThat(planner.matcher("wilaya:ALGER and specialty:neurology").test(DOCTOR)).isTrue();
+        assertThat(planner.matcher("specialty:Cardiology").test(DOCTOR)).isFalse();
+
+        // Spécialité inconnue à la construction du prédicat, enregistrée ensuite
+        Predicate<Doctor> pediatric = planner.matcher("specialty:\"Neurologie pédiatrique\"");
+        Doctor renamed = new Doctor("ID001", "Farid", "Zoubir", "Alger", "Alger Centre",
+                "zoubirfarid@gmail.com", "secret", "0551024837", "M", "Neurologie pédiatrique", null);
+        assertThat(pediatric.test(renamed)).isTrue();
+        assertThat(pediatric.test(DOCTOR)).isFalse();
+    }
+}
@@ -0,0 +1,98 @@
+package com.carelink.demo.service.impl;
+
+import com.carelink.demo.model.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admission, éviction échantillonnée et invalidation du cache de recherche.
+ */
+class SearchResultCacheTest {
+
+    private static final Doctor DOCTOR = new Doctor("ID001", "Farid", "Zoubir", "Alger", "Alger Centre",
+            "zoubirfarid@gmail.com", "secret", "0551024837", "M", "Neurology", null);
+    private static final Doctor OTHER = new Doctor("ID002", "Lila", "Meghraoui", "Alger", "Bab El Oued",
+            "meghraouilila@gmail.com", "secret", "0792551104", "F", "Gastroenterology", null);
+
+    @Test
+    void popularKeysSurviveOneOffSearches() {
+        SearchResultCache cache = new SearchResultCache(4);
+        for (int round = 0; round < 5; round++) {
+            for (int hot = 0; hot < 4; hot++) {
+                get(cache, "hot" + hot);
+            }
+        }
+        for (int cold = 0; cold < 100; cold++) {
+            get(cache, "cold" + cold);
+        }
+
+        assertThat(cache.stats().get("size")).isEqualTo(4L);
+        assertThat(cache.stats().get("rejections")).isEqualTo(100L);
+        long misses = cache.stats().get("misses");
+        for (int hot = 0; hot < 4; hot++) {
+            get(cache, "hot" + hot);
+        }
+        assertThat(cache.stats().get("misses")).isEqualTo(misses);
+    }
+
+    @Test
+    void invalidatedEntriesFreeTheirSlotWithoutEviction() {
+        SearchResultCache cache = new SearchResultCache(2);
+        get(cache, "a");
+        cache.get("b", d -> true, false, () -> List.of(DOCTOR));
+
+        cache.doctorChanged(DOCTOR);
+        get(cache, "c");
+
+        assertThat(cache.stats().get("evictions")).isZero();
+        assertThat(cache.stats().get("invalidations")).isEqualTo(1L);
+        assertThat(cache.stats().get("size")).isEqualTo(2L);
+    }
+
+    @Test
+    void resultComputedDuringInvalidationIsNotCached() {
+        SearchResultCache cache = new SearchResultCache(4);
+        cache.get("a", d -> true, false, () -> {
+            cache.doctorChanged(DOCTOR);
+            return List.of(DOCTOR);
+        });
+
+        assertThat(cache.stats().get("size")).isZero();
+    }
+
+    @Test
+    void bookingsDuringComputationOnlyDiscardResultsTheyConcern() {
+        SearchResultCache cache = new SearchResultCache(4);
+        Predicate<Doctor> neurology = d -> d.getSpeciality().equals("Neurology");
+
+        // Médecin du résultat, recherche par créneau : écarté
+        cache.get("stale", neurology, true, () -> {
+            cache.slotChanged(DOCTOR);
+            return List.of(DOCTOR);
+        });
+        // Recherche sans créneau daté
+        cache.get("profile", neurology, false, () -> {
+            cache.slotChanged(DOCTOR);
+            return List.of(DOCTOR);
+        });
+        // Autre médecin, hors du résultat et des critères
+        cache.get("slots", neurology, true, () -> {
+            cache.slotChanged(OTHER);
+            return List.of(DOCTOR);
+        });
+
+        assertThat(cache.stats().get("size")).isEqualTo(2L);
+        long misses = cache.stats().get("misses");
+        cache.get("slots", neurology, true, List::of);
+        cache.get("profile", neurology, false, List::of);
+        assertThat(cache.stats().get("misses")).isEqualTo(misses);
+    }
+
+    private static void get(SearchResultCache cache, String key) {
+        cache.get(key, d -> false, false, List::of);
+    }
+}